@@ -0,0 +1,47 @@
+# Migrates a database created with quartz 2.2.1 stock schema (previous versions of schema.sql) to
+# onyx tuned indexes and adds onyx tables, leaving it as if created with current schema.sql.
+#
+# Uses online DDL (MySQL 5.6+) so it can be applied while onyx is running: the acquisition index is
+# built before dropping the ones it replaces, so acquisition always has an index to use. Building
+# it takes time proportional to the amount of triggers (around minutes per 10M triggers), so apply
+# it when trigger load is low.
+
+ALTER TABLE QRTZ_TRIGGERS
+ADD INDEX IDX_ONYX_T_ACQUIRE (SCHED_NAME,TRIGGER_STATE,NEXT_FIRE_TIME,MISFIRE_INSTR,PRIORITY),
+ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE QRTZ_TRIGGERS
+DROP INDEX IDX_QRTZ_T_JG,
+DROP INDEX IDX_QRTZ_T_C,
+DROP INDEX IDX_QRTZ_T_G,
+DROP INDEX IDX_QRTZ_T_STATE,
+DROP INDEX IDX_QRTZ_T_N_STATE,
+DROP INDEX IDX_QRTZ_T_N_G_STATE,
+DROP INDEX IDX_QRTZ_T_NEXT_FIRE_TIME,
+DROP INDEX IDX_QRTZ_T_NFT_ST,
+DROP INDEX IDX_QRTZ_T_NFT_MISFIRE,
+DROP INDEX IDX_QRTZ_T_NFT_ST_MISFIRE,
+DROP INDEX IDX_QRTZ_T_NFT_ST_MISFIRE_GRP,
+ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE QRTZ_FIRED_TRIGGERS
+DROP INDEX IDX_QRTZ_FT_TRIG_INST_NAME,
+DROP INDEX IDX_QRTZ_FT_JG,
+DROP INDEX IDX_QRTZ_FT_TG,
+ALGORITHM=INPLACE, LOCK=NONE;
+
+CREATE TABLE IF NOT EXISTS ONYX_PARTITION_LEASES (
+PARTITION_ID INTEGER NOT NULL,
+OWNER VARCHAR(200) NULL,
+EXPIRES_AT BIGINT(13) NOT NULL,
+PRIMARY KEY (PARTITION_ID),
+INDEX IDX_ONYX_PL_OWNER (OWNER))
+ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS ONYX_PARTITION_NODES (
+NODE_ID VARCHAR(200) NOT NULL,
+LAST_HEARTBEAT BIGINT(13) NOT NULL,
+PRIMARY KEY (NODE_ID))
+ENGINE=InnoDB;
+
+commit;
@@ -0,0 +1,16 @@
+# Adds the table where completed jobs are archived (when quartz.reaper.archive is enabled) to
+# databases created before it was added to schema.sql.
+
+CREATE TABLE IF NOT EXISTS ONYX_JOB_ARCHIVE (
+ID BIGINT NOT NULL AUTO_INCREMENT,
+SCHED_NAME VARCHAR(120) NOT NULL,
+JOB_NAME VARCHAR(200) NOT NULL,
+JOB_GROUP VARCHAR(200) NOT NULL,
+JOB_CLASS_NAME VARCHAR(250) NOT NULL,
+JOB_DATA BLOB NULL,
+ARCHIVED_AT BIGINT(13) NOT NULL,
+PRIMARY KEY (ID),
+INDEX IDX_ONYX_JA_J (JOB_GROUP,JOB_NAME))
+ENGINE=InnoDB;
+
+commit;
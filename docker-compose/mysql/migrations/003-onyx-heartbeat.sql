@@ -0,0 +1,10 @@
+# Adds the table used to measure read replicas lag (when quartz.jobstore.replica.url is set) to
+# databases created before it was added to schema.sql.
+
+CREATE TABLE IF NOT EXISTS ONYX_HEARTBEAT (
+ID INTEGER NOT NULL,
+BEAT_TIME BIGINT(13) NOT NULL,
+PRIMARY KEY (ID))
+ENGINE=InnoDB;
+
+commit;
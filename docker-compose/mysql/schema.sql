@@ -143,27 +143,69 @@ LOCK_NAME VARCHAR(40) NOT NULL,
 PRIMARY KEY (SCHED_NAME,LOCK_NAME))
 ENGINE=InnoDB;
 
+# Indexes are tuned for the queries onyx actually runs, instead of quartz stock ones (see
+# migrations/001-onyx-indexes.sql to migrate databases created with them).
+#
+# Trigger acquisition (by state and fire time, excluding misfired triggers by misfire instruction
+# and ordering by priority) and misfire scans (by state, fire time and misfire instruction) are
+# served by IDX_ONYX_T_ACQUIRE, which covers both queries so they don't need to read the table rows.
+# Stock indexes which are prefixes of it, or which serve features onyx doesn't use (calendars and
+# pausing or listing triggers by group) are not created, since every trigger fire changes the
+# trigger state and so updates every index including it.
+#
+# IDX_QRTZ_J_GRP serves job keys listing by group: InnoDB appends primary key columns to secondary
+# indexes, so it's ordered by group and name and covers the listing query.
+
 CREATE INDEX IDX_QRTZ_J_REQ_RECOVERY ON QRTZ_JOB_DETAILS(SCHED_NAME,REQUESTS_RECOVERY);
 CREATE INDEX IDX_QRTZ_J_GRP ON QRTZ_JOB_DETAILS(SCHED_NAME,JOB_GROUP);
 
 CREATE INDEX IDX_QRTZ_T_J ON QRTZ_TRIGGERS(SCHED_NAME,JOB_NAME,JOB_GROUP);
-CREATE INDEX IDX_QRTZ_T_JG ON QRTZ_TRIGGERS(SCHED_NAME,JOB_GROUP);
-CREATE INDEX IDX_QRTZ_T_C ON QRTZ_TRIGGERS(SCHED_NAME,CALENDAR_NAME);
-CREATE INDEX IDX_QRTZ_T_G ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_GROUP);
-CREATE INDEX IDX_QRTZ_T_STATE ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_STATE);
-CREATE INDEX IDX_QRTZ_T_N_STATE ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP,TRIGGER_STATE);
-CREATE INDEX IDX_QRTZ_T_N_G_STATE ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_GROUP,TRIGGER_STATE);
-CREATE INDEX IDX_QRTZ_T_NEXT_FIRE_TIME ON QRTZ_TRIGGERS(SCHED_NAME,NEXT_FIRE_TIME);
-CREATE INDEX IDX_QRTZ_T_NFT_ST ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_STATE,NEXT_FIRE_TIME);
-CREATE INDEX IDX_QRTZ_T_NFT_MISFIRE ON QRTZ_TRIGGERS(SCHED_NAME,MISFIRE_INSTR,NEXT_FIRE_TIME);
-CREATE INDEX IDX_QRTZ_T_NFT_ST_MISFIRE ON QRTZ_TRIGGERS(SCHED_NAME,MISFIRE_INSTR,NEXT_FIRE_TIME,TRIGGER_STATE);
-CREATE INDEX IDX_QRTZ_T_NFT_ST_MISFIRE_GRP ON QRTZ_TRIGGERS(SCHED_NAME,MISFIRE_INSTR,NEXT_FIRE_TIME,TRIGGER_GROUP,TRIGGER_STATE);
-
-CREATE INDEX IDX_QRTZ_FT_TRIG_INST_NAME ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,INSTANCE_NAME);
+CREATE INDEX IDX_ONYX_T_ACQUIRE ON QRTZ_TRIGGERS(SCHED_NAME,TRIGGER_STATE,NEXT_FIRE_TIME,MISFIRE_INSTR,PRIORITY);
+
 CREATE INDEX IDX_QRTZ_FT_INST_JOB_REQ_RCVRY ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,INSTANCE_NAME,REQUESTS_RECOVERY);
 CREATE INDEX IDX_QRTZ_FT_J_G ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,JOB_NAME,JOB_GROUP);
-CREATE INDEX IDX_QRTZ_FT_JG ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,JOB_GROUP);
 CREATE INDEX IDX_QRTZ_FT_T_G ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,TRIGGER_NAME,TRIGGER_GROUP);
-CREATE INDEX IDX_QRTZ_FT_TG ON QRTZ_FIRED_TRIGGERS(SCHED_NAME,TRIGGER_GROUP);
+
+# onyx tables used by partitioned-jobstore profile to distribute partitions among nodes
+
+CREATE TABLE ONYX_PARTITION_LEASES (
+PARTITION_ID INTEGER NOT NULL,
+OWNER VARCHAR(200) NULL,
+EXPIRES_AT BIGINT(13) NOT NULL,
+PRIMARY KEY (PARTITION_ID))
+ENGINE=InnoDB;
+
+CREATE TABLE ONYX_PARTITION_NODES (
+NODE_ID VARCHAR(200) NOT NULL,
+LAST_HEARTBEAT BIGINT(13) NOT NULL,
+PRIMARY KEY (NODE_ID))
+ENGINE=InnoDB;
+
+CREATE INDEX IDX_ONYX_PL_OWNER ON ONYX_PARTITION_LEASES(OWNER);
+
+# onyx table where completed jobs are copied before being removed, when quartz.reaper.archive is
+# enabled. Rows are never removed by onyx.
+
+CREATE TABLE ONYX_JOB_ARCHIVE (
+ID BIGINT NOT NULL AUTO_INCREMENT,
+SCHED_NAME VARCHAR(120) NOT NULL,
+JOB_NAME VARCHAR(200) NOT NULL,
+JOB_GROUP VARCHAR(200) NOT NULL,
+JOB_CLASS_NAME VARCHAR(250) NOT NULL,
+JOB_DATA BLOB NULL,
+ARCHIVED_AT BIGINT(13) NOT NULL,
+PRIMARY KEY (ID))
+ENGINE=InnoDB;
+
+CREATE INDEX IDX_ONYX_JA_J ON ONYX_JOB_ARCHIVE(JOB_GROUP,JOB_NAME);
+
+# onyx table periodically written by onyx nodes and read from read replicas (when
+# quartz.jobstore.replica.url is set) to measure replication lag
+
+CREATE TABLE ONYX_HEARTBEAT (
+ID INTEGER NOT NULL,
+BEAT_TIME BIGINT(13) NOT NULL,
+PRIMARY KEY (ID))
+ENGINE=InnoDB;
 
 commit; 
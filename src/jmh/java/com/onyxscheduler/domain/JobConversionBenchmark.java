@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDetail;
+import org.springframework.http.HttpMethod;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conversions between http jobs and quartz job details done on every job scheduling and
+ * read. <p/> buildDataMap and initFromDataMap measure the legacy format with an entry per field,
+ * to compare it with the encoded data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobConversionBenchmark {
+
+  private HttpJob job;
+  private Map<String, Object> dataMap;
+  private String encodedData;
+  private Set<org.quartz.Trigger> quartzTriggers;
+
+  @Setup
+  public void setup() throws MalformedURLException {
+    job = buildHttpJob();
+    dataMap = job.buildDataMap();
+    encodedData = (String) job.buildQuartzJobDetail().getJobDataMap().get(Job.DATA_DATAMAP_KEY);
+    quartzTriggers = job.buildQuartzTriggers();
+  }
+
+  static HttpJob buildHttpJob() throws MalformedURLException {
+    HttpJob job = new HttpJob();
+    job.setGroup("benchmark");
+    job.setName("job");
+    job.setUrl(new URL("http://localhost:8080/callback?param=value"));
+    job.setMethod(HttpMethod.POST);
+    job.setBody("{\"field\":\"value\"}");
+    job.setHeaders(ImmutableMap.of("Content-Type", "application/json", "X-Tenant", "benchmark"));
+    job.setTriggers(ImmutableSet.of(Trigger.fromCronExpression("0/2 * * * * ?"),
+                                    Trigger.fromFixedTime(Instant.parse("2030-01-01T00:00:00Z"))));
+    return job;
+  }
+
+  @Benchmark
+  public JobDetail buildQuartzJobDetail() {
+    return job.buildQuartzJobDetail();
+  }
+
+  @Benchmark
+  public Map<String, Object> buildDataMap() {
+    return job.buildDataMap();
+  }
+
+  @Benchmark
+  public HttpJob initFromDataMap() {
+    HttpJob restoredJob = new HttpJob();
+    restoredJob.initFromDataMap(dataMap);
+    return restoredJob;
+  }
+
+  @Benchmark
+  public HttpJob setData() {
+    HttpJob restoredJob = new HttpJob();
+    restoredJob.setData(encodedData);
+    return restoredJob;
+  }
+
+  /* fromQuartzJobDetailAndTriggers consumes the id from the job detail data map, so each
+  invocation needs its own job detail */
+  @Benchmark
+  public Job quartzJobDetailRoundTrip() {
+    return Job.fromQuartzJobDetailAndTriggers(job.buildQuartzJobDetail(), quartzTriggers);
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.CronExpression;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures conversions between onyx triggers and quartz triggers, and cron expressions parsing
+ * (done by every cron trigger conversion).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriggerConversionBenchmark {
+
+  private static final String CRON = "0 0/15 8-18 ? * MON-FRI";
+
+  private Trigger cronTrigger;
+  private Trigger fixedTimeTrigger;
+  private org.quartz.Trigger quartzCronTrigger;
+  private org.quartz.Trigger quartzFixedTimeTrigger;
+
+  @Setup
+  public void setup() {
+    cronTrigger = Trigger.fromCronExpression(CRON);
+    fixedTimeTrigger = Trigger.fromFixedTime(Instant.parse("2030-01-01T00:00:00Z"));
+    quartzCronTrigger = cronTrigger.buildQuartzTrigger();
+    quartzFixedTimeTrigger = fixedTimeTrigger.buildQuartzTrigger();
+  }
+
+  @Benchmark
+  public org.quartz.Trigger buildQuartzCronTrigger() {
+    return cronTrigger.buildQuartzTrigger();
+  }
+
+  @Benchmark
+  public org.quartz.Trigger buildQuartzFixedTimeTrigger() {
+    return fixedTimeTrigger.buildQuartzTrigger();
+  }
+
+  @Benchmark
+  public Trigger fromQuartzCronTrigger() {
+    return Trigger.fromQuartzTrigger(quartzCronTrigger);
+  }
+
+  @Benchmark
+  public Trigger fromQuartzFixedTimeTrigger() {
+    return Trigger.fromQuartzTrigger(quartzFixedTimeTrigger);
+  }
+
+  @Benchmark
+  public CronExpression parseCronExpression() throws ParseException {
+    return new CronExpression(CRON);
+  }
+
+}
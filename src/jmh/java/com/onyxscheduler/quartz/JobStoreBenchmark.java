@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares TimingWheelJobStore with quartz RAMJobStore when lots of one shot triggers are
+ * pending, measuring a job scheduled, acquired, fired and completed; and a job scheduled in the
+ * future and then deleted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JobStoreBenchmark {
+
+  private static final long PENDING_TRIGGERS_SPAN_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  @Param({"ram", "timingWheel"})
+  private String jobStoreType;
+
+  @Param({"10000", "1000000"})
+  private int pendingTriggers;
+
+  private JobStore jobStore;
+  private long sequence;
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+    }
+
+  }
+
+  private static class NoOpSchedulerSignaler implements SchedulerSignaler {
+
+    @Override
+    public void notifyTriggerListenersMisfired(Trigger trigger) {
+    }
+
+    @Override
+    public void notifySchedulerListenersFinalized(Trigger trigger) {
+    }
+
+    @Override
+    public void notifySchedulerListenersJobDeleted(JobKey jobKey) {
+    }
+
+    @Override
+    public void signalSchedulingChange(long candidateNewNextFireTime) {
+    }
+
+    @Override
+    public void notifySchedulerListenersError(String string, SchedulerException jpe) {
+    }
+
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    jobStore = "ram".equals(jobStoreType) ? new RAMJobStore() : new TimingWheelJobStore();
+    jobStore.initialize(null, new NoOpSchedulerSignaler());
+    Random random = new Random(0);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < pendingTriggers; i++) {
+      long fireTime = now + TimeUnit.MINUTES.toMillis(1)
+                      + (long) (random.nextDouble() * PENDING_TRIGGERS_SPAN_MILLIS);
+      storeJob("pending" + i, fireTime);
+    }
+  }
+
+  private JobDetail storeJob(String name, long fireTime) throws JobPersistenceException {
+    JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity(name).build();
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity(name)
+        .forJob(job)
+        .startAt(new Date(fireTime))
+        .build();
+    trigger.computeFirstFireTime(null);
+    jobStore.storeJobAndTrigger(job, trigger);
+    return job;
+  }
+
+  @Benchmark
+  public List<TriggerFiredResult> scheduleAndFire() throws JobPersistenceException {
+    long now = System.currentTimeMillis();
+    JobDetail job = storeJob("fired" + sequence++, now);
+    List<OperableTrigger> acquired = jobStore.acquireNextTriggers(now, 1, 0);
+    List<TriggerFiredResult> fired = jobStore.triggersFired(acquired);
+    for (OperableTrigger trigger : acquired) {
+      jobStore.triggeredJobComplete(trigger, job,
+                                    Trigger.CompletedExecutionInstruction.DELETE_TRIGGER);
+    }
+    return fired;
+  }
+
+  @Benchmark
+  public boolean scheduleAndDelete() throws JobPersistenceException {
+    long fireTime = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+    JobDetail job = storeJob("deleted" + sequence++, fireTime);
+    return jobStore.removeJob(job.getKey());
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.Trigger;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.quartz.impl.jdbcjobstore.StdJDBCConstants;
+import org.quartz.impl.jdbcjobstore.Util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures quartz jdbc job store trigger acquisition and misfire scan queries (the same SQL quartz
+ * runs) against a MySQL database with millions of pending triggers, to compare schemas and indexes.
+ * <p/> It uses the database configured through ONYX_BENCHMARK_DB_URL, ONYX_BENCHMARK_DB_USER and
+ * ONYX_BENCHMARK_DB_PASSWORD environment variables (by default the one started by
+ * docker-compose-mysql.yml), which must have quartz tables. <p/> Triggers of each size are stored
+ * under their own scheduler name and reused between runs, so only the first run populates them
+ * (which takes a while for the biggest sizes). Triggers are spread over 30 days of fire times
+ * starting one hour before the measured time, so there is always a backlog of misfired triggers
+ * and a few due triggers to acquire, with fire times fixed so results are repeatable. Jobs are not
+ * stored, since these queries don't read them. <p/> It's excluded from benchmarks run by default,
+ * since it requires a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MysqlAcquisitionBenchmark {
+
+  private static final long NOW = Instant.parse("2030-01-01T00:00:00Z").toEpochMilli();
+  private static final long BACKLOG_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final long TRIGGERS_SPAN_MILLIS = TimeUnit.DAYS.toMillis(30);
+  //quartz defaults for misfire threshold and misfired triggers recovered in each misfire scan
+  private static final long MISFIRE_THRESHOLD_MILLIS = 60000;
+  private static final int MAX_MISFIRES_AT_A_TIME = 20;
+  //default threadCount in application.yml, which is also the acquisition batch size
+  private static final int MAX_ACQUIRED_TRIGGERS = 15;
+  private static final int INSERT_BATCH_SIZE = 10000;
+  private static final int GROUPS = 1000;
+
+  @Param({"1000000", "10000000", "50000000"})
+  private int triggers;
+
+  private Connection connection;
+  private PreparedStatement acquireStatement;
+  private PreparedStatement misfiredStatement;
+  private PreparedStatement countMisfiredStatement;
+  private final Random random = new Random(0);
+
+  @Setup
+  public void setup() throws SQLException {
+    connection = DriverManager.getConnection(
+        getEnv("ONYX_BENCHMARK_DB_URL",
+               "jdbc:mysql://localhost/onyx?rewriteBatchedStatements=true"),
+        getEnv("ONYX_BENCHMARK_DB_USER", "onyx"),
+        getEnv("ONYX_BENCHMARK_DB_PASSWORD", "onyx"));
+    String schedulerName = "benchmark-" + triggers;
+    if (countTriggers(schedulerName) != triggers) {
+      populateTriggers(schedulerName);
+    }
+    String schedulerNameLiteral = "'" + schedulerName + "'";
+    acquireStatement = prepareStatement(StdJDBCConstants.SELECT_NEXT_TRIGGER_TO_ACQUIRE,
+                                        schedulerNameLiteral);
+    acquireStatement.setMaxRows(MAX_ACQUIRED_TRIGGERS);
+    misfiredStatement = prepareStatement(StdJDBCConstants.SELECT_HAS_MISFIRED_TRIGGERS_IN_STATE,
+                                         schedulerNameLiteral);
+    misfiredStatement.setMaxRows(MAX_MISFIRES_AT_A_TIME + 1);
+    countMisfiredStatement = prepareStatement(StdJDBCConstants.COUNT_MISFIRED_TRIGGERS_IN_STATE,
+                                              schedulerNameLiteral);
+  }
+
+  private static String getEnv(String name, String defaultValue) {
+    return Optional.ofNullable(System.getenv(name)).orElse(defaultValue);
+  }
+
+  private PreparedStatement prepareStatement(String query, String schedulerNameLiteral)
+      throws SQLException {
+    return connection.prepareStatement(
+        Util.rtp(query, Constants.DEFAULT_TABLE_PREFIX, schedulerNameLiteral));
+  }
+
+  private int countTriggers(String schedulerName) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(
+        "SELECT COUNT(*) FROM " + Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_TRIGGERS
+        + " WHERE SCHED_NAME = ?")) {
+      statement.setString(1, schedulerName);
+      try (ResultSet rs = statement.executeQuery()) {
+        rs.next();
+        return rs.getInt(1);
+      }
+    }
+  }
+
+  private void populateTriggers(String schedulerName) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      //triggers reference jobs which are not stored
+      statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+      statement.executeUpdate("DELETE FROM " + Constants.DEFAULT_TABLE_PREFIX
+                              + Constants.TABLE_TRIGGERS + " WHERE SCHED_NAME = '"
+                              + schedulerName + "'");
+    }
+    connection.setAutoCommit(false);
+    try (PreparedStatement statement = connection.prepareStatement(
+        "INSERT INTO " + Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_TRIGGERS
+        + " (SCHED_NAME, TRIGGER_NAME, TRIGGER_GROUP, JOB_NAME, JOB_GROUP, NEXT_FIRE_TIME,"
+        + " PREV_FIRE_TIME, PRIORITY, TRIGGER_STATE, TRIGGER_TYPE, START_TIME, END_TIME,"
+        + " MISFIRE_INSTR) VALUES (?, ?, ?, ?, ?, ?, -1, ?, ?, ?, ?, 0, ?)")) {
+      long firstFireTime = NOW - BACKLOG_MILLIS;
+      for (int i = 0; i < triggers; i++) {
+        String name = "job" + i;
+        String group = "group" + i % GROUPS;
+        long fireTime = firstFireTime + TRIGGERS_SPAN_MILLIS * i / triggers;
+        statement.setString(1, schedulerName);
+        statement.setString(2, name);
+        statement.setString(3, group);
+        statement.setString(4, name);
+        statement.setString(5, group);
+        statement.setLong(6, fireTime);
+        statement.setInt(7, Trigger.DEFAULT_PRIORITY);
+        statement.setString(8, Constants.STATE_WAITING);
+        statement.setString(9, Constants.TTYPE_SIMPLE);
+        statement.setLong(10, fireTime);
+        statement.setInt(11, Trigger.MISFIRE_INSTRUCTION_SMART_POLICY);
+        statement.addBatch();
+        if ((i + 1) % INSERT_BATCH_SIZE == 0 || i == triggers - 1) {
+          statement.executeBatch();
+          connection.commit();
+        }
+      }
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  //as quartz does, acquiring triggers due up to now which haven't misfired
+  @Benchmark
+  public int acquireNextTriggers() throws SQLException {
+    long now = NOW + random.nextInt((int) MISFIRE_THRESHOLD_MILLIS);
+    acquireStatement.setString(1, Constants.STATE_WAITING);
+    acquireStatement.setLong(2, now);
+    acquireStatement.setLong(3, now - MISFIRE_THRESHOLD_MILLIS);
+    return countRows(acquireStatement);
+  }
+
+  private static int countRows(PreparedStatement statement) throws SQLException {
+    int rows = 0;
+    try (ResultSet rs = statement.executeQuery()) {
+      while (rs.next()) {
+        rows++;
+      }
+    }
+    return rows;
+  }
+
+  /* as quartz misfire handler does on each scan, counting misfired triggers and then getting the
+  first ones to recover */
+  @Benchmark
+  public int scanMisfiredTriggers() throws SQLException {
+    long misfireTime = NOW + random.nextInt((int) MISFIRE_THRESHOLD_MILLIS)
+                       - MISFIRE_THRESHOLD_MILLIS;
+    countMisfiredStatement.setLong(1, misfireTime);
+    countMisfiredStatement.setString(2, Constants.STATE_WAITING);
+    int misfired;
+    try (ResultSet rs = countMisfiredStatement.executeQuery()) {
+      rs.next();
+      misfired = rs.getInt(1);
+    }
+    misfiredStatement.setLong(1, misfireTime);
+    misfiredStatement.setString(2, Constants.STATE_WAITING);
+    return misfired + countRows(misfiredStatement);
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading JournalingJobStore snapshots of jobs with one shot triggers, compared to
+ * reading the same data as java serialized journal records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+  @Param({"100000"})
+  private int jobs;
+
+  private Path snapshot;
+  private List<byte[]> serializedRecords;
+
+  @Setup
+  public void setup() throws IOException {
+    List<JournalRecord> records = new ArrayList<>();
+    long fireTime = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+    for (int i = 0; i < jobs; i++) {
+      JobDetail job = JobBuilder.newJob(JobStoreBenchmark.NoOpJob.class)
+          .withIdentity("job" + i, "benchmark")
+          .usingJobData("url", "http://localhost:8080/callback/" + i)
+          .build();
+      OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+          .withIdentity("job" + i, "benchmark")
+          .forJob(job)
+          .startAt(new Date(fireTime + i))
+          .build();
+      trigger.computeFirstFireTime(null);
+      records.add(JournalRecord.storeJob(job));
+      records.add(JournalRecord.storeTrigger(trigger, Trigger.TriggerState.NORMAL));
+    }
+    snapshot = Files.createTempFile("onyx-snapshot", ".bin");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(snapshot)))) {
+      SnapshotCodec.write(out, records);
+    }
+    serializedRecords = new ArrayList<>();
+    for (JournalRecord record : records) {
+      serializedRecords.add(record.toBytes());
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(snapshot);
+  }
+
+  @Benchmark
+  public List<JournalRecord> readSnapshot() throws Exception {
+    List<JournalRecord> records = new ArrayList<>(jobs * 2);
+    try (MappedFileInput in = new MappedFileInput(snapshot)) {
+      new SnapshotCodec(getClass().getClassLoader()).read(in, records::add);
+    }
+    return records;
+  }
+
+  @Benchmark
+  public List<JournalRecord> readSerializedRecords() throws Exception {
+    List<JournalRecord> records = new ArrayList<>(jobs * 2);
+    for (byte[] record : serializedRecords) {
+      records.add(JournalRecord.fromBytes(record, getClass().getClassLoader()));
+    }
+    return records;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Invokes a call on several targets (like the schedulers of each partition) in parallel, so the
+ * overall latency is the one of the slowest target instead of the sum of all of them. <p/> Calls
+ * on a single target are just invoked in the caller thread. Threads are created on demand and
+ * discarded when idle, since fan outs are sporadic (listings, etc).
+ */
+public class FanOutExecutor {
+
+  public interface Call<T, R> {
+
+    R call(T target) throws Exception;
+
+  }
+
+  private final ExecutorService executor = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder()
+          .setNameFormat("fan-out-%d")
+          .setDaemon(true)
+          .build());
+
+  /**
+   * @return the results of the call on each target, in the same order as the targets.
+   */
+  public <T, R> List<R> invokeAll(List<T> targets, Call<T, R> call) {
+    try {
+      if (targets.size() == 1) {
+        List<R> results = new ArrayList<>(1);
+        results.add(call.call(targets.get(0)));
+        return results;
+      }
+      List<Future<R>> futures = new ArrayList<>(targets.size());
+      for (T target : targets) {
+        futures.add(executor.submit(() -> call.call(target)));
+      }
+      List<R> results = new ArrayList<>(targets.size());
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+}
@@ -20,9 +20,22 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.onyxscheduler.http.CircuitBreakers;
+import com.onyxscheduler.http.FiringThrottle;
+import com.onyxscheduler.http.HostBulkheads;
+import com.onyxscheduler.http.RequestCoalescer;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+import org.quartz.TriggerBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,20 +43,37 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
 /**
  * Job which executes http requests logging their response when they are done. <p/> Currently no
- * HTTP headers are supported. And by default the POST method is used if not specified.
+ * HTTP headers are supported. And by default the POST method is used if not specified. <p/> Each
+ * execution goes through the optional stages available: firing throttle (see FiringThrottle),
+ * request coalescing (see RequestCoalescer), host bulkhead (see HostBulkheads) and circuit breaker
+ * (see CircuitBreakers), before the request is sent (through AsyncRestTemplate when available).
+ * Executions rejected by a stage are deferred, and failed requests retried as defined by their
+ * retry policy, through internal one shot triggers.
  */
 
 public class HttpJob extends Job {
@@ -53,18 +83,45 @@ public class HttpJob extends Job {
   public static final String METHOD_DATAMAP_KEY = "method";
   public static final String BODY_DATAMAP_KEY = "body";
   public static final String HEADERS_JSON_DATAMAP_KEY = "headersJson";
+  static final String ATTEMPT_DATAMAP_KEY = "attempt";
+  static final String SLOT_RESERVED_DATAMAP_KEY = "slotReserved";
+  static final long PENDING_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
   @NotNull
   private URL url;
   private HttpMethod method = HttpMethod.POST;
   private String body;
   private Map<String, String> headers = Collections.emptyMap();
+  @Valid
+  private RetryPolicy retryPolicy;
 
   @SuppressWarnings("SpringJavaAutowiredMembersInspection")
   @Autowired
   private RestTemplate restTemplate;
 
-  private ObjectMapper jsonMapper = new ObjectMapper();
+  @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+  @Autowired(required = false)
+  private AsyncRestTemplate asyncRestTemplate;
+
+  @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+  @Autowired(required = false)
+  private HostBulkheads hostBulkheads;
+
+  @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+  @Autowired(required = false)
+  private CircuitBreakers circuitBreakers;
+
+  @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+  @Autowired(required = false)
+  private RequestCoalescer requestCoalescer;
+
+  @SuppressWarnings("SpringJavaAutowiredMembersInspection")
+  @Autowired(required = false)
+  private FiringThrottle firingThrottle;
+
+  //shared since building an ObjectMapper per job was a significant part of restoring each job
+  private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+  private static final HttpJobDataCodec DATA_CODEC = new HttpJobDataCodec();
 
   @SuppressWarnings("UnusedDeclaration")
   public URL getUrl() {
@@ -102,12 +159,21 @@ public class HttpJob extends Job {
     this.headers = headers;
   }
 
+  @SuppressWarnings("UnusedDeclaration")
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
   //this method is used by spring to automatically populate it when building the job from jobDetail
   @SuppressWarnings("unchecked")
   @JsonIgnore
   public void setHeadersJson(String json) {
     try {
-      headers = jsonMapper.readValue(json, Map.class);
+      headers = JSON_MAPPER.readValue(json, Map.class);
     } catch (IOException e) {
       //This exception should never happen so just propagating it for the unexpected problem
       throw Throwables.propagate(e);
@@ -118,6 +184,31 @@ public class HttpJob extends Job {
     this.restTemplate = restTemplate;
   }
 
+  public void setAsyncRestTemplate(AsyncRestTemplate asyncRestTemplate) {
+    this.asyncRestTemplate = asyncRestTemplate;
+  }
+
+  public void setHostBulkheads(HostBulkheads hostBulkheads) {
+    this.hostBulkheads = hostBulkheads;
+  }
+
+  public void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+    this.circuitBreakers = circuitBreakers;
+  }
+
+  public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+    this.requestCoalescer = requestCoalescer;
+  }
+
+  public void setFiringThrottle(FiringThrottle firingThrottle) {
+    this.firingThrottle = firingThrottle;
+  }
+
+  @Override
+  protected Optional<JobDataCodec<? extends Job>> getDataCodec() {
+    return Optional.of(DATA_CODEC);
+  }
+
   @Override
   protected Map<String, Object> buildDataMap() {
     ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder()
@@ -127,7 +218,7 @@ public class HttpJob extends Job {
       builder.put(BODY_DATAMAP_KEY, body);
     }
     try {
-      builder.put(HEADERS_JSON_DATAMAP_KEY, jsonMapper.writeValueAsString(headers));
+      builder.put(HEADERS_JSON_DATAMAP_KEY, JSON_MAPPER.writeValueAsString(headers));
     } catch (JsonProcessingException e) {
       //This exception should never happen so just propagating it for the unexpected problem
       throw Throwables.propagate(e);
@@ -147,21 +238,365 @@ public class HttpJob extends Job {
     setHeadersJson((String) dataMap.get(HEADERS_JSON_DATAMAP_KEY));
   }
 
+  /* when the callback host is saturated the execution is deferred, instead of waiting for it and
+  holding a worker thread other jobs could use. Likewise failed executions are retried (as
+  defined by the retry policy) through new triggers instead of sleeping until the next attempt */
+  @Override
+  public void execute(JobExecutionContext context) throws JobExecutionException {
+    int attempt = getAttempt(context);
+    if (firingThrottle != null && !throttle(context, attempt)) {
+      return;
+    }
+    Optional<org.quartz.TriggerKey> pendingRetry = holdForRetry(context, attempt);
+    if (requestCoalescer == null) {
+      sendGuarded(context, attempt, Optional.empty(), pendingRetry);
+      return;
+    }
+    RequestCoalescer.CoalescedRequest<ResponseEntity<String>> request =
+        requestCoalescer.register(buildRequestKey());
+    if (request.isLeader()) {
+      sendGuarded(context, attempt, Optional.of(request), pendingRetry);
+    } else {
+      follow(context, attempt, request.getResult(), pendingRetry);
+    }
+  }
+
+  /* in async mode the outcome is handled once the firing trigger completed, and by then quartz may
+  have deleted the job, since non durable jobs are deleted once their last trigger completes. So
+  when the execution may be retried, a trigger for the next attempt is scheduled beforehand, holding
+  the job until the outcome is known: it is then moved to the time of the retry (or deferral), or
+  unscheduled when there is none. A job deleted meanwhile takes this trigger with it, and so is
+  neither retried nor stored again, and if the node stops before the outcome is known the trigger
+  fires the retry later on */
+  private Optional<org.quartz.TriggerKey> holdForRetry(JobExecutionContext context, int attempt)
+      throws JobExecutionException {
+    if (asyncRestTemplate == null || retryPolicy == null
+        || attempt >= retryPolicy.getMaxAttempts()) {
+      return Optional.empty();
+    }
+    org.quartz.Trigger pendingRetryTrigger =
+        buildDeferredTrigger(context, attempt + 1, PENDING_RETRY_MILLIS, false);
+    try {
+      context.getScheduler().scheduleJob(pendingRetryTrigger);
+    } catch (SchedulerException e) {
+      throw new JobExecutionException(e);
+    }
+    return Optional.of(pendingRetryTrigger.getKey());
+  }
+
+  private void release(JobExecutionContext context,
+                       Optional<org.quartz.TriggerKey> pendingRetry) {
+    if (!pendingRetry.isPresent()) {
+      return;
+    }
+    try {
+      context.getScheduler().unscheduleJob(pendingRetry.get());
+    } catch (SchedulerException e) {
+      LOG.error("Problem unscheduling pending retry of {}", this, e);
+    }
+  }
+
+  /* the request is only sent once the bulkhead of its host and the circuit breaker of its endpoint
+  let it through, and then its outcome is reported to them and shared with the requests coalesced
+  into it (if any). When it is not sent the coalesced request is abandoned, so the ones following it
+  go through the bulkhead and circuit breaker on their own */
+  private void sendGuarded(JobExecutionContext context, int attempt,
+                           Optional<RequestCoalescer.CoalescedRequest<ResponseEntity<String>>>
+                               coalescedRequest,
+                           Optional<org.quartz.TriggerKey> pendingRetry)
+      throws JobExecutionException {
+    Consumer<Optional<Throwable>> onCompletion = failure -> {};
+    if (hostBulkheads != null) {
+      String host = url.getHost();
+      if (!hostBulkheads.tryAcquire(host)) {
+        coalescedRequest.ifPresent(RequestCoalescer.CoalescedRequest::abandon);
+        long deferMillis = hostBulkheads.getDeferMillis();
+        if (deferExecution(context, attempt, deferMillis, pendingRetry)) {
+          LOG.warn("Deferred {} by {} ms since {} is saturated", this, deferMillis, host);
+        }
+        return;
+      }
+      onCompletion = failure -> hostBulkheads.release(host);
+    }
+    if (circuitBreakers != null) {
+      CircuitBreakers.CircuitBreaker circuitBreaker = circuitBreakers.getCircuitBreaker(url);
+      if (!circuitBreaker.tryAcquire()) {
+        onCompletion.accept(Optional.empty());
+        coalescedRequest.ifPresent(RequestCoalescer.CoalescedRequest::abandon);
+        rejectByOpenCircuit(context, attempt, circuitBreaker, pendingRetry);
+        return;
+      }
+      onCompletion = onCompletion.andThen(failure -> {
+        if (failure.isPresent() && CircuitBreakers.isFailure(failure.get())) {
+          circuitBreaker.onFailure();
+        } else {
+          circuitBreaker.onSuccess();
+        }
+      });
+    }
+    Consumer<Optional<Throwable>> onRequestCompletion = onCompletion;
+    ListenableFutureCallback<ResponseEntity<String>> outcomeCallback =
+        buildOutcomeCallback(context, attempt, pendingRetry);
+    send(new ListenableFutureCallback<ResponseEntity<String>>() {
+
+      @Override
+      public void onSuccess(ResponseEntity<String> response) {
+        onRequestCompletion.accept(Optional.empty());
+        coalescedRequest.ifPresent(request -> request.complete(response));
+        outcomeCallback.onSuccess(response);
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        onRequestCompletion.accept(Optional.of(failure));
+        coalescedRequest.ifPresent(request -> request.fail(failure));
+        outcomeCallback.onFailure(failure);
+      }
+
+    });
+  }
+
+  /* coalesced requests share the outcome of the leader one, without waiting for it in async mode,
+  and are sent on their own if the leader one was not sent */
+  private void follow(JobExecutionContext context, int attempt,
+                      ListenableFuture<ResponseEntity<String>> result,
+                      Optional<org.quartz.TriggerKey> pendingRetry)
+      throws JobExecutionException {
+    ListenableFutureCallback<ResponseEntity<String>> outcomeCallback =
+        buildOutcomeCallback(context, attempt, pendingRetry);
+    if (asyncRestTemplate != null) {
+      result.addCallback(outcomeCallback::onSuccess, failure -> {
+        if (failure instanceof RequestCoalescer.AbandonedRequestException) {
+          try {
+            sendGuarded(context, attempt, Optional.empty(), pendingRetry);
+          } catch (JobExecutionException e) {
+            LOG.error("Problem executing {}", this, e);
+          }
+        } else {
+          outcomeCallback.onFailure(failure);
+        }
+      });
+      return;
+    }
+    ResponseEntity<String> response;
+    try {
+      response = result.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RequestCoalescer.AbandonedRequestException) {
+        sendGuarded(context, attempt, Optional.empty(), pendingRetry);
+      } else {
+        outcomeCallback.onFailure(e.getCause());
+      }
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new JobExecutionException(e);
+    }
+    outcomeCallback.onSuccess(response);
+  }
+
+  /* responses are logged, and failures are retried as defined by the retry policy. Failures which
+  are not retried are propagated in sync mode, and logged in async mode since there is no one to
+  propagate them to */
+  private ListenableFutureCallback<ResponseEntity<String>> buildOutcomeCallback(
+      JobExecutionContext context, int attempt, Optional<org.quartz.TriggerKey> pendingRetry) {
+    return new ListenableFutureCallback<ResponseEntity<String>>() {
+
+      @Override
+      public void onSuccess(ResponseEntity<String> response) {
+        release(context, pendingRetry);
+        logResponse(response);
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        if (retry(context, attempt, failure, pendingRetry)) {
+          return;
+        }
+        release(context, pendingRetry);
+        if (asyncRestTemplate == null) {
+          throw Throwables.propagate(failure);
+        }
+        logFailure(failure);
+      }
+
+    };
+  }
+
+  /* firings exceeding the rate are deferred to the slot reserved for them, which is marked in the
+  deferred trigger so they don't reserve another one when fired */
+  private boolean throttle(JobExecutionContext context, int attempt) throws JobExecutionException {
+    if (context.getTrigger().getJobDataMap().containsKey(SLOT_RESERVED_DATAMAP_KEY)) {
+      return true;
+    }
+    long deferMillis = firingThrottle.reserve(context.getJobDetail().getKey().getGroup());
+    if (deferMillis > 0) {
+      deferExecution(context, attempt, deferMillis, true, Optional.empty());
+      LOG.warn("Deferred {} by {} ms since firing rate of its group is exceeded", this,
+               deferMillis);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean deferExecution(JobExecutionContext context, int attempt, long deferMillis,
+                                 Optional<org.quartz.TriggerKey> pendingRetry)
+      throws JobExecutionException {
+    return deferExecution(context, attempt, deferMillis, false, pendingRetry);
+  }
+
+  private boolean deferExecution(JobExecutionContext context, int attempt, long deferMillis,
+                                 boolean slotReserved,
+                                 Optional<org.quartz.TriggerKey> pendingRetry)
+      throws JobExecutionException {
+    try {
+      return defer(context, attempt, deferMillis, slotReserved, pendingRetry);
+    } catch (SchedulerException e) {
+      throw new JobExecutionException(e);
+    }
+  }
+
+  private void rejectByOpenCircuit(JobExecutionContext context, int attempt,
+                                   CircuitBreakers.CircuitBreaker circuitBreaker,
+                                   Optional<org.quartz.TriggerKey> pendingRetry)
+      throws JobExecutionException {
+    if (circuitBreakers.getOpenPolicy() == CircuitBreakers.OpenPolicy.SKIP) {
+      release(context, pendingRetry);
+      LOG.warn("Skipped {} since circuit of {} is open", this, url);
+      return;
+    }
+    long deferMillis = circuitBreaker.getDeferMillis();
+    if (deferExecution(context, attempt, deferMillis, pendingRetry)) {
+      LOG.warn("Deferred {} by {} ms since circuit of {} is open", this, deferMillis, url);
+    }
+  }
+
+  private static int getAttempt(JobExecutionContext context) {
+    JobDataMap triggerDataMap = context.getTrigger().getJobDataMap();
+    return triggerDataMap.containsKey(ATTEMPT_DATAMAP_KEY)
+        ? Integer.parseInt(triggerDataMap.getString(ATTEMPT_DATAMAP_KEY)) : 1;
+  }
+
+  /* the attempt number is kept in the trigger (as a string, since jdbc job stores are configured
+  to only store strings in data maps) */
+  private static org.quartz.Trigger buildDeferredTrigger(JobExecutionContext context, int attempt,
+                                                         long deferMillis, boolean slotReserved) {
+    TriggerBuilder<org.quartz.Trigger> builder = TriggerBuilder.newTrigger()
+        .withIdentity(UUID.randomUUID().toString(), DEFERRED_TRIGGER_GROUP)
+        .forJob(context.getJobDetail().getKey())
+        .usingJobData(ATTEMPT_DATAMAP_KEY, Integer.toString(attempt))
+        .startAt(new Date(System.currentTimeMillis() + deferMillis));
+    if (slotReserved) {
+      builder.usingJobData(SLOT_RESERVED_DATAMAP_KEY, Boolean.TRUE.toString());
+    }
+    return builder.build();
+  }
+
+  /* when holding the job for a retry, the pending retry trigger is replaced by the deferred one,
+  unless it is gone since the job was deleted meanwhile */
+  private boolean defer(JobExecutionContext context, int attempt, long deferMillis,
+                        boolean slotReserved, Optional<org.quartz.TriggerKey> pendingRetry)
+      throws SchedulerException {
+    org.quartz.Trigger deferredTrigger =
+        buildDeferredTrigger(context, attempt, deferMillis, slotReserved);
+    if (!pendingRetry.isPresent()) {
+      context.getScheduler().scheduleJob(deferredTrigger);
+      return true;
+    }
+    if (context.getScheduler().rescheduleJob(pendingRetry.get(), deferredTrigger) == null) {
+      LOG.info("Not deferring {} since it was deleted", this);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean retry(JobExecutionContext context, int attempt, Throwable failure,
+                        Optional<org.quartz.TriggerKey> pendingRetry) {
+    if (retryPolicy == null || !retryPolicy.shouldRetry(attempt, failure)) {
+      return false;
+    }
+    long backoffMillis = retryPolicy.computeBackoffMillis(attempt);
+    try {
+      if (!defer(context, attempt + 1, backoffMillis, false, pendingRetry)) {
+        return true;
+      }
+    } catch (SchedulerException e) {
+      LOG.error("Problem scheduling retry of {}", this, e);
+      return false;
+    }
+    LOG.warn("Retrying {} in {} ms since attempt {} failed: {}", this, backoffMillis, attempt,
+             failure.toString());
+    return true;
+  }
+
   @Override
   public void run() {
+    send(new ListenableFutureCallback<ResponseEntity<String>>() {
+
+      @Override
+      public void onSuccess(ResponseEntity<String> response) {
+        logResponse(response);
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        logFailure(failure);
+      }
+
+    });
+  }
+
+  /* the callback is run once the request completes, which in async mode happens in a thread of the
+  http client without the quartz worker thread waiting for it */
+  private void send(ListenableFutureCallback<ResponseEntity<String>> callback) {
     HttpHeaders httpHeaders = new HttpHeaders();
     headers.forEach(httpHeaders::add);
     HttpEntity<String> request = new HttpEntity<>(body, httpHeaders);
-    ResponseEntity<String> response =
-        restTemplate.exchange(url.toString(), method, request, String.class);
+    if (asyncRestTemplate != null) {
+      ListenableFuture<ResponseEntity<String>> response;
+      try {
+        response = asyncRestTemplate.exchange(url.toString(), method, request, String.class);
+      } catch (RuntimeException e) {
+        callback.onFailure(e);
+        return;
+      }
+      response.addCallback(callback);
+    } else {
+      ResponseEntity<String> response;
+      try {
+        response = restTemplate.exchange(url.toString(), method, request, String.class);
+      } catch (RuntimeException e) {
+        callback.onFailure(e);
+        return;
+      }
+      callback.onSuccess(response);
+    }
+  }
+
+  //identical requests (same url, method, body and headers) have equal keys
+  private Object buildRequestKey() {
+    return Arrays.asList(url.toString(), method, body, headers);
+  }
+
+  private void logResponse(ResponseEntity<String> response) {
     int code = response.getStatusCode().value();
     String responseBody = response.getBody();
     LOG.info("{}", new HttpAuditRecord(this, code, responseBody));
   }
 
+  private void logFailure(Throwable e) {
+    if (e instanceof HttpStatusCodeException) {
+      HttpStatusCodeException statusException = (HttpStatusCodeException) e;
+      LOG.warn("{}", new HttpAuditRecord(this, statusException.getStatusCode().value(),
+                                         statusException.getResponseBodyAsString()));
+    } else {
+      LOG.error("Problem executing request for {}", this, e);
+    }
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(id, group, name, triggers, url, method, body, headers);
+    return Objects.hash(id, group, name, triggers, url, method, body, headers, retryPolicy);
   }
 
   @Override
@@ -176,7 +611,8 @@ public class HttpJob extends Job {
     return Objects.equals(this.id, other.id) && Objects.equals(this.group, other.group)
            && Objects.equals(this.name, other.name) && Objects.equals(this.triggers, other.triggers)
            && Objects.equals(this.url, other.url) && Objects.equals(this.method, other.method)
-           && Objects.equals(this.body, other.body) && Objects.equals(this.headers, other.headers);
+           && Objects.equals(this.body, other.body) && Objects.equals(this.headers, other.headers)
+           && Objects.equals(this.retryPolicy, other.retryPolicy);
   }
 
   @Override
@@ -190,9 +626,71 @@ public class HttpJob extends Job {
         .add("method", method)
         .add("body", body)
         .add("headers", headers)
+        .add("retryPolicy", retryPolicy)
         .toString();
   }
 
+  /**
+   * Encodes all the http job data in a single JSON object, with headers as a nested object instead
+   * of a JSON string inside the data map.
+   */
+  private static class HttpJobDataCodec implements JobDataCodec<HttpJob> {
+
+    private static final int VERSION = 1;
+    private static final ObjectReader READER = JSON_MAPPER.reader(Data.class);
+    private static final ObjectWriter WRITER = JSON_MAPPER.writerWithType(Data.class);
+
+    @Override
+    public int getVersion() {
+      return VERSION;
+    }
+
+    @Override
+    public String encode(HttpJob job) {
+      Data data = new Data();
+      data.url = job.url.toString();
+      data.method = job.method;
+      data.body = job.body;
+      data.headers = job.headers;
+      data.retryPolicy = job.retryPolicy;
+      try {
+        return WRITER.writeValueAsString(data);
+      } catch (JsonProcessingException e) {
+        //This exception should never happen so just propagating it for the unexpected problem
+        throw Throwables.propagate(e);
+      }
+    }
+
+    @Override
+    public void decode(String encoded, int version, HttpJob job) {
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported http job data version " + version);
+      }
+      try {
+        Data data = READER.readValue(encoded);
+        job.url = new URL(data.url);
+        job.method = data.method;
+        job.body = data.body;
+        job.headers = data.headers;
+        job.retryPolicy = data.retryPolicy;
+      } catch (IOException e) {
+        throw Throwables.propagate(e);
+      }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private static class Data {
+
+      public String url;
+      public HttpMethod method;
+      public String body;
+      public Map<String, String> headers = Collections.emptyMap();
+      public RetryPolicy retryPolicy;
+
+    }
+
+  }
+
   private static class HttpAuditRecord {
 
     private final HttpJob request;
@@ -18,6 +18,7 @@ package com.onyxscheduler.domain;
 
 import com.google.common.base.Throwables;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -28,6 +29,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -44,13 +46,20 @@ import javax.validation.Valid;
  * appropriate JsonSubTypes.Type configuration in this file mapping the class to the appropriate
  * value of type field of the JSON representation. <p/> As they currently host interaction with
  * quartz Jobs, they need to provide proper buildQuartzJobDetail implementation to be able to
- * restore all needed configuration needed by run and parsed by initFromQuartzJobDataMap.
+ * restore all needed configuration needed by run and parsed by initFromQuartzJobDataMap. <p/> Jobs
+ * providing a JobDataCodec are stored in a single data map entry encoded by it, while jobs stored
+ * before having a codec (with an entry per field) are still restored with initFromDataMap.
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({@JsonSubTypes.Type(value = HttpJob.class, name = "http")})
 public abstract class Job implements org.quartz.Job, Runnable {
 
-  private static final String ID_DATAMAP_KEY = "id";
+  static final String ID_DATAMAP_KEY = "id";
+  static final String DATA_DATAMAP_KEY = "data";
+  private static final String DATA_VERSION_SEPARATOR = ":";
+  /* group of triggers scheduled internally to defer executions of jobs (for example when their
+  target is saturated), which are not part of the triggers defined for the job */
+  static final String DEFERRED_TRIGGER_GROUP = "onyx-deferred";
   /* This id is manly for tracing because a job could be created and another could use same name
      and group afterwards, but with this id both jobs will have different ids */
   protected UUID id;
@@ -99,15 +108,26 @@ public abstract class Job implements org.quartz.Job, Runnable {
   }
 
   public Set<org.quartz.Trigger> buildQuartzTriggers() {
+    return buildQuartzTriggers(0);
+  }
+
+  //see Trigger.buildQuartzTrigger
+  public Set<org.quartz.Trigger> buildQuartzTriggers(long spreadOffsetMillis) {
     return triggers.stream().
-        map(Trigger::buildQuartzTrigger).
+        map(trigger -> trigger.buildQuartzTrigger(spreadOffsetMillis)).
         collect(Collectors.toSet());
   }
 
   public JobDetail buildQuartzJobDetail() {
     JobDataMap dataMap = new JobDataMap();
     dataMap.put(ID_DATAMAP_KEY, id.toString());
-    dataMap.putAll(buildDataMap());
+    JobDataCodec<Job> dataCodec = resolveDataCodec();
+    if (dataCodec != null) {
+      dataMap.put(DATA_DATAMAP_KEY,
+                  dataCodec.getVersion() + DATA_VERSION_SEPARATOR + dataCodec.encode(this));
+    } else {
+      dataMap.putAll(buildDataMap());
+    }
 
     return org.quartz.JobBuilder.newJob(getClass())
         .withIdentity(name, group)
@@ -115,6 +135,19 @@ public abstract class Job implements org.quartz.Job, Runnable {
         .build();
   }
 
+  /**
+   * Codec used to store the job data in a single data map entry. When empty, an entry is stored
+   * for each entry returned by buildDataMap.
+   */
+  protected Optional<JobDataCodec<? extends Job>> getDataCodec() {
+    return Optional.empty();
+  }
+
+  @SuppressWarnings("unchecked")
+  private JobDataCodec<Job> resolveDataCodec() {
+    return (JobDataCodec<Job>) getDataCodec().orElse(null);
+  }
+
   protected abstract Map<String, Object> buildDataMap();
 
   public static Job fromQuartzJobDetailAndTriggers(JobDetail jobDetail,
@@ -126,9 +159,16 @@ public abstract class Job implements org.quartz.Job, Runnable {
       job.setName(jobKey.getName());
       job.setGroup(jobKey.getGroup());
       job.setTriggers(triggers.stream()
+                          .filter(trigger -> !DEFERRED_TRIGGER_GROUP
+                              .equals(trigger.getKey().getGroup()))
                           .map(Trigger::fromQuartzTrigger)
                           .collect(Collectors.toSet()));
-      job.initFromDataMap(jobDetail.getJobDataMap());
+      Object data = jobDetail.getJobDataMap().get(DATA_DATAMAP_KEY);
+      if (data != null) {
+        job.setData((String) data);
+      } else {
+        job.initFromDataMap(jobDetail.getJobDataMap());
+      }
       return job;
     } catch (InstantiationException | IllegalAccessException e) {
       throw Throwables.propagate(e);
@@ -137,6 +177,18 @@ public abstract class Job implements org.quartz.Job, Runnable {
 
   protected abstract void initFromDataMap(Map<String, Object> dataMap);
 
+  //this method is used by spring to automatically populate it when building the job from jobDetail
+  @JsonIgnore
+  public void setData(String data) {
+    JobDataCodec<Job> dataCodec = resolveDataCodec();
+    if (dataCodec == null) {
+      throw new IllegalStateException("No data codec available for " + getClass().getName());
+    }
+    int separatorIndex = data.indexOf(DATA_VERSION_SEPARATOR);
+    dataCodec.decode(data.substring(separatorIndex + 1),
+                     Integer.parseInt(data.substring(0, separatorIndex)), this);
+  }
+
   @Override
   public void execute(JobExecutionContext context) throws JobExecutionException {
     run();
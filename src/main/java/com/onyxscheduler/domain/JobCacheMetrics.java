@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Exposes effectiveness of scheduler jobs cache through actuator metrics endpoint, allowing to
+ * properly tune it (onyx.scheduler.jobCacheSpec).
+ */
+@Component
+public class JobCacheMetrics implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "onyx.jobCache.";
+
+  private final Scheduler scheduler;
+
+  @Autowired
+  public JobCacheMetrics(Scheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    CacheStats stats = scheduler.getJobCacheStats();
+    return ImmutableList.of(
+        new Metric<>(METRIC_PREFIX + "size", scheduler.getJobCacheSize()),
+        new Metric<>(METRIC_PREFIX + "hits", stats.hitCount()),
+        new Metric<>(METRIC_PREFIX + "misses", stats.missCount()),
+        new Metric<>(METRIC_PREFIX + "hitRate", stats.hitRate()),
+        new Metric<>(METRIC_PREFIX + "evictions", stats.evictionCount()));
+  }
+
+}
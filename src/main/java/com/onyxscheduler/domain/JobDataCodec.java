@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+/**
+ * Encodes the data of a job type in a single job data map entry, which is smaller and cheaper to
+ * store and restore than having an entry per field (jdbc job stores write the whole data map as a
+ * blob, and quartz populates each entry as a job property on every fire). <p/> Encoded data is
+ * stored along with the codec version, so a codec can change its encoding while still decoding
+ * data encoded by its previous versions.
+ *
+ * @param <T> type of job the codec encodes.
+ */
+public interface JobDataCodec<T extends Job> {
+
+  int getVersion();
+
+  String encode(T job);
+
+  /**
+   * Sets in the given job the data decoded from the given string, encoded by the given version
+   * of the codec.
+   */
+  void decode(String data, int version, T job);
+
+}
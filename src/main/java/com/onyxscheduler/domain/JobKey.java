@@ -17,6 +17,7 @@
 package com.onyxscheduler.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Objects;
 
@@ -31,7 +32,7 @@ public class JobKey {
   private final String group;
 
   @JsonCreator
-  public JobKey(String group, String name) {
+  public JobKey(@JsonProperty("group") String group, @JsonProperty("name") String name) {
     this.name = name;
     this.group = group;
   }
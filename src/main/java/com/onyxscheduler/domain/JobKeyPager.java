@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Provides job keys in pages, ordered by group and then name, to allow listing any amount of jobs
+ * without holding all of them in memory. <p/> Pages are requested with the last key of the previous
+ * page (keyset pagination) instead of an offset, so each page costs the same no matter how deep it
+ * is and concurrent creation or deletion of jobs don't shift pages.
+ */
+public interface JobKeyPager {
+
+  /**
+   * @param group if present only job keys of this group are returned.
+   * @param after if present only job keys after this one are returned.
+   * @param limit max number of job keys to return.
+   */
+  List<JobKey> findJobKeys(Optional<String> group, Optional<JobKey> after, int limit);
+
+  /**
+   * Finds which of the given job keys belong to existing jobs, with as few store queries as
+   * possible, to allow batch operations to report which jobs they actually affected.
+   */
+  Set<JobKey> findExistingJobKeys(Collection<JobKey> jobKeys);
+
+  /**
+   * Iterates through all job keys (with same filters as findJobKeys) in pages of up to pageSize
+   * keys. <p/> By default each page is found with findJobKeys after the last key of the previous
+   * one, which pagers that can't efficiently start listing from a key should override to list
+   * keys only once.
+   */
+  default Iterator<List<JobKey>> iterateJobKeyPages(Optional<String> group,
+                                                    Optional<JobKey> after, int pageSize) {
+    return new AbstractIterator<List<JobKey>>() {
+
+      private Optional<JobKey> pageAfter = after;
+      private boolean lastPage;
+
+      @Override
+      protected List<JobKey> computeNext() {
+        if (lastPage) {
+          return endOfData();
+        }
+        List<JobKey> page = findJobKeys(group, pageAfter, pageSize);
+        lastPage = page.size() < pageSize;
+        if (page.isEmpty()) {
+          return endOfData();
+        }
+        pageAfter = Optional.of(page.get(page.size() - 1));
+        return page;
+      }
+    };
+  }
+
+}
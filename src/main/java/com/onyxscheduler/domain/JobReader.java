@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads jobs without going through quartz schedulers, allowing read only queries (like listing
+ * jobs or getting a job) to be served by a different storage than the one used to fire triggers,
+ * for example a read replica of the job store database. <p/> Such storage may lag behind, so it's
+ * only used while it is available (for example while its lag is within the tolerated staleness),
+ * otherwise reads go to quartz schedulers.
+ */
+public interface JobReader {
+
+  boolean isAvailable();
+
+  /**
+   * @param group if present only job keys of this group are returned.
+   */
+  Set<JobKey> findJobKeys(Optional<String> group);
+
+  /**
+   * Gets a pager of the job keys in the reader storage, to serve paginated listings.
+   */
+  JobKeyPager getJobKeyPager();
+
+  Optional<Job> findJob(JobKey jobKey);
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.Iterators;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JobKeyPager for jobs split among several job stores, which fetches a page from each of them in
+ * parallel and merges them. <p/> Since each store page has its first keys after the given one, the
+ * first limit keys of all store pages are the first keys of all stores. <p/> When iterating
+ * through all pages, the pages of each store are iterated and merged as they are needed.
+ */
+public class MergingJobKeyPager implements JobKeyPager {
+
+  private static final Comparator<JobKey> JOB_KEY_ORDER =
+      Comparator.comparing(JobKey::getGroup).thenComparing(JobKey::getName);
+
+  private final List<JobKeyPager> pagers;
+  private final FanOutExecutor fanOutExecutor = new FanOutExecutor();
+
+  public MergingJobKeyPager(List<JobKeyPager> pagers) {
+    this.pagers = pagers;
+  }
+
+  @Override
+  public List<JobKey> findJobKeys(Optional<String> group, Optional<JobKey> after, int limit) {
+    return fanOutExecutor.invokeAll(pagers, pager -> pager.findJobKeys(group, after, limit))
+        .stream()
+        .flatMap(List::stream)
+        .sorted(JOB_KEY_ORDER)
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Iterator<List<JobKey>> iterateJobKeyPages(Optional<String> group,
+                                                   Optional<JobKey> after, int pageSize) {
+    List<Iterator<JobKey>> storeKeys = pagers.stream()
+        .map(pager -> Iterators.concat(
+            Iterators.transform(pager.iterateJobKeyPages(group, after, pageSize), List::iterator)))
+        .collect(Collectors.toList());
+    return Iterators.partition(Iterators.mergeSorted(storeKeys, JOB_KEY_ORDER), pageSize);
+  }
+
+  @Override
+  public Set<JobKey> findExistingJobKeys(Collection<JobKey> jobKeys) {
+    return fanOutExecutor.invokeAll(pagers, pager -> pager.findExistingJobKeys(jobKeys))
+        .stream()
+        .flatMap(Set::stream)
+        .collect(Collectors.toSet());
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.base.Throwables;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long running operation (like deleting all jobs of a big group) which runs in background, allowing
+ * clients to check its progress and outcome.
+ */
+public class Operation {
+
+  public enum Status {
+    RUNNING, COMPLETED, FAILED
+  }
+
+  private final UUID id = UUID.randomUUID();
+  private final String description;
+  private final Instant startedAt = Instant.now();
+  private final AtomicLong processed = new AtomicLong();
+  private volatile Status status = Status.RUNNING;
+  private volatile Instant finishedAt;
+  private volatile String error;
+
+  public Operation(String description) {
+    this.description = description;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void addProcessed(long count) {
+    processed.addAndGet(count);
+  }
+
+  void complete() {
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  void fail(Throwable cause) {
+    finishedAt = Instant.now();
+    error = Throwables.getRootCause(cause).toString();
+    status = Status.FAILED;
+  }
+
+  boolean isFinishedBefore(Instant instant) {
+    return finishedAt != null && finishedAt.isBefore(instant);
+  }
+
+  @Override
+  public String toString() {
+    return com.google.common.base.Objects.toStringHelper(this)
+        .add("id", id)
+        .add("description", description)
+        .add("status", status)
+        .add("processed", processed)
+        .toString();
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs operations in background and keeps track of them. <p/> Operations run one at a time, to
+ * avoid several bulk operations competing for the job store, and are kept for retentionMinutes
+ * after they finish so clients can check their outcome.
+ */
+@Service
+public class OperationManager implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OperationManager.class);
+  public static final int DEFAULT_RETENTION_MINUTES = 60;
+
+  private final Map<UUID, Operation> operations = new ConcurrentHashMap<>();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("onyx-operations")
+          .setDaemon(true)
+          .build());
+  private long retentionMinutes = DEFAULT_RETENTION_MINUTES;
+
+  @Value("${onyx.operations.retentionMinutes:" + DEFAULT_RETENTION_MINUTES + "}")
+  public void setRetentionMinutes(long retentionMinutes) {
+    this.retentionMinutes = retentionMinutes;
+  }
+
+  public Operation submit(String description, Consumer<Operation> task) {
+    purgeFinishedOperations();
+    Operation operation = new Operation(description);
+    operations.put(operation.getId(), operation);
+    executor.execute(() -> {
+      try {
+        task.accept(operation);
+        operation.complete();
+        LOG.info("Completed: {}", operation);
+      } catch (RuntimeException e) {
+        operation.fail(e);
+        LOG.error("Failed: {}", operation, e);
+      }
+    });
+    return operation;
+  }
+
+  private void purgeFinishedOperations() {
+    Instant expiration = Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES);
+    operations.values().removeIf(operation -> operation.isFinishedBefore(expiration));
+  }
+
+  public Optional<Operation> getOperation(UUID id) {
+    return Optional.ofNullable(operations.get(id));
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JobKeyPager relying only on quartz scheduler API, suitable for job stores (like RAMJobStore)
+ * which already hold all jobs in memory. <p/> Since quartz API has no way of paginating, each
+ * page goes through group names and job keys of the groups (from the one of the after key) until
+ * the page is filled. When iterating through all pages keys are listed once instead, since
+ * listing them again for each page would make iterating quadratic in the number of keys.
+ */
+public class QuartzJobKeyPager implements JobKeyPager {
+
+  private final org.quartz.Scheduler quartzScheduler;
+
+  public QuartzJobKeyPager(org.quartz.Scheduler quartzScheduler) {
+    this.quartzScheduler = quartzScheduler;
+  }
+
+  @Override
+  public List<JobKey> findJobKeys(Optional<String> group, Optional<JobKey> after, int limit) {
+    return listJobKeys(group, after, limit);
+  }
+
+  @Override
+  public Iterator<List<JobKey>> iterateJobKeyPages(Optional<String> group,
+                                                   Optional<JobKey> after, int pageSize) {
+    return Iterators.partition(listJobKeys(group, after, Integer.MAX_VALUE).iterator(), pageSize);
+  }
+
+  //checking each key is cheap since the job store holds them in memory
+  @Override
+  public Set<JobKey> findExistingJobKeys(Collection<JobKey> jobKeys) {
+    try {
+      Set<JobKey> existingKeys = new HashSet<>();
+      for (JobKey jobKey : jobKeys) {
+        if (quartzScheduler.checkExists(jobKey.buildQuartzJobKey())) {
+          existingKeys.add(jobKey);
+        }
+      }
+      return existingKeys;
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private List<JobKey> listJobKeys(Optional<String> group, Optional<JobKey> after, int limit) {
+    try {
+      List<String> groups = group.isPresent() ? ImmutableList.of(group.get())
+                                              : quartzScheduler.getJobGroupNames();
+      List<JobKey> page = new ArrayList<>();
+      for (String currentGroup : groups.stream().sorted().collect(Collectors.toList())) {
+        if (after.isPresent() && currentGroup.compareTo(after.get().getGroup()) < 0) {
+          continue;
+        }
+        List<String> names = quartzScheduler.getJobKeys(GroupMatcher.jobGroupEquals(currentGroup))
+            .stream()
+            .map(org.quartz.JobKey::getName)
+            .filter(name -> !after.isPresent() || isAfter(currentGroup, name, after.get()))
+            .sorted()
+            .limit(limit - page.size())
+            .collect(Collectors.toList());
+        names.forEach(name -> page.add(new JobKey(currentGroup, name)));
+        if (page.size() == limit) {
+          break;
+        }
+      }
+      return page;
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private static boolean isAfter(String group, String name, JobKey key) {
+    int groupComparison = group.compareTo(key.getGroup());
+    return groupComparison > 0 || groupComparison == 0 && name.compareTo(key.getName()) > 0;
+  }
+
+}
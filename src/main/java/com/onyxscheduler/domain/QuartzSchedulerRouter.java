@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import java.util.List;
+
+/**
+ * Resolves the quartz scheduler storing each job, allowing jobs to be split among several quartz
+ * schedulers (for example partitions of a jdbc job store) while Scheduler and its clients keep
+ * working with job keys.
+ */
+public interface QuartzSchedulerRouter {
+
+  org.quartz.Scheduler getScheduler(org.quartz.JobKey jobKey);
+
+  /**
+   * @return all the schedulers jobs may be stored in, which is needed for operations not related
+   * to a particular job (like listing job keys).
+   */
+  List<org.quartz.Scheduler> getSchedulers();
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Defines how failed executions of a job are retried. <p/> An execution is retried when it fails
+ * with an I/O error or with one of retryableStatusCodes, up to maxAttempts executions in total.
+ * Attempt n is retried after backoffMillis * backoffMultiplier ^ (n - 1) (up to maxBackoffMillis)
+ * and, when jitter is enabled, a random time between 0 and that, so retries of many jobs failing
+ * at once against a recovering host are spread instead of hitting it all at the same time.
+ */
+public class RetryPolicy {
+
+  public static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES =
+      ImmutableSet.of(429, 500, 502, 503, 504);
+
+  @Min(1)
+  private int maxAttempts = 3;
+  @Min(0)
+  private long backoffMillis = 1000;
+  @Min(0)
+  private long maxBackoffMillis = 60000;
+  @DecimalMin("1")
+  private double backoffMultiplier = 2;
+  private boolean jitter = true;
+  @NotNull
+  private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public long getBackoffMillis() {
+    return backoffMillis;
+  }
+
+  public void setBackoffMillis(long backoffMillis) {
+    this.backoffMillis = backoffMillis;
+  }
+
+  public long getMaxBackoffMillis() {
+    return maxBackoffMillis;
+  }
+
+  public void setMaxBackoffMillis(long maxBackoffMillis) {
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  public double getBackoffMultiplier() {
+    return backoffMultiplier;
+  }
+
+  public void setBackoffMultiplier(double backoffMultiplier) {
+    this.backoffMultiplier = backoffMultiplier;
+  }
+
+  public boolean isJitter() {
+    return jitter;
+  }
+
+  public void setJitter(boolean jitter) {
+    this.jitter = jitter;
+  }
+
+  public Set<Integer> getRetryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  public void setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+    this.retryableStatusCodes = retryableStatusCodes;
+  }
+
+  /**
+   * @param attempt number of the failed attempt, starting from 1.
+   */
+  public boolean shouldRetry(int attempt, Throwable failure) {
+    if (attempt >= maxAttempts) {
+      return false;
+    }
+    if (failure instanceof HttpStatusCodeException) {
+      return retryableStatusCodes.contains(
+          ((HttpStatusCodeException) failure).getStatusCode().value());
+    }
+    return failure instanceof ResourceAccessException;
+  }
+
+  /**
+   * @param attempt number of the failed attempt, starting from 1.
+   */
+  public long computeBackoffMillis(int attempt) {
+    long backoff = (long) Math.min(maxBackoffMillis,
+                                   backoffMillis * Math.pow(backoffMultiplier, attempt - 1));
+    return jitter ? ThreadLocalRandom.current().nextLong(backoff + 1) : backoff;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxAttempts, backoffMillis, maxBackoffMillis, backoffMultiplier, jitter,
+                        retryableStatusCodes);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final RetryPolicy other = (RetryPolicy) obj;
+    return this.maxAttempts == other.maxAttempts && this.backoffMillis == other.backoffMillis
+           && this.maxBackoffMillis == other.maxBackoffMillis
+           && this.backoffMultiplier == other.backoffMultiplier && this.jitter == other.jitter
+           && Objects.equals(this.retryableStatusCodes, other.retryableStatusCodes);
+  }
+
+  @Override
+  public String toString() {
+    return com.google.common.base.Objects.toStringHelper(this)
+        .add("maxAttempts", maxAttempts)
+        .add("backoffMillis", backoffMillis)
+        .add("maxBackoffMillis", maxBackoffMillis)
+        .add("backoffMultiplier", backoffMultiplier)
+        .add("jitter", jitter)
+        .add("retryableStatusCodes", retryableStatusCodes)
+        .toString();
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+/**
+ * Outcome of scheduling a job as part of a batch. <p/> Allows reporting each job of a batch
+ * independently, so a duplicate or invalid job doesn't fail the whole batch.
+ */
+public class ScheduleResult {
+
+  public enum Status {
+    SCHEDULED, DUPLICATE, INVALID
+  }
+
+  private final String group;
+  private final String name;
+  private final Status status;
+  private final String message;
+
+  private ScheduleResult(String group, String name, Status status, String message) {
+    this.group = group;
+    this.name = name;
+    this.status = status;
+    this.message = message;
+  }
+
+  public static ScheduleResult scheduled(Job job) {
+    return new ScheduleResult(job.getGroup(), job.getName(), Status.SCHEDULED, null);
+  }
+
+  public static ScheduleResult duplicate(Job job) {
+    return new ScheduleResult(job.getGroup(), job.getName(), Status.DUPLICATE,
+                              "already exists a job in group '" + job.getGroup() + "' with name '"
+                              + job.getName() + "'.");
+  }
+
+  public static ScheduleResult invalid(Job job, String message) {
+    return invalid(job.getGroup(), job.getName(), message);
+  }
+
+  /**
+   * Builds the result for a job which could not even be parsed, so just the group and name (if
+   * any) can be reported.
+   */
+  public static ScheduleResult invalid(String group, String name, String message) {
+    return new ScheduleResult(group, name, Status.INVALID, message);
+  }
+
+  public String getGroup() {
+    return group;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return com.google.common.base.Objects.toStringHelper(this)
+        .add("group", group)
+        .add("name", name)
+        .add("status", status)
+        .add("message", message)
+        .toString();
+  }
+
+}
@@ -17,45 +17,233 @@
 package com.onyxscheduler.domain;
 
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import com.onyxscheduler.http.FiringThrottle;
 
 import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobPersistenceException;
 import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.SchedulerException;
 import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.listeners.JobListenerSupport;
+import org.quartz.listeners.SchedulerListenerSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
 
 /**
  * Adapter to use quartz scheduler with onyx jobs. <p/> This class abstracts interaction with quartz
  * classes allowing JobController and other potential client classes to be agnostic of quartz
- * internals.
+ * internals. <p/> Jobs may be split among several quartz schedulers (see QuartzSchedulerRouter), in
+ * which case operations on jobs go to the scheduler storing them, and operations on all jobs (like
+ * listing them) are done on every scheduler in parallel and their results merged.
  */
 @Service
 public class Scheduler {
 
   private static final Logger LOG = LoggerFactory.getLogger(Scheduler.class);
 
-  private final org.quartz.Scheduler quartzScheduler;
+  public static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+  public static final String DEFAULT_JOB_CACHE_SPEC =
+      "maximumSize=10000,expireAfterWrite=30s,recordStats";
+  private static final String DISABLED_JOB_CACHE_SPEC = "maximumSize=0,recordStats";
+  private static final int JOB_CACHE_GENERATION_STRIPES = 64;
+
+  private final QuartzSchedulerRouter quartzSchedulerRouter;
+  private final FanOutExecutor fanOutExecutor = new FanOutExecutor();
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+  private int batchChunkSize = DEFAULT_BATCH_CHUNK_SIZE;
+  private JobKeyPager jobKeyPager;
+  private Optional<JobReader> jobReader = Optional.empty();
+  private Optional<FiringThrottle> firingThrottle = Optional.empty();
+  private Cache<JobKey, Job> jobCache = buildJobCache(DEFAULT_JOB_CACHE_SPEC);
+  //incremented on each invalidation of jobs of the stripe, to detect them while loading a job
+  private final AtomicLongArray jobCacheGenerations =
+      new AtomicLongArray(JOB_CACHE_GENERATION_STRIPES);
+  private boolean jobCacheInClusters;
 
-  @Autowired
   public Scheduler(org.quartz.Scheduler quartzScheduler) {
-    this.quartzScheduler = quartzScheduler;
+    this(new SingleQuartzSchedulerRouter(quartzScheduler));
+  }
+
+  @Autowired
+  public Scheduler(QuartzSchedulerRouter quartzSchedulerRouter) {
+    this.quartzSchedulerRouter = quartzSchedulerRouter;
+    List<JobKeyPager> pagers = quartzSchedulerRouter.getSchedulers().stream()
+        .map(QuartzJobKeyPager::new)
+        .collect(Collectors.toList());
+    this.jobKeyPager = pagers.size() == 1 ? pagers.get(0) : new MergingJobKeyPager(pagers);
+  }
+
+  /**
+   * Configures the cache of jobs returned by getJob with guava CacheBuilderSpec syntax. <p/> Cached
+   * jobs are invalidated when they change through this scheduler or when quartz notifies changes to
+   * them (firing, finalization of triggers, etc), but changes done by other nodes of a cluster are
+   * not noticed, so the cache is disabled with clustered job stores unless jobCacheInClusters is
+   * set, in which case expiration bounds how stale a job can be.
+   */
+  @Value("${onyx.scheduler.jobCacheSpec:" + DEFAULT_JOB_CACHE_SPEC + "}")
+  public void setJobCacheSpec(String jobCacheSpec) {
+    this.jobCache = buildJobCache(jobCacheSpec);
+  }
+
+  private static Cache<JobKey, Job> buildJobCache(String spec) {
+    return CacheBuilder.from(spec).build();
+  }
+
+  @Value("${onyx.scheduler.jobCacheInClusters:false}")
+  public void setJobCacheInClusters(boolean jobCacheInClusters) {
+    this.jobCacheInClusters = jobCacheInClusters;
+  }
+
+  @PostConstruct
+  public void initJobCache() {
+    try {
+      for (org.quartz.Scheduler quartzScheduler : quartzSchedulerRouter.getSchedulers()) {
+        if (!jobCacheInClusters && quartzScheduler.getMetaData().isJobStoreClustered()) {
+          LOG.info("Disabling job cache since job store is clustered");
+          jobCache = buildJobCache(DISABLED_JOB_CACHE_SPEC);
+          return;
+        }
+      }
+      for (org.quartz.Scheduler quartzScheduler : quartzSchedulerRouter.getSchedulers()) {
+        quartzScheduler.getListenerManager()
+            .addJobListener(new JobCacheInvalidationJobListener());
+        quartzScheduler.getListenerManager()
+            .addSchedulerListener(new JobCacheInvalidationSchedulerListener());
+      }
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private class JobCacheInvalidationJobListener extends JobListenerSupport {
+
+    @Override
+    public String getName() {
+      return "onyx-job-cache-invalidation";
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context,
+                               JobExecutionException jobException) {
+      invalidateCachedJob(context.getJobDetail().getKey());
+    }
+  }
+
+  private class JobCacheInvalidationSchedulerListener extends SchedulerListenerSupport {
+
+    @Override
+    public void jobAdded(JobDetail jobDetail) {
+      invalidateCachedJob(jobDetail.getKey());
+    }
+
+    @Override
+    public void jobDeleted(org.quartz.JobKey jobKey) {
+      invalidateCachedJob(jobKey);
+    }
+
+    @Override
+    public void jobScheduled(org.quartz.Trigger trigger) {
+      invalidateCachedJob(trigger.getJobKey());
+    }
+
+    @Override
+    public void triggerFinalized(org.quartz.Trigger trigger) {
+      invalidateCachedJob(trigger.getJobKey());
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+      for (int stripe = 0; stripe < JOB_CACHE_GENERATION_STRIPES; stripe++) {
+        jobCacheGenerations.incrementAndGet(stripe);
+      }
+      jobCache.invalidateAll();
+    }
+  }
+
+  private void invalidateCachedJob(org.quartz.JobKey quartzJobKey) {
+    invalidateCachedJob(JobKey.fromQuartzJobKey(quartzJobKey));
+  }
+
+  private void invalidateCachedJob(JobKey jobKey) {
+    jobCacheGenerations.incrementAndGet(getJobCacheStripe(jobKey));
+    jobCache.invalidate(jobKey);
+  }
+
+  private static int getJobCacheStripe(JobKey jobKey) {
+    return Math.floorMod(jobKey.hashCode(), JOB_CACHE_GENERATION_STRIPES);
+  }
+
+  public CacheStats getJobCacheStats() {
+    return jobCache.stats();
+  }
+
+  public long getJobCacheSize() {
+    return jobCache.size();
+  }
+
+  //allows job stores to provide more efficient ways of paginating job keys than quartz API
+  @Autowired(required = false)
+  public void setJobKeyPager(JobKeyPager jobKeyPager) {
+    this.jobKeyPager = jobKeyPager;
+  }
+
+  //allows serving read only queries from a different storage, like a read replica
+  @Autowired(required = false)
+  public void setJobReader(JobReader jobReader) {
+    this.jobReader = Optional.of(jobReader);
+  }
+
+  //spreads triggers of jobs sharing a scheduling, so they don't all fire at the same instant
+  @Autowired(required = false)
+  public void setFiringThrottle(FiringThrottle firingThrottle) {
+    this.firingThrottle = Optional.of(firingThrottle);
+  }
+
+  @Value("${onyx.scheduler.batchChunkSize:" + DEFAULT_BATCH_CHUNK_SIZE + "}")
+  public void setBatchChunkSize(int batchChunkSize) {
+    this.batchChunkSize = batchChunkSize;
   }
 
   public void scheduleJob(@Valid Job job) throws DuplicateJobKeyException {
-    Set<org.quartz.Trigger> quartzTriggers = job.buildQuartzTriggers();
     JobDetail quartzJobDetail = job.buildQuartzJobDetail();
+    Set<org.quartz.Trigger> quartzTriggers =
+        job.buildQuartzTriggers(getSpreadOffsetMillis(quartzJobDetail.getKey()));
     try {
-      quartzScheduler.scheduleJob(quartzJobDetail, quartzTriggers, false);
+      getQuartzScheduler(quartzJobDetail.getKey())
+          .scheduleJob(quartzJobDetail, quartzTriggers, false);
+      invalidateCachedJob(quartzJobDetail.getKey());
       LOG.info("Scheduled: {}", job);
     } catch (ObjectAlreadyExistsException e) {
       throw new DuplicateJobKeyException(job.getGroup(), job.getName(), e);
@@ -64,6 +252,15 @@ public class Scheduler {
     }
   }
 
+  private long getSpreadOffsetMillis(org.quartz.JobKey quartzJobKey) {
+    return firingThrottle.isPresent() ? firingThrottle.get().getSpreadOffsetMillis(quartzJobKey)
+        : 0;
+  }
+
+  private org.quartz.Scheduler getQuartzScheduler(org.quartz.JobKey quartzJobKey) {
+    return quartzSchedulerRouter.getScheduler(quartzJobKey);
+  }
+
   public static class DuplicateJobKeyException extends Exception {
 
     public DuplicateJobKeyException(String group, String name, ObjectAlreadyExistsException e) {
@@ -71,31 +268,243 @@ public class Scheduler {
     }
   }
 
-  public Set<JobKey> getJobKeys() {
+  /**
+   * Schedules the given jobs in the given group, reporting the outcome of each of them in the same
+   * order they were provided. <p/> Jobs without group are scheduled in the given one, while jobs
+   * from other groups, jobs failing validation and jobs with keys already used (in the scheduler
+   * or previously in the batch) are reported as such without affecting the rest. <p/> Jobs are
+   * stored in chunks of batchChunkSize jobs with a single quartz call (and transaction when using
+   * jdbc job store) each, instead of one per job (chunks are further split by the scheduler
+   * storing their jobs when there are several ones).
+   */
+  public List<ScheduleResult> scheduleJobs(String group, List<Job> jobs) {
+    ScheduleResult[] results = new ScheduleResult[jobs.size()];
+    List<BatchItem> items = new ArrayList<>();
+    Set<org.quartz.JobKey> batchKeys = new HashSet<>();
+    for (int i = 0; i < jobs.size(); i++) {
+      Job job = jobs.get(i);
+      if (job.getGroup() == null) {
+        job.setGroup(group);
+      } else if (!job.getGroup().equals(group)) {
+        results[i] = ScheduleResult.invalid(job, "job group '" + job.getGroup()
+                                                 + "' does not match batch group '" + group + "'.");
+        continue;
+      }
+      Set<ConstraintViolation<Job>> violations = validator.validate(job);
+      if (!violations.isEmpty()) {
+        results[i] = ScheduleResult.invalid(job, buildViolationsMessage(violations));
+        continue;
+      }
+      BatchItem item;
+      try {
+        item = new BatchItem(i, job, this::getSpreadOffsetMillis);
+      } catch (RuntimeException e) {
+        // quartz builders reject missing names, invalid cron expressions, etc
+        results[i] = ScheduleResult.invalid(job, e.getMessage());
+        continue;
+      }
+      if (!batchKeys.add(item.jobDetail.getKey())) {
+        results[i] = ScheduleResult.duplicate(job);
+        continue;
+      }
+      items.add(item);
+    }
+
     try {
-      return quartzScheduler.getJobKeys(GroupMatcher.anyJobGroup())
-          .stream()
-          .map(JobKey::fromQuartzJobKey)
-          .collect(Collectors.toSet());
+      for (List<BatchItem> chunk : Lists.partition(items, batchChunkSize)) {
+        for (Map.Entry<org.quartz.Scheduler, List<BatchItem>> schedulerChunk
+            : groupByScheduler(chunk, item -> item.jobDetail.getKey()).entrySet()) {
+          scheduleChunk(schedulerChunk.getKey(), schedulerChunk.getValue(), results);
+        }
+      }
     } catch (SchedulerException e) {
       throw Throwables.propagate(e);
     }
+    return Arrays.asList(results);
   }
 
-  public Set<JobKey> getJobKeysByGroup(String group) {
+  private static String buildViolationsMessage(Set<ConstraintViolation<Job>> violations) {
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+
+  private static class BatchItem {
+
+    private final int index;
+    private final Job job;
+    private final JobDetail jobDetail;
+    private final Set<org.quartz.Trigger> quartzTriggers;
+
+    private BatchItem(int index, Job job, ToLongFunction<org.quartz.JobKey> spreadOffsets) {
+      this.index = index;
+      this.job = job;
+      this.jobDetail = job.buildQuartzJobDetail();
+      this.quartzTriggers =
+          job.buildQuartzTriggers(spreadOffsets.applyAsLong(jobDetail.getKey()));
+    }
+  }
+
+  private <T> Map<org.quartz.Scheduler, List<T>> groupByScheduler(
+      List<T> elements, Function<T, org.quartz.JobKey> keyExtractor) {
+    Map<org.quartz.Scheduler, List<T>> groups = new LinkedHashMap<>();
+    elements.forEach(element -> groups.computeIfAbsent(
+        getQuartzScheduler(keyExtractor.apply(element)), scheduler -> new ArrayList<>())
+        .add(element));
+    return groups;
+  }
+
+  private void scheduleChunk(org.quartz.Scheduler quartzScheduler, List<BatchItem> chunk,
+                             ScheduleResult[] results) throws SchedulerException {
+    try {
+      scheduleInBulk(quartzScheduler, chunk, results);
+    } catch (ObjectAlreadyExistsException e) {
+      List<BatchItem> nonExisting = new ArrayList<>();
+      for (BatchItem item : chunk) {
+        if (quartzScheduler.checkExists(item.jobDetail.getKey())) {
+          results[item.index] = ScheduleResult.duplicate(item.job);
+        } else {
+          nonExisting.add(item);
+        }
+      }
+      try {
+        scheduleInBulk(quartzScheduler, nonExisting, results);
+      } catch (ObjectAlreadyExistsException e2) {
+        // some job has been concurrently created since the check, so resolve them one by one
+        scheduleOneByOne(quartzScheduler, nonExisting, results);
+      }
+    }
+  }
+
+  private void scheduleInBulk(org.quartz.Scheduler quartzScheduler, List<BatchItem> items,
+                              ScheduleResult[] results) throws SchedulerException {
+    if (items.isEmpty()) {
+      return;
+    }
+    Map<JobDetail, Set<? extends org.quartz.Trigger>> triggersAndJobs = new LinkedHashMap<>();
+    items.forEach(item -> triggersAndJobs.put(item.jobDetail, item.quartzTriggers));
     try {
-      return quartzScheduler.getJobKeys(GroupMatcher.jobGroupEquals(group))
-          .stream()
-          .map(JobKey::fromQuartzJobKey)
-          .collect(Collectors.toSet());
+      quartzScheduler.scheduleJobs(triggersAndJobs, false);
+      triggersAndJobs.keySet().forEach(jobDetail -> invalidateCachedJob(jobDetail.getKey()));
+    } catch (JobPersistenceException e) {
+      throw e;
     } catch (SchedulerException e) {
-      throw Throwables.propagate(e);
+      // some job has been rejected (for example a trigger that would never fire), so find it out
+      scheduleOneByOne(quartzScheduler, items, results);
+      return;
     }
+    items.forEach(item -> results[item.index] = ScheduleResult.scheduled(item.job));
+    LOG.info("Scheduled batch of {} jobs", items.size());
+  }
+
+  private void scheduleOneByOne(org.quartz.Scheduler quartzScheduler, List<BatchItem> items,
+                                ScheduleResult[] results) throws SchedulerException {
+    for (BatchItem item : items) {
+      try {
+        quartzScheduler.scheduleJob(item.jobDetail, item.quartzTriggers, false);
+        invalidateCachedJob(item.jobDetail.getKey());
+        results[item.index] = ScheduleResult.scheduled(item.job);
+        LOG.info("Scheduled: {}", item.job);
+      } catch (ObjectAlreadyExistsException e) {
+        results[item.index] = ScheduleResult.duplicate(item.job);
+      } catch (JobPersistenceException e) {
+        throw e;
+      } catch (SchedulerException e) {
+        results[item.index] = ScheduleResult.invalid(item.job, e.getMessage());
+      }
+    }
+  }
+
+  public Set<JobKey> getJobKeys() {
+    Optional<JobReader> reader = getAvailableJobReader();
+    return reader.isPresent() ? reader.get().findJobKeys(Optional.empty())
+        : findJobKeys(GroupMatcher.anyJobGroup());
+  }
+
+  private Optional<JobReader> getAvailableJobReader() {
+    return jobReader.filter(JobReader::isAvailable);
+  }
+
+  public Set<JobKey> getJobKeysByGroup(String group) {
+    Optional<JobReader> reader = getAvailableJobReader();
+    return reader.isPresent() ? reader.get().findJobKeys(Optional.of(group))
+        : findJobKeys(GroupMatcher.jobGroupEquals(group));
+  }
+
+  private Set<JobKey> findJobKeys(GroupMatcher<org.quartz.JobKey> matcher) {
+    return fanOutExecutor.invokeAll(quartzSchedulerRouter.getSchedulers(),
+                                    quartzScheduler -> quartzScheduler.getJobKeys(matcher))
+        .stream()
+        .flatMap(Set::stream)
+        .map(JobKey::fromQuartzJobKey)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Gets up to limit job keys, ordered by group and name, after the given key (if any) and from
+   * the given group (if any). <p/> Use the last key of a page as the after key to get the next one.
+   * <p/> Pages may be served by the job reader, so use getCurrentJobKeysPage when stale keys are
+   * not acceptable.
+   */
+  public List<JobKey> getJobKeysPage(Optional<String> group, Optional<JobKey> after, int limit) {
+    return getReadJobKeyPager().findJobKeys(group, after, limit);
+  }
+
+  private JobKeyPager getReadJobKeyPager() {
+    Optional<JobReader> reader = getAvailableJobReader();
+    return reader.isPresent() ? reader.get().getJobKeyPager() : jobKeyPager;
+  }
+
+  /**
+   * Same as getJobKeysPage but always reading from quartz job stores, for operations on the listed
+   * jobs (like deleting them).
+   */
+  public List<JobKey> getCurrentJobKeysPage(Optional<String> group, Optional<JobKey> after,
+                                            int limit) {
+    return jobKeyPager.findJobKeys(group, after, limit);
+  }
+
+  /**
+   * Iterates through all job keys, ordered by group and name, after the given key (if any) and
+   * from the given group (if any), in pages of up to pageSize keys. <p/> Unlike calling
+   * getJobKeysPage for each page, this lets job stores which can't paginate list keys only once.
+   * <p/> As getJobKeysPage, pages may be served by the job reader.
+   */
+  public Iterator<List<JobKey>> iterateJobKeyPages(Optional<String> group, Optional<JobKey> after,
+                                                   int pageSize) {
+    return getReadJobKeyPager().iterateJobKeyPages(group, after, pageSize);
   }
 
   public Optional<Job> getJob(JobKey jobKey) {
+    Job cachedJob = jobCache.getIfPresent(jobKey);
+    if (cachedJob != null) {
+      return Optional.of(cachedJob);
+    }
+    //jobs read from the job reader are not cached, since cache expiration would add to its lag
+    Optional<JobReader> reader = getAvailableJobReader();
+    if (reader.isPresent()) {
+      return reader.get().findJob(jobKey);
+    }
+    int stripe = getJobCacheStripe(jobKey);
+    long generation = jobCacheGenerations.get(stripe);
+    Optional<Job> job = loadJob(jobKey);
+    job.ifPresent(loadedJob -> {
+      jobCache.put(jobKey, loadedJob);
+      /* a change invalidating the job while it was being loaded may have happened before the put,
+      so it's undone to not keep the stale job until it expires */
+      if (jobCacheGenerations.get(stripe) != generation) {
+        jobCache.invalidate(jobKey);
+      }
+    });
+    return job;
+  }
+
+  private Optional<Job> loadJob(JobKey jobKey) {
     try {
-      JobDetail jobDetail = quartzScheduler.getJobDetail(jobKey.buildQuartzJobKey());
+      org.quartz.JobKey quartzJobKey = jobKey.buildQuartzJobKey();
+      org.quartz.Scheduler quartzScheduler = getQuartzScheduler(quartzJobKey);
+      JobDetail jobDetail = quartzScheduler.getJobDetail(quartzJobKey);
 
       if (jobDetail == null) {
         return Optional.empty();
@@ -111,7 +520,74 @@ public class Scheduler {
 
   public boolean deleteJob(JobKey jobKey) {
     try {
-      return quartzScheduler.deleteJob(jobKey.buildQuartzJobKey());
+      org.quartz.JobKey quartzJobKey = jobKey.buildQuartzJobKey();
+      return getQuartzScheduler(quartzJobKey).deleteJob(quartzJobKey);
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    } finally {
+      invalidateCachedJob(jobKey);
+    }
+  }
+
+  /**
+   * Deletes the jobs with given keys in chunks of batchChunkSize jobs, with a single existence
+   * query and a single quartz call (and transaction when using jdbc job store) each.
+   *
+   * @return the number of deleted jobs, ignoring keys of non existing jobs.
+   */
+  public int deleteJobs(List<JobKey> jobKeys) {
+    try {
+      int deleted = 0;
+      for (List<JobKey> chunk : Lists.partition(jobKeys, batchChunkSize)) {
+        Set<JobKey> existingKeys = jobKeyPager.findExistingJobKeys(chunk);
+        deleted += deleteQuartzJobs(chunk.stream()
+                                        .filter(existingKeys::contains)
+                                        .map(JobKey::buildQuartzJobKey)
+                                        .collect(Collectors.toList()));
+      }
+      return deleted;
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /* quartz only tells if all the jobs were found, but since these are jobs just found to exist,
+  it's good enough to report them all as deleted */
+  private int deleteQuartzJobs(List<org.quartz.JobKey> quartzJobKeys) throws SchedulerException {
+    if (quartzJobKeys.isEmpty()) {
+      return 0;
+    }
+    try {
+      for (Map.Entry<org.quartz.Scheduler, List<org.quartz.JobKey>> schedulerKeys
+          : groupByScheduler(quartzJobKeys, Function.identity()).entrySet()) {
+        schedulerKeys.getKey().deleteJobs(schedulerKeys.getValue());
+      }
+    } finally {
+      quartzJobKeys.forEach(this::invalidateCachedJob);
+    }
+    LOG.info("Deleted batch of {} jobs", quartzJobKeys.size());
+    return quartzJobKeys.size();
+  }
+
+  /**
+   * Deletes all jobs of the given group, page by page (of batchChunkSize jobs), reporting the
+   * number of deleted jobs after each page to the given listener.
+   *
+   * @return the number of deleted jobs.
+   */
+  public long deleteJobsByGroup(String group, LongConsumer progressListener) {
+    try {
+      long deleted = 0;
+      Iterator<List<JobKey>> pages =
+          jobKeyPager.iterateJobKeyPages(Optional.of(group), Optional.empty(), batchChunkSize);
+      while (pages.hasNext()) {
+        int pageDeleted = deleteQuartzJobs(pages.next().stream()
+                                               .map(JobKey::buildQuartzJobKey)
+                                               .collect(Collectors.toList()));
+        deleted += pageDeleted;
+        progressListener.accept(pageDeleted);
+      }
+      return deleted;
     } catch (SchedulerException e) {
       throw Throwables.propagate(e);
     }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * QuartzSchedulerRouter for the usual case of all jobs being stored in a single quartz scheduler.
+ */
+public class SingleQuartzSchedulerRouter implements QuartzSchedulerRouter {
+
+  private final org.quartz.Scheduler quartzScheduler;
+
+  public SingleQuartzSchedulerRouter(org.quartz.Scheduler quartzScheduler) {
+    this.quartzScheduler = quartzScheduler;
+  }
+
+  @Override
+  public org.quartz.Scheduler getScheduler(org.quartz.JobKey jobKey) {
+    return quartzScheduler;
+  }
+
+  @Override
+  public List<org.quartz.Scheduler> getSchedulers() {
+    return ImmutableList.of(quartzScheduler);
+  }
+
+}
@@ -25,6 +25,9 @@ import org.quartz.TriggerBuilder;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.validation.constraints.AssertTrue;
 
@@ -34,6 +37,10 @@ import javax.validation.constraints.AssertTrue;
  */
 public class Trigger {
 
+  static final String SPREAD_OFFSET_DATAMAP_KEY = "spreadOffsetMillis";
+  private static final String CRON_SECOND_ZERO = "0";
+  private static final Pattern CRON_SECONDS_PATTERN = Pattern.compile("^\\s*(\\S+)");
+
   private Instant when;
   private String cron;
 
@@ -72,22 +79,56 @@ public class Trigger {
   }
 
   public org.quartz.Trigger buildQuartzTrigger() {
+    return buildQuartzTrigger(0);
+  }
+
+  /**
+   * Builds a quartz trigger whose firings are delayed by spreadOffsetMillis, so jobs sharing a
+   * scheduling don't all fire at the same instant. <p/> Cron expressions can only be delayed whole
+   * seconds within the minute, so only the ones firing at second zero are delayed (by the offset
+   * seconds modulo a minute). The applied offset is kept in the trigger data map, so
+   * fromQuartzTrigger restores the original scheduling.
+   */
+  public org.quartz.Trigger buildQuartzTrigger(long spreadOffsetMillis) {
+    TriggerBuilder<org.quartz.Trigger> builder = TriggerBuilder.newTrigger();
     if (cron != null) {
-      return TriggerBuilder.newTrigger()
-          .withSchedule(CronScheduleBuilder.cronSchedule(cron))
-          .build();
+      String quartzCron = cron;
+      long offsetSeconds = TimeUnit.MILLISECONDS.toSeconds(spreadOffsetMillis) % 60;
+      Matcher seconds = CRON_SECONDS_PATTERN.matcher(cron);
+      if (offsetSeconds > 0 && seconds.find() && CRON_SECOND_ZERO.equals(seconds.group(1))) {
+        quartzCron = replaceCronSeconds(cron, Long.toString(offsetSeconds));
+        builder.usingJobData(SPREAD_OFFSET_DATAMAP_KEY,
+                             Long.toString(TimeUnit.SECONDS.toMillis(offsetSeconds)));
+      }
+      return builder.withSchedule(CronScheduleBuilder.cronSchedule(quartzCron)).build();
     } else {
-      return TriggerBuilder.newTrigger().startAt(Date.from(when)).build();
+      if (spreadOffsetMillis > 0) {
+        builder.usingJobData(SPREAD_OFFSET_DATAMAP_KEY, Long.toString(spreadOffsetMillis));
+      }
+      return builder.startAt(Date.from(when.plusMillis(spreadOffsetMillis))).build();
     }
   }
 
   public static Trigger fromQuartzTrigger(org.quartz.Trigger quartzTrigger) {
+    String spreadOffset = quartzTrigger.getJobDataMap().getString(SPREAD_OFFSET_DATAMAP_KEY);
     if (quartzTrigger instanceof CronTrigger) {
       CronTrigger conTrigger = (CronTrigger) quartzTrigger;
-      return fromCronExpression(conTrigger.getCronExpression());
+      String cron = conTrigger.getCronExpression();
+      return fromCronExpression(spreadOffset != null ? replaceCronSeconds(cron, CRON_SECOND_ZERO)
+                                    : cron);
     } else {
-      return fromFixedTime(quartzTrigger.getStartTime().toInstant());
+      Instant when = quartzTrigger.getStartTime().toInstant();
+      return fromFixedTime(spreadOffset != null ? when.minusMillis(Long.parseLong(spreadOffset))
+                               : when);
+    }
+  }
+
+  private static String replaceCronSeconds(String cron, String seconds) {
+    Matcher matcher = CRON_SECONDS_PATTERN.matcher(cron);
+    if (!matcher.find()) {
+      return cron;
     }
+    return cron.substring(0, matcher.start(1)) + seconds + cron.substring(matcher.end(1));
   }
 
   @Override
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Circuit breakers of http job callback endpoints (protocol, host and port), which stop sending
+ * requests to endpoints which are down instead of waiting for each request to time out. <p/> A
+ * circuit opens after failureThreshold consecutive failures (I/O errors or server errors), and
+ * while it is open executions are rejected, and skipped or deferred depending on openPolicy (see
+ * HttpJob). After openMillis the circuit gets half open and lets a single probe request through,
+ * closing the circuit if it succeeds or opening it again otherwise.
+ */
+public class CircuitBreakers {
+
+  /**
+   * What to do with executions rejected by an open circuit: skip them (for example when jobs are
+   * fired periodically and a missed firing is not a problem) or defer them until the circuit gets
+   * half open (at least deferMillis).
+   */
+  public enum OpenPolicy {
+    SKIP, DEFER
+  }
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private final OpenPolicy openPolicy;
+  private final long deferMillis;
+  private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+  public CircuitBreakers(int failureThreshold, long openMillis, OpenPolicy openPolicy,
+                         long deferMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+    this.openPolicy = openPolicy;
+    this.deferMillis = deferMillis;
+  }
+
+  public OpenPolicy getOpenPolicy() {
+    return openPolicy;
+  }
+
+  public CircuitBreaker getCircuitBreaker(URL url) {
+    return circuitBreakers.computeIfAbsent(
+        url.getProtocol() + "://" + url.getHost() + ":" + resolvePort(url),
+        endpoint -> new CircuitBreaker());
+  }
+
+  private static int resolvePort(URL url) {
+    return url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+  }
+
+  public Map<String, CircuitBreaker> getCircuitBreakers() {
+    return circuitBreakers;
+  }
+
+  /**
+   * Only failures showing the endpoint is unavailable open circuits, since client errors are
+   * specific to each job.
+   */
+  public static boolean isFailure(Throwable e) {
+    return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+  }
+
+  public class CircuitBreaker {
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private long rejected;
+
+    /**
+     * @return true if a request can be sent, which must be followed by a call to onSuccess or
+     * onFailure once it completes.
+     */
+    public synchronized boolean tryAcquire() {
+      if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+        //the first request after the open period is the probe
+        state = State.HALF_OPEN;
+        return true;
+      }
+      if (state != State.CLOSED) {
+        rejected++;
+        return false;
+      }
+      return true;
+    }
+
+    public synchronized void onSuccess() {
+      state = State.CLOSED;
+      consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+      consecutiveFailures++;
+      if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openMillis;
+      }
+    }
+
+    /**
+     * @return how long to defer a rejected execution, which is until the circuit gets half open
+     * but no less than deferMillis (so executions rejected while probing don't spin).
+     */
+    public synchronized long getDeferMillis() {
+      return Math.max(deferMillis, openUntil - System.currentTimeMillis());
+    }
+
+    public synchronized State getState() {
+      return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+      return consecutiveFailures;
+    }
+
+    public synchronized Instant getOpenUntil() {
+      return state == State.CLOSED ? null : Instant.ofEpochMilli(openUntil);
+    }
+
+    public synchronized long getRejected() {
+      return rejected;
+    }
+
+  }
+
+}
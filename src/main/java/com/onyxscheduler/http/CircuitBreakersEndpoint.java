@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint exposing the state of http job callback endpoints circuit breakers, for
+ * example to check which endpoints are failing and when they are going to be probed again.
+ */
+public class CircuitBreakersEndpoint extends AbstractEndpoint<Map<String, Map<String, Object>>> {
+
+  private final CircuitBreakers circuitBreakers;
+
+  public CircuitBreakersEndpoint(CircuitBreakers circuitBreakers) {
+    super("circuitbreakers");
+    this.circuitBreakers = circuitBreakers;
+  }
+
+  @Override
+  public Map<String, Map<String, Object>> invoke() {
+    Map<String, Map<String, Object>> result = new TreeMap<>();
+    circuitBreakers.getCircuitBreakers().forEach((endpoint, circuitBreaker) -> {
+      Map<String, Object> details = new LinkedHashMap<>();
+      details.put("state", circuitBreaker.getState());
+      details.put("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+      details.put("openUntil", circuitBreaker.getOpenUntil());
+      details.put("rejected", circuitBreaker.getRejected());
+      result.put(endpoint, details);
+    });
+    return result;
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.quartz.JobKey;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smooths job firings, so lots of jobs firing at the same instant (like cron jobs fired every
+ * minute at second zero) don't saturate worker threads and callback endpoints all at once. <p/>
+ * Firings can be spread: triggers of each job are scheduled an offset within spreadMillis after
+ * the time specified for them (see Scheduler). The offset is derived from a hash of the job key,
+ * so it's the same for every trigger of a job (and in every node of a cluster) and jobs keep a
+ * steady period. <p/> Firings can also be rate limited: globally to globalRatePerSecond, and per
+ * job group to the rates in groupRates. Each firing reserves the next free slot of its group (and
+ * of the global rate), so a burst of firings gets consecutive slots. A firing whose slot is within
+ * maxWaitMillis waits for it, and otherwise http jobs defer their execution to the slot (see
+ * HttpJob). <p/> Deferred firings are exposed through actuator metrics endpoint.
+ */
+public class FiringThrottle implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "onyx.http.throttle.";
+
+  private final long spreadMillis;
+  private final Optional<FiringSlots> globalSlots;
+  private final Map<String, Double> groupRates;
+  private final long maxWaitNanos;
+  private final ConcurrentMap<String, GroupSlots> groupSlots = new ConcurrentHashMap<>();
+  private final AtomicLong globalDeferred = new AtomicLong();
+
+  /**
+   * @param spreadMillis window in which firings are spread, 0 to not spread them.
+   * @param globalRatePerSecond max firings per second of all jobs, 0 for no limit.
+   * @param groupRates max firings per second of jobs of each group, groups not included are not
+   * limited.
+   * @param maxWaitMillis max time a firing waits for its slot before being deferred.
+   */
+  public FiringThrottle(long spreadMillis, double globalRatePerSecond,
+                        Map<String, Double> groupRates, long maxWaitMillis) {
+    this.spreadMillis = spreadMillis;
+    this.globalSlots = globalRatePerSecond > 0
+        ? Optional.of(new FiringSlots(globalRatePerSecond)) : Optional.empty();
+    this.groupRates = groupRates;
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+  }
+
+  /**
+   * Gets how long after their specified time the triggers of the given job are scheduled.
+   *
+   * @return the offset, or 0 if firings are not spread.
+   */
+  public long getSpreadOffsetMillis(JobKey jobKey) {
+    if (spreadMillis <= 0) {
+      return 0;
+    }
+    /* String.hashCode of similar keys (like job-1 and job-2) only differ in last bits, which would
+    leave their firings a few millis apart, so a hash with good distribution is used instead */
+    int hash = Hashing.murmur3_32().hashString(jobKey.toString(), Charsets.UTF_8).asInt();
+    return Math.floorMod(hash, spreadMillis);
+  }
+
+  /**
+   * Reserves the next free slot to fire a job of the given group, waiting for it if it's within
+   * maxWaitMillis.
+   *
+   * @return how long the firing has to be deferred to reach its slot, or 0 if it can fire now.
+   */
+  public long reserve(String group) {
+    long nowNanos = System.nanoTime();
+    long slotNanos = nowNanos;
+    Double groupRate = groupRates.get(group);
+    if (groupRate != null) {
+      GroupSlots slots = groupSlots.computeIfAbsent(group, g -> new GroupSlots(groupRate));
+      slotNanos = slots.slots.reserve(nowNanos, nowNanos);
+      if (slotNanos - nowNanos > maxWaitNanos) {
+        slots.deferred.incrementAndGet();
+      }
+    }
+    /* the global slot is reserved at the time of the group one, so a deferred firing holds both
+    for the time it will actually run */
+    if (globalSlots.isPresent()) {
+      long groupSlotNanos = slotNanos;
+      slotNanos = globalSlots.get().reserve(nowNanos, groupSlotNanos);
+      if (slotNanos > groupSlotNanos && slotNanos - nowNanos > maxWaitNanos) {
+        globalDeferred.incrementAndGet();
+      }
+    }
+    long waitNanos = slotNanos - nowNanos;
+    if (waitNanos <= maxWaitNanos) {
+      Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+      return 0;
+    }
+    //rounded up so deferred firings don't fire before their slot
+    return TimeUnit.NANOSECONDS.toMillis(waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    ImmutableList.Builder<Metric<?>> metrics = ImmutableList.builder();
+    metrics.add(new Metric<>(METRIC_PREFIX + "deferred", globalDeferred.get()));
+    groupSlots.forEach((group, slots) -> metrics.add(
+        new Metric<>(METRIC_PREFIX + "group." + group + ".deferred", slots.deferred.get())));
+    return metrics.build();
+  }
+
+  /* time is split in slots of the length allowed between firings at the given rate, each one
+  taken by a single firing, so firings over the rate are queued instead of competing again for it
+  each time they are deferred. Slots may be reserved ahead of time (by firings deferred by their
+  group), so taken slots are kept as ranges of consecutive ones, which allows finding the first
+  free slot from a given time without walking through the firings queued before it */
+  private static class FiringSlots {
+
+    private final long intervalNanos;
+    //first slot of each range of taken slots to the slot following the range
+    private final TreeMap<Long, Long> takenSlots = new TreeMap<>();
+
+    private FiringSlots(double ratePerSecond) {
+      this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    }
+
+    /**
+     * @return the time the firing can run, which is fromNanos if its slot is free or otherwise the
+     * start of the first free slot after it.
+     */
+    private synchronized long reserve(long nowNanos, long fromNanos) {
+      long slot = getSlot(fromNanos);
+      long rangeStart = slot;
+      Map.Entry<Long, Long> range = takenSlots.floorEntry(slot);
+      if (range != null && range.getValue() >= slot) {
+        rangeStart = range.getKey();
+        slot = Math.max(slot, range.getValue());
+      }
+      Long nextRangeEnd = takenSlots.remove(slot + 1);
+      takenSlots.put(rangeStart, nextRangeEnd != null ? nextRangeEnd : slot + 1);
+      long currentSlot = getSlot(nowNanos);
+      while (!takenSlots.isEmpty() && takenSlots.firstEntry().getValue() <= currentSlot) {
+        takenSlots.pollFirstEntry();
+      }
+      return Math.max(fromNanos, slot * intervalNanos);
+    }
+
+    private long getSlot(long nanos) {
+      return Math.floorDiv(nanos, intervalNanos);
+    }
+
+  }
+
+  private static class GroupSlots {
+
+    private final FiringSlots slots;
+    private final AtomicLong deferred = new AtomicLong();
+
+    private GroupSlots(double ratePerSecond) {
+      this.slots = new FiringSlots(ratePerSecond);
+    }
+
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import com.google.common.collect.ImmutableList;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the amount of concurrent http job requests to each callback host, so a slow or
+ * unresponsive host can only hold its share of quartz worker threads (or async client
+ * connections) instead of all of them. <p/> Each host has a bulkhead with maxConcurrentPerHost
+ * permits (unless overridden in hostLimits), and a request which can't get a permit within
+ * maxWaitMillis is rejected, in which case http jobs defer their execution deferMillis (see
+ * HttpJob). <p/> Concurrent requests and rejections of each host are exposed through actuator
+ * metrics endpoint.
+ */
+public class HostBulkheads implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "onyx.http.bulkhead.";
+
+  private final int maxConcurrentPerHost;
+  private final Map<String, Integer> hostLimits;
+  private final long maxWaitMillis;
+  private final long deferMillis;
+  private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+  public HostBulkheads(int maxConcurrentPerHost, Map<String, Integer> hostLimits,
+                       long maxWaitMillis, long deferMillis) {
+    this.maxConcurrentPerHost = maxConcurrentPerHost;
+    this.hostLimits = hostLimits;
+    this.maxWaitMillis = maxWaitMillis;
+    this.deferMillis = deferMillis;
+  }
+
+  public long getDeferMillis() {
+    return deferMillis;
+  }
+
+  /**
+   * Tries to get a permit to send a request to the given host, waiting up to maxWaitMillis for one.
+   * When a permit is got, it must be released once the request completes.
+   *
+   * @return true if a permit was got, false if the host is saturated.
+   */
+  public boolean tryAcquire(String host) {
+    Bulkhead bulkhead = getBulkhead(host);
+    boolean acquired;
+    try {
+      acquired = bulkhead.permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      bulkhead.saturated.incrementAndGet();
+    }
+    return acquired;
+  }
+
+  private Bulkhead getBulkhead(String host) {
+    return bulkheads.computeIfAbsent(
+        host, h -> new Bulkhead(hostLimits.getOrDefault(h, maxConcurrentPerHost)));
+  }
+
+  public void release(String host) {
+    getBulkhead(host).permits.release();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    ImmutableList.Builder<Metric<?>> metrics = ImmutableList.builder();
+    bulkheads.forEach((host, bulkhead) -> {
+      String prefix = METRIC_PREFIX + host + ".";
+      metrics.add(new Metric<>(prefix + "active",
+                               bulkhead.limit - bulkhead.permits.availablePermits()));
+      metrics.add(new Metric<>(prefix + "limit", bulkhead.limit));
+      metrics.add(new Metric<>(prefix + "saturated", bulkhead.saturated.get()));
+    });
+    return metrics.build();
+  }
+
+  private static class Bulkhead {
+
+    private final int limit;
+    private final Semaphore permits;
+    private final AtomicLong saturated = new AtomicLong();
+
+    private Bulkhead(int limit) {
+      this.limit = limit;
+      this.permits = new Semaphore(limit);
+    }
+
+  }
+
+}
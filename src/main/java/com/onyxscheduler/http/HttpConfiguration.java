@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Http clients used by http jobs. <p/> Both sync and async clients use keep alive connection pools
+ * bounded in total and per route (callback host), so firing jobs against the same hosts don't pay
+ * connection setup each time.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpProperties.class)
+public class HttpConfiguration {
+
+  private static final String SYNC_POOL_NAME = "sync";
+  private static final String ASYNC_POOL_NAME = "async";
+
+  @Bean
+  public IdleConnectionEvictor idleConnectionEvictor(HttpProperties httpProperties) {
+    return new IdleConnectionEvictor(httpProperties.getIdleEvictionSeconds());
+  }
+
+  @Bean
+  public HttpConnectionPoolMetrics httpConnectionPoolMetrics() {
+    return new HttpConnectionPoolMetrics();
+  }
+
+  @Bean
+  public PoolingHttpClientConnectionManager httpClientConnectionManager(
+      HttpProperties httpProperties, IdleConnectionEvictor idleConnectionEvictor,
+      HttpConnectionPoolMetrics httpConnectionPoolMetrics) {
+    PoolingHttpClientConnectionManager connectionManager =
+        httpProperties.buildConnectionManager();
+    idleConnectionEvictor.register(connectionManager);
+    httpConnectionPoolMetrics.register(SYNC_POOL_NAME, connectionManager);
+    return connectionManager;
+  }
+
+  @Bean
+  public RestTemplate restTemplate(HttpProperties httpProperties,
+                                   PoolingHttpClientConnectionManager connectionManager) {
+    return new RestTemplate(httpProperties.buildRequestFactory(connectionManager));
+  }
+
+  /**
+   * Limits concurrent requests per callback host, so a misbehaving host can't take all the
+   * threads or connections available to http jobs.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "onyx.http.bulkhead", name = "enabled", havingValue = "true")
+  public static class BulkheadConfiguration {
+
+    @Bean
+    public HostBulkheads hostBulkheads(HttpProperties httpProperties) {
+      return httpProperties.getBulkhead().buildHostBulkheads();
+    }
+
+  }
+
+  /**
+   * Stops sending requests to callback endpoints which are down, so their jobs don't hold threads
+   * or connections waiting for timeouts.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "onyx.http.circuitBreaker", name = "enabled",
+      havingValue = "true")
+  public static class CircuitBreakerConfiguration {
+
+    @Bean
+    public CircuitBreakers circuitBreakers(HttpProperties httpProperties) {
+      return httpProperties.getCircuitBreaker().buildCircuitBreakers();
+    }
+
+    @Bean
+    public CircuitBreakersEndpoint circuitBreakersEndpoint(CircuitBreakers circuitBreakers) {
+      return new CircuitBreakersEndpoint(circuitBreakers);
+    }
+
+  }
+
+  /**
+   * Spreads and rate limits http job firings, so jobs sharing a cron expression don't saturate
+   * worker threads and callback endpoints at the same instant.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "onyx.http.throttle", name = "enabled", havingValue = "true")
+  public static class ThrottleConfiguration {
+
+    @Bean
+    public FiringThrottle firingThrottle(HttpProperties httpProperties) {
+      return httpProperties.getThrottle().buildFiringThrottle();
+    }
+
+  }
+
+  /**
+   * When coalescing is enabled identical requests fired at the same time (within
+   * coalescingWindowMillis) are sent once, with the response shared by all their jobs.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "onyx.http", name = "coalescing", havingValue = "true")
+  public static class CoalescingConfiguration {
+
+    @Bean
+    public RequestCoalescer requestCoalescer(HttpProperties httpProperties) {
+      return httpProperties.buildRequestCoalescer();
+    }
+
+  }
+
+  /**
+   * When async mode is enabled http jobs hand their requests to a non blocking client (with its
+   * own event loop) and release the quartz worker thread right away, handling the response in a
+   * callback.
+   */
+  @Configuration
+  @ConditionalOnProperty(prefix = "onyx.http", name = "async", havingValue = "true")
+  public static class AsyncHttpConfiguration {
+
+    @Bean
+    public PoolingNHttpClientConnectionManager asyncHttpClientConnectionManager(
+        HttpProperties httpProperties, IdleConnectionEvictor idleConnectionEvictor,
+        HttpConnectionPoolMetrics httpConnectionPoolMetrics) throws IOReactorException {
+      PoolingNHttpClientConnectionManager connectionManager =
+          httpProperties.buildAsyncConnectionManager();
+      idleConnectionEvictor.register(connectionManager);
+      httpConnectionPoolMetrics.register(ASYNC_POOL_NAME, connectionManager);
+      return connectionManager;
+    }
+
+    //defined as a bean so spring takes care of starting and closing the underlying client
+    @Bean
+    public HttpComponentsAsyncClientHttpRequestFactory asyncClientHttpRequestFactory(
+        HttpProperties httpProperties, PoolingNHttpClientConnectionManager connectionManager) {
+      return httpProperties.buildAsyncRequestFactory(connectionManager);
+    }
+
+    @Bean
+    public AsyncRestTemplate asyncRestTemplate(
+        HttpComponentsAsyncClientHttpRequestFactory requestFactory) {
+      return new AsyncRestTemplate(requestFactory);
+    }
+
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes utilization of http connection pools through actuator metrics endpoint, allowing to
+ * properly size them (onyx.http.maxTotal and onyx.http.maxPerRoute).
+ */
+public class HttpConnectionPoolMetrics implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "httpclient.";
+
+  private final Map<String, ConnPoolControl<HttpRoute>> pools = new LinkedHashMap<>();
+
+  public void register(String poolName, ConnPoolControl<HttpRoute> pool) {
+    pools.put(poolName, pool);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    ImmutableList.Builder<Metric<?>> metrics = ImmutableList.builder();
+    pools.forEach((name, pool) -> {
+      PoolStats stats = pool.getTotalStats();
+      String prefix = METRIC_PREFIX + name + ".";
+      metrics.add(new Metric<>(prefix + "leased", stats.getLeased()));
+      metrics.add(new Metric<>(prefix + "available", stats.getAvailable()));
+      metrics.add(new Metric<>(prefix + "pending", stats.getPending()));
+      metrics.add(new Metric<>(prefix + "max", stats.getMax()));
+    });
+    return metrics.build();
+  }
+
+}
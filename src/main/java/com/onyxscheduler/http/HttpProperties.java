@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "onyx.http")
+public class HttpProperties {
+
+  private boolean async;
+
+  private Integer ioThreads;
+
+  private int maxTotal = 200;
+
+  private int maxPerRoute = 50;
+
+  private int idleEvictionSeconds = 30;
+
+  private int connectTimeout = 5000;
+
+  private int readTimeout = 30000;
+
+  private BulkheadProperties bulkhead = new BulkheadProperties();
+
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+  private ThrottleProperties throttle = new ThrottleProperties();
+
+  private boolean coalescing;
+
+  private long coalescingWindowMillis = 1000;
+
+  public boolean isAsync() {
+    return async;
+  }
+
+  public void setAsync(boolean async) {
+    this.async = async;
+  }
+
+  public void setIoThreads(int ioThreads) {
+    this.ioThreads = ioThreads;
+  }
+
+  public void setMaxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+  }
+
+  public void setMaxPerRoute(int maxPerRoute) {
+    this.maxPerRoute = maxPerRoute;
+  }
+
+  public int getIdleEvictionSeconds() {
+    return idleEvictionSeconds;
+  }
+
+  public void setIdleEvictionSeconds(int idleEvictionSeconds) {
+    this.idleEvictionSeconds = idleEvictionSeconds;
+  }
+
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public void setReadTimeout(int readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+
+  public BulkheadProperties getBulkhead() {
+    return bulkhead;
+  }
+
+  public CircuitBreakerProperties getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public ThrottleProperties getThrottle() {
+    return throttle;
+  }
+
+  public boolean isCoalescing() {
+    return coalescing;
+  }
+
+  public void setCoalescing(boolean coalescing) {
+    this.coalescing = coalescing;
+  }
+
+  public void setCoalescingWindowMillis(long coalescingWindowMillis) {
+    this.coalescingWindowMillis = coalescingWindowMillis;
+  }
+
+  public RequestCoalescer buildRequestCoalescer() {
+    return new RequestCoalescer(coalescingWindowMillis);
+  }
+
+  public PoolingHttpClientConnectionManager buildConnectionManager() {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    return connectionManager;
+  }
+
+  public HttpComponentsClientHttpRequestFactory buildRequestFactory(
+      HttpClientConnectionManager connectionManager) {
+    CloseableHttpClient httpClient = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(buildRequestConfig())
+        .build();
+    return new HttpComponentsClientHttpRequestFactory(httpClient);
+  }
+
+  /* timeouts are not set in request factories, since spring 4.1 would then replace this config
+  (instead of merging it) with one without connection request timeout */
+  private RequestConfig buildRequestConfig() {
+    return RequestConfig.custom()
+        .setConnectTimeout(connectTimeout)
+        .setSocketTimeout(readTimeout)
+        //avoid waiting forever for a connection when the pool is exhausted
+        .setConnectionRequestTimeout(connectTimeout)
+        .build();
+  }
+
+  public PoolingNHttpClientConnectionManager buildAsyncConnectionManager()
+      throws IOReactorException {
+    IOReactorConfig.Builder reactorConfig = IOReactorConfig.custom();
+    if (ioThreads != null) {
+      reactorConfig.setIoThreadCount(ioThreads);
+    }
+    PoolingNHttpClientConnectionManager connectionManager =
+        new PoolingNHttpClientConnectionManager(
+            new DefaultConnectingIOReactor(reactorConfig.build()));
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+    return connectionManager;
+  }
+
+  public HttpComponentsAsyncClientHttpRequestFactory buildAsyncRequestFactory(
+      NHttpClientConnectionManager connectionManager) {
+    CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(buildRequestConfig())
+        .build();
+    return new HttpComponentsAsyncClientHttpRequestFactory(httpClient);
+  }
+
+  /**
+   * Configures per callback host bulkheads (see HostBulkheads). <p/> maxConcurrentPerHost is the
+   * default max amount of concurrent requests to each host, which can be overridden per host in
+   * hostLimits. Requests wait up to maxWaitMillis for the host to have room, and are otherwise
+   * deferred deferMillis.
+   */
+  public static class BulkheadProperties {
+
+    private int maxConcurrentPerHost = 10;
+
+    private Map<String, Integer> hostLimits = new HashMap<>();
+
+    private long maxWaitMillis = 0;
+
+    private long deferMillis = 1000;
+
+    public void setMaxConcurrentPerHost(int maxConcurrentPerHost) {
+      this.maxConcurrentPerHost = maxConcurrentPerHost;
+    }
+
+    public Map<String, Integer> getHostLimits() {
+      return hostLimits;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+      this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public void setDeferMillis(long deferMillis) {
+      this.deferMillis = deferMillis;
+    }
+
+    public HostBulkheads buildHostBulkheads() {
+      return new HostBulkheads(maxConcurrentPerHost, hostLimits, maxWaitMillis, deferMillis);
+    }
+  }
+
+  /**
+   * Configures per callback endpoint circuit breakers (see CircuitBreakers). <p/> Circuits open
+   * after failureThreshold consecutive failures, and are probed again after openMillis. Meanwhile
+   * executions are skipped or deferred (at least deferMillis) depending on openPolicy.
+   */
+  public static class CircuitBreakerProperties {
+
+    private int failureThreshold = 5;
+
+    private long openMillis = 30000;
+
+    private CircuitBreakers.OpenPolicy openPolicy = CircuitBreakers.OpenPolicy.DEFER;
+
+    private long deferMillis = 1000;
+
+    public void setFailureThreshold(int failureThreshold) {
+      this.failureThreshold = failureThreshold;
+    }
+
+    public void setOpenMillis(long openMillis) {
+      this.openMillis = openMillis;
+    }
+
+    public void setOpenPolicy(CircuitBreakers.OpenPolicy openPolicy) {
+      this.openPolicy = openPolicy;
+    }
+
+    public void setDeferMillis(long deferMillis) {
+      this.deferMillis = deferMillis;
+    }
+
+    public CircuitBreakers buildCircuitBreakers() {
+      return new CircuitBreakers(failureThreshold, openMillis, openPolicy, deferMillis);
+    }
+  }
+
+  /**
+   * Configures firing throttle (see FiringThrottle). <p/> Triggers are spread within spreadMillis
+   * of their specified time (0 disables spreading), and firings are limited to globalRatePerSecond
+   * (0 for no limit) and to the rate of their group in groupRates. Firings wait up to
+   * maxWaitMillis for their slot, and are otherwise deferred to it.
+   */
+  public static class ThrottleProperties {
+
+    private long spreadMillis = 0;
+
+    private double globalRatePerSecond = 0;
+
+    private Map<String, Double> groupRates = new HashMap<>();
+
+    private long maxWaitMillis = 0;
+
+    public void setSpreadMillis(long spreadMillis) {
+      this.spreadMillis = spreadMillis;
+    }
+
+    public void setGlobalRatePerSecond(double globalRatePerSecond) {
+      this.globalRatePerSecond = globalRatePerSecond;
+    }
+
+    public Map<String, Double> getGroupRates() {
+      return groupRates;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+      this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public FiringThrottle buildFiringThrottle() {
+      return new FiringThrottle(spreadMillis, globalRatePerSecond, groupRates, maxWaitMillis);
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically closes expired and idle connections of the http connection pools. <p/> Http client
+ * pools only check stale connections when leasing them, so without this connections closed by the
+ * remote side would stay in the pool (and count for its limits) until reused.
+ */
+public class IdleConnectionEvictor implements DisposableBean {
+
+  private final long idleSeconds;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("http-idle-connection-evictor")
+          .setDaemon(true)
+          .build());
+
+  public IdleConnectionEvictor(long idleSeconds) {
+    this.idleSeconds = idleSeconds;
+  }
+
+  public void register(HttpClientConnectionManager connectionManager) {
+    schedule(() -> {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleSeconds, TimeUnit.SECONDS);
+    });
+  }
+
+  public void register(NHttpClientConnectionManager connectionManager) {
+    schedule(() -> {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleSeconds, TimeUnit.SECONDS);
+    });
+  }
+
+  private void schedule(Runnable eviction) {
+    executor.scheduleWithFixedDelay(eviction, idleSeconds, idleSeconds, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses identical requests started within windowMillis of each other into a single one, whose
+ * result (or failure) is shared by all of them. <p/> This is meant for lots of jobs firing the
+ * same request at the same time (like several cron jobs pinging the same url every minute), which
+ * this way cost a single outbound request instead of one each. Requests are identified by a key
+ * which must be equal for requests considered identical (for example a list with their url,
+ * method, body and headers). <p/> The first request registered with a key leads it: it's the only
+ * one sent, so anything guarding sent requests (like host bulkheads or circuit breakers) only
+ * applies to it, while the rest follow it just waiting for its result. <p/> The amount of requests
+ * and how many of them were collapsed into another one are exposed through actuator metrics
+ * endpoint.
+ */
+public class RequestCoalescer implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "onyx.http.coalescer.";
+
+  //entries expire once the window of the first request is over, even if it's still in flight
+  private final Cache<Object, SettableListenableFuture<?>> requests;
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  public RequestCoalescer(long windowMillis) {
+    requests = CacheBuilder.newBuilder()
+        .expireAfterWrite(windowMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Registers a request, which is led by the caller unless an identical one was registered within
+   * the window, in which case the caller follows it.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CoalescedRequest<T> register(Object key) {
+    requestCount.incrementAndGet();
+    SettableListenableFuture<T> result = new SettableListenableFuture<>();
+    SettableListenableFuture<?> existing = requests.asMap().putIfAbsent(key, result);
+    if (existing != null) {
+      coalescedCount.incrementAndGet();
+      return new CoalescedRequest<>(key, (SettableListenableFuture<T>) existing, false);
+    }
+    return new CoalescedRequest<>(key, result, true);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return ImmutableList.of(
+        new Metric<>(METRIC_PREFIX + "requests", requestCount.get()),
+        new Metric<>(METRIC_PREFIX + "coalesced", coalescedCount.get()));
+  }
+
+  /**
+   * A registered request, whose leader must either complete it with the outcome of the request it
+   * sent or abandon it when the request is not sent.
+   */
+  public class CoalescedRequest<T> {
+
+    private final Object key;
+    private final SettableListenableFuture<T> result;
+    private final boolean leader;
+
+    private CoalescedRequest(Object key, SettableListenableFuture<T> result, boolean leader) {
+      this.key = key;
+      this.result = result;
+      this.leader = leader;
+    }
+
+    public boolean isLeader() {
+      return leader;
+    }
+
+    /**
+     * @return the result of the leader request, which fails with an AbandonedRequestException if
+     * the leader didn't send it.
+     */
+    public ListenableFuture<T> getResult() {
+      return result;
+    }
+
+    public void complete(T response) {
+      result.set(response);
+    }
+
+    public void fail(Throwable failure) {
+      result.setException(failure);
+    }
+
+    /**
+     * Unregisters the request, so identical requests started later don't follow it, and fails the
+     * requests following it with an AbandonedRequestException so they are sent on their own.
+     */
+    public void abandon() {
+      requests.asMap().remove(key, result);
+      result.setException(new AbandonedRequestException());
+    }
+
+  }
+
+  public static class AbandonedRequestException extends RuntimeException {
+
+    public AbandonedRequestException() {
+      super("The leader request was not sent");
+    }
+
+  }
+
+}
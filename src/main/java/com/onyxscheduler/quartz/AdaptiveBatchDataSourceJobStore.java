@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.JobPersistenceException;
+import org.quartz.spi.OperableTrigger;
+import org.springframework.scheduling.quartz.LocalDataSourceJobStore;
+
+import java.util.List;
+
+/**
+ * Spring DataSource based job store which adapts the amount of acquired triggers to the fire
+ * backlog.
+ *
+ * @see AdaptiveBatchSizer
+ */
+public class AdaptiveBatchDataSourceJobStore extends LocalDataSourceJobStore {
+
+  private final AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer();
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount,
+                                                   long timeWindow)
+      throws JobPersistenceException {
+    int limit = batchSizer.limit(maxCount);
+    List<OperableTrigger> triggers = super.acquireNextTriggers(noLaterThan, limit, timeWindow);
+    batchSizer.acquired(triggers, limit, System.currentTimeMillis());
+    return triggers;
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.OperableTrigger;
+
+import java.util.List;
+
+/**
+ * RAMJobStore which adapts the amount of acquired triggers to the fire backlog.
+ *
+ * @see AdaptiveBatchSizer
+ */
+public class AdaptiveBatchRAMJobStore extends RAMJobStore {
+
+  private final AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer();
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount,
+                                                   long timeWindow) {
+    int limit = batchSizer.limit(maxCount);
+    List<OperableTrigger> triggers = super.acquireNextTriggers(noLaterThan, limit, timeWindow);
+    batchSizer.acquired(triggers, limit, System.currentTimeMillis());
+    return triggers;
+  }
+
+}
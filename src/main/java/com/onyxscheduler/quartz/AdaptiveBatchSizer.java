@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.Trigger;
+
+import java.util.List;
+
+/**
+ * Adapts the amount of triggers acquired in each scheduler round trip to the measured fire
+ * backlog. <p/> When acquisitions come back full of triggers which are already due, the scheduler
+ * is lagging behind so batch size is doubled (up to the max count quartz allows, derived from
+ * configuration and available threads). When there is no backlog the batch is shrunk back, keeping
+ * lock hold time and unfairness between clustered nodes low while load is normal.
+ */
+public class AdaptiveBatchSizer {
+
+  private int batchSize = 1;
+  private int maxBatchSize = 1;
+
+  public synchronized int getBatchSize() {
+    return batchSize;
+  }
+
+  public synchronized int limit(int maxCount) {
+    maxBatchSize = Math.max(maxBatchSize, maxCount);
+    return Math.max(1, Math.min(batchSize, maxCount));
+  }
+
+  public synchronized void acquired(List<? extends Trigger> triggers, int limit, long now) {
+    long backlog = triggers.stream()
+        .filter(t -> t.getNextFireTime() != null && t.getNextFireTime().getTime() <= now)
+        .count();
+    if (backlog > 0 && triggers.size() >= limit) {
+      batchSize = Math.min(batchSize * 2, maxBatchSize);
+    } else if (backlog == 0) {
+      batchSize = Math.max(1, batchSize - 1);
+    }
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool which creates threads on demand (up to threadCount) and discards them after being
+ * idle for keepAliveSeconds, avoiding to keep a big fixed amount of threads just for peaks.
+ */
+public class ElasticThreadPool extends ExecutorThreadPool {
+
+  private static final int DEFAULT_KEEP_ALIVE_SECONDS = 60;
+
+  private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+  private final AtomicInteger threadNumber = new AtomicInteger();
+
+  public void setKeepAliveSeconds(int keepAliveSeconds) {
+    this.keepAliveSeconds = keepAliveSeconds;
+  }
+
+  @Override
+  protected ExecutorService buildExecutor(int threadCount) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        threadCount, threadCount, keepAliveSeconds, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> new Thread(runnable, getThreadNamePrefix() + threadNumber.incrementAndGet()));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+}
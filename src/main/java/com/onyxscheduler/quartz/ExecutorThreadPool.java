@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quartz thread pool which runs jobs in an ExecutorService. <p/> Since quartz scheduler thread asks
+ * the pool for available threads to decide how many triggers to acquire in each round, this class
+ * keeps track of the firings in progress and bounds them to threadCount, independently of how the
+ * executor manages its threads.
+ */
+public abstract class ExecutorThreadPool implements ThreadPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ExecutorThreadPool.class);
+  private static final int DEFAULT_THREAD_COUNT = 10;
+  private static final long AVAILABILITY_WAIT_IN_MILLIS = 500;
+
+  private final Object availabilityLock = new Object();
+  private int threadCount = DEFAULT_THREAD_COUNT;
+  private int busyCount;
+  private boolean isShutdown;
+  private String instanceName = "";
+  private ExecutorService executor;
+
+  public void setThreadCount(int threadCount) {
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  public int getPoolSize() {
+    return threadCount;
+  }
+
+  @Override
+  public void setInstanceId(String schedInstId) {
+  }
+
+  @Override
+  public void setInstanceName(String schedName) {
+    this.instanceName = schedName;
+  }
+
+  protected String getThreadNamePrefix() {
+    return instanceName + "_Worker-";
+  }
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+    if (threadCount <= 0) {
+      throw new SchedulerConfigException("threadCount must be greater than 0");
+    }
+    executor = buildExecutor(threadCount);
+  }
+
+  protected abstract ExecutorService buildExecutor(int threadCount)
+      throws SchedulerConfigException;
+
+  @Override
+  public boolean runInThread(Runnable runnable) {
+    if (runnable == null || !waitAndReserve()) {
+      return false;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          runnable.run();
+        } finally {
+          release();
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      LOG.warn("Job execution rejected by executor", e);
+      release();
+      return false;
+    }
+  }
+
+  private boolean waitAndReserve() {
+    synchronized (availabilityLock) {
+      waitForAvailability();
+      /* waiting stops without availability when shutting down or interrupted (keeping the
+      interrupt flag set) */
+      if (isShutdown || busyCount >= threadCount) {
+        return false;
+      }
+      busyCount++;
+      return true;
+    }
+  }
+
+  private void waitForAvailability() {
+    while (busyCount >= threadCount && !isShutdown) {
+      try {
+        availabilityLock.wait(AVAILABILITY_WAIT_IN_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void release() {
+    synchronized (availabilityLock) {
+      busyCount--;
+      availabilityLock.notifyAll();
+    }
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+    synchronized (availabilityLock) {
+      waitForAvailability();
+      return Math.max(threadCount - busyCount, 0);
+    }
+  }
+
+  @Override
+  public void shutdown(boolean waitForJobsToComplete) {
+    synchronized (availabilityLock) {
+      isShutdown = true;
+      availabilityLock.notifyAll();
+    }
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    if (waitForJobsToComplete) {
+      try {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+}
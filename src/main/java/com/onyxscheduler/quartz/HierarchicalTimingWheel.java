@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Hierarchical timing wheel keeping entries ordered by time with O(1) insertion and removal. <p/>
+ * Time is split in ticks of tickMillis, and entries are placed in one of LEVELS wheels of SLOTS
+ * buckets each, where each level covers SLOTS times the time span of the previous one (with 1
+ * second ticks: around 1 minute, 1 hour, 3 days and 6 months), and entries beyond the last level
+ * are kept in an overflow bucket. As time advances entries of higher levels cascade to lower ones,
+ * until they are due (their tick is not after current tick) and are moved to a small ordered set
+ * of ready entries. <p/> This way only ready entries (the ones due up to the last time the wheel
+ * was advanced to) pay for ordering, instead of all of them as in a TreeSet. <p/> This class is not
+ * thread safe, users must synchronize access to it.
+ */
+class HierarchicalTimingWheel<E extends HierarchicalTimingWheel.Entry> {
+
+  static final int BITS = 6;
+  static final int SLOTS = 1 << BITS;
+  static final int LEVELS = 4;
+  private static final long MASK = SLOTS - 1;
+
+  private static final int NONE = -2;
+  private static final int READY = -1;
+  private static final int OVERFLOW = LEVELS;
+
+  /**
+   * Base class for wheel entries, which keeps the location of the entry in the wheel to allow
+   * constant time removal. An entry can only be in one wheel at a time.
+   */
+  abstract static class Entry {
+
+    long time;
+    int level = NONE;
+    Set<? extends Entry> bucket;
+
+    long getTime() {
+      return time;
+    }
+  }
+
+  private final long tickMillis;
+  private final List<List<Set<E>>> levels = new ArrayList<>(LEVELS);
+  private final int[] levelSizes = new int[LEVELS];
+  private final Set<E> overflow = new HashSet<>();
+  private final NavigableSet<E> ready;
+  private long currentTick;
+  private int size;
+
+  /**
+   * @param tickMillis duration of each tick, which is the granularity of the wheel levels.
+   * @param startTime time from which the wheel starts advancing.
+   * @param tieBreaker order between entries with same time.
+   */
+  HierarchicalTimingWheel(long tickMillis, long startTime, Comparator<? super E> tieBreaker) {
+    this.tickMillis = tickMillis;
+    this.currentTick = toTick(startTime);
+    this.ready = new TreeSet<>(Comparator.<E>comparingLong(Entry::getTime).thenComparing(tieBreaker));
+    for (int level = 0; level < LEVELS; level++) {
+      List<Set<E>> buckets = new ArrayList<>(SLOTS);
+      for (int slot = 0; slot < SLOTS; slot++) {
+        buckets.add(new HashSet<>());
+      }
+      levels.add(buckets);
+    }
+  }
+
+  private long toTick(long time) {
+    return Math.floorDiv(time, tickMillis);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(E entry) {
+    return entry.level != NONE;
+  }
+
+  /**
+   * Adds the entry with the given time. If the entry was already in the wheel it is first removed.
+   */
+  public void add(E entry, long time) {
+    remove(entry);
+    entry.time = time;
+    place(entry);
+    size++;
+  }
+
+  private void place(E entry) {
+    long tick = toTick(entry.time);
+    if (tick <= currentTick) {
+      locate(entry, READY, null);
+      ready.add(entry);
+      return;
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      int upperShift = BITS * (level + 1);
+      //entries go to the lowest level in which they share upper digits with current tick
+      if (tick >> upperShift == currentTick >> upperShift) {
+        Set<E> bucket = getBucket(level, tick);
+        locate(entry, level, bucket);
+        bucket.add(entry);
+        levelSizes[level]++;
+        return;
+      }
+    }
+    locate(entry, OVERFLOW, overflow);
+    overflow.add(entry);
+  }
+
+  private Set<E> getBucket(int level, long tick) {
+    return levels.get(level).get((int) ((tick >> (BITS * level)) & MASK));
+  }
+
+  private static void locate(Entry entry, int level, Set<? extends Entry> bucket) {
+    entry.level = level;
+    entry.bucket = bucket;
+  }
+
+  public boolean remove(E entry) {
+    if (entry.level == NONE) {
+      return false;
+    }
+    if (entry.level == READY) {
+      ready.remove(entry);
+    } else {
+      entry.bucket.remove(entry);
+      if (entry.level != OVERFLOW) {
+        levelSizes[entry.level]--;
+      }
+    }
+    locate(entry, NONE, null);
+    size--;
+    return true;
+  }
+
+  /**
+   * Gets the first entry (by time and then tie breaker) if its time is not later than the given
+   * one, otherwise null. <p/> The entry is not removed from the wheel.
+   */
+  public E first(long noLaterThan) {
+    advanceTo(toTick(noLaterThan));
+    if (ready.isEmpty()) {
+      return null;
+    }
+    E first = ready.first();
+    return first.time <= noLaterThan ? first : null;
+  }
+
+  private void advanceTo(long targetTick) {
+    while (currentTick < targetTick) {
+      int lowestLevel = findLowestNonEmptyLevel();
+      if (lowestLevel == OVERFLOW) {
+        /* levels are empty, so jump right to the block of the earliest overflowed entry (or to the
+        target if there is none before it) instead of going through all blocks in between */
+        long overflowBlockTick = overflow.stream()
+            .mapToLong(entry -> toTick(entry.time) >> (BITS * LEVELS) << (BITS * LEVELS))
+            .min()
+            .orElse(Long.MAX_VALUE);
+        if (overflowBlockTick > targetTick) {
+          currentTick = targetTick;
+          return;
+        }
+        currentTick = overflowBlockTick;
+      } else if (lowestLevel == 0) {
+        currentTick++;
+      } else {
+        //there is nothing to do until the next time a non empty level has to be cascaded
+        int shift = BITS * lowestLevel;
+        currentTick = Math.min(targetTick, ((currentTick >> shift) + 1) << shift);
+      }
+      cascade();
+      replaceAll(getBucket(0, currentTick), 0);
+    }
+  }
+
+  private int findLowestNonEmptyLevel() {
+    for (int level = 0; level < LEVELS; level++) {
+      if (levelSizes[level] > 0) {
+        return level;
+      }
+    }
+    return OVERFLOW;
+  }
+
+  /* cascades entries of levels whose digit has just changed, starting from the highest one so its
+  entries can keep cascading to lower levels */
+  private void cascade() {
+    int wrappedLevels = 0;
+    while (wrappedLevels < LEVELS
+           && (currentTick & ((1L << (BITS * (wrappedLevels + 1))) - 1)) == 0) {
+      wrappedLevels++;
+    }
+    for (int level = wrappedLevels; level >= 1; level--) {
+      replaceAll(level == OVERFLOW ? overflow : getBucket(level, currentTick), level);
+    }
+  }
+
+  private void replaceAll(Set<E> bucket, int level) {
+    if (bucket.isEmpty()) {
+      return;
+    }
+    List<E> entries = new ArrayList<>(bucket);
+    bucket.clear();
+    if (level != OVERFLOW) {
+      levelSizes[level] -= entries.size();
+    }
+    entries.forEach(this::place);
+  }
+
+  public void clear() {
+    levels.forEach(buckets -> buckets.forEach(bucket -> {
+      bucket.forEach(entry -> locate(entry, NONE, null));
+      bucket.clear();
+    }));
+    overflow.forEach(entry -> locate(entry, NONE, null));
+    overflow.clear();
+    ready.forEach(entry -> locate(entry, NONE, null));
+    ready.clear();
+    for (int level = 0; level < LEVELS; level++) {
+      levelSizes[level] = 0;
+    }
+    size = 0;
+  }
+
+}
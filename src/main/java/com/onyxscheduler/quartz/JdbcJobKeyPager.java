@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.base.Throwables;
+
+import com.onyxscheduler.domain.JobKey;
+import com.onyxscheduler.domain.JobKeyPager;
+
+import org.quartz.SchedulerException;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JobKeyPager querying quartz jdbc job store tables directly, so each page is a single keyset
+ * query fetching just the page keys. <p/> The query is served by quartz IDX_QRTZ_J_GRP index on
+ * (SCHED_NAME, JOB_GROUP), since InnoDB secondary indexes also hold the primary key columns and are
+ * so ordered by job group and then job name. <p/> Existence of several keys is also checked with
+ * a single query on the primary key.
+ */
+public class JdbcJobKeyPager implements JobKeyPager {
+
+  private static final String TABLE_JOB_DETAILS =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_JOB_DETAILS;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final org.quartz.Scheduler quartzScheduler;
+
+  public JdbcJobKeyPager(JdbcTemplate jdbcTemplate, org.quartz.Scheduler quartzScheduler) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.quartzScheduler = quartzScheduler;
+  }
+
+  @Override
+  public List<JobKey> findJobKeys(Optional<String> group, Optional<JobKey> after, int limit) {
+    StringBuilder sql = new StringBuilder("SELECT JOB_GROUP, JOB_NAME FROM ")
+        .append(TABLE_JOB_DETAILS)
+        .append(" WHERE SCHED_NAME = ?");
+    List<Object> args = new ArrayList<>();
+    args.add(getSchedulerName());
+    if (group.isPresent()) {
+      sql.append(" AND JOB_GROUP = ?");
+      args.add(group.get());
+    }
+    if (after.isPresent()) {
+      sql.append(" AND (JOB_GROUP > ? OR (JOB_GROUP = ? AND JOB_NAME > ?))");
+      args.add(after.get().getGroup());
+      args.add(after.get().getGroup());
+      args.add(after.get().getName());
+    }
+    sql.append(" ORDER BY JOB_GROUP, JOB_NAME LIMIT ?");
+    args.add(limit);
+    return jdbcTemplate.query(sql.toString(), args.toArray(),
+                              (rs, rowNum) -> new JobKey(rs.getString(1), rs.getString(2)));
+  }
+
+  @Override
+  public Set<JobKey> findExistingJobKeys(Collection<JobKey> jobKeys) {
+    if (jobKeys.isEmpty()) {
+      return new HashSet<>();
+    }
+    //ORed equalities instead of a row constructor IN, which mysql 5.6 doesn't resolve with indexes
+    String sql = "SELECT JOB_GROUP, JOB_NAME FROM " + TABLE_JOB_DETAILS
+                 + " WHERE SCHED_NAME = ? AND ("
+                 + jobKeys.stream()
+                     .map(jobKey -> "(JOB_GROUP = ? AND JOB_NAME = ?)")
+                     .collect(Collectors.joining(" OR "))
+                 + ")";
+    List<Object> args = new ArrayList<>();
+    args.add(getSchedulerName());
+    jobKeys.forEach(jobKey -> {
+      args.add(jobKey.getGroup());
+      args.add(jobKey.getName());
+    });
+    return new HashSet<>(jdbcTemplate.query(
+        sql, args.toArray(), (rs, rowNum) -> new JobKey(rs.getString(1), rs.getString(2))));
+  }
+
+  private String getSchedulerName() {
+    try {
+      return quartzScheduler.getSchedulerName();
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+
+import com.onyxscheduler.domain.Job;
+import com.onyxscheduler.domain.JobKey;
+import com.onyxscheduler.domain.JobKeyPager;
+import com.onyxscheduler.domain.JobReader;
+import com.onyxscheduler.domain.MergingJobKeyPager;
+import com.onyxscheduler.domain.QuartzSchedulerRouter;
+
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerException;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.simpl.CascadingClassLoadHelper;
+import org.quartz.spi.ClassLoadHelper;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * JobReader querying quartz jdbc job store tables of a read replica (see JobStoreReplica), so
+ * read only queries don't compete with trigger acquisition and firing in the primary database.
+ * <p/> Job details and triggers are read with quartz jdbc delegate, so they are built as quartz
+ * scheduler would, and the reader is only available while replica lag is within its max lag.
+ */
+public class JdbcJobReader implements JobReader {
+
+  private static final String TABLE_JOB_DETAILS =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_JOB_DETAILS;
+
+  private final JobStoreReplica replica;
+  private final QuartzSchedulerRouter quartzSchedulerRouter;
+  private final ClassLoadHelper classLoadHelper = new CascadingClassLoadHelper();
+  //delegates are bound to a scheduler name, so there is one per quartz scheduler
+  private final Map<String, StdJDBCDelegate> delegates = new ConcurrentHashMap<>();
+  private final JobKeyPager jobKeyPager;
+
+  public JdbcJobReader(JobStoreReplica replica, QuartzSchedulerRouter quartzSchedulerRouter) {
+    this.replica = replica;
+    this.quartzSchedulerRouter = quartzSchedulerRouter;
+    classLoadHelper.initialize();
+    List<JobKeyPager> pagers = quartzSchedulerRouter.getSchedulers().stream()
+        .map(scheduler -> new JdbcJobKeyPager(replica.getJdbcTemplate(), scheduler))
+        .collect(Collectors.toList());
+    this.jobKeyPager = pagers.size() == 1 ? pagers.get(0) : new MergingJobKeyPager(pagers);
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return replica.isWithinMaxLag();
+  }
+
+  @Override
+  public Set<JobKey> findJobKeys(Optional<String> group) {
+    List<String> schedulerNames = new ArrayList<>();
+    for (org.quartz.Scheduler quartzScheduler : quartzSchedulerRouter.getSchedulers()) {
+      schedulerNames.add(getSchedulerName(quartzScheduler));
+    }
+    StringBuilder sql = new StringBuilder("SELECT JOB_GROUP, JOB_NAME FROM ")
+        .append(TABLE_JOB_DETAILS)
+        .append(" WHERE SCHED_NAME IN (")
+        .append(Joiner.on(", ").join(Collections.nCopies(schedulerNames.size(), "?")))
+        .append(")");
+    List<Object> args = new ArrayList<>(schedulerNames);
+    if (group.isPresent()) {
+      sql.append(" AND JOB_GROUP = ?");
+      args.add(group.get());
+    }
+    return new HashSet<>(replica.getJdbcTemplate().query(
+        sql.toString(), args.toArray(),
+        (rs, rowNum) -> new JobKey(rs.getString(1), rs.getString(2))));
+  }
+
+  @Override
+  public JobKeyPager getJobKeyPager() {
+    return jobKeyPager;
+  }
+
+  private static String getSchedulerName(org.quartz.Scheduler quartzScheduler) {
+    try {
+      return quartzScheduler.getSchedulerName();
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  @Override
+  public Optional<Job> findJob(JobKey jobKey) {
+    org.quartz.JobKey quartzJobKey = jobKey.buildQuartzJobKey();
+    StdJDBCDelegate delegate = getDelegate(
+        getSchedulerName(quartzSchedulerRouter.getScheduler(quartzJobKey)));
+    try (Connection connection = replica.getJdbcTemplate().getDataSource().getConnection()) {
+      JobDetail jobDetail = delegate.selectJobDetail(connection, quartzJobKey, classLoadHelper);
+      if (jobDetail == null) {
+        return Optional.empty();
+      }
+      return Optional.of(Job.fromQuartzJobDetailAndTriggers(
+          jobDetail, ImmutableSet.copyOf(delegate.selectTriggersForJob(connection, quartzJobKey))));
+    } catch (SQLException | ClassNotFoundException | IOException | JobPersistenceException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  private StdJDBCDelegate getDelegate(String schedulerName) {
+    return delegates.computeIfAbsent(schedulerName, name -> {
+      StdJDBCDelegate delegate = new StdJDBCDelegate();
+      try {
+        //jdbc job stores are configured to store job data as properties
+        delegate.initialize(LoggerFactory.getLogger(JdbcJobReader.class),
+                            Constants.DEFAULT_TABLE_PREFIX, name, null, classLoadHelper, true,
+                            null);
+      } catch (NoSuchDelegateException e) {
+        throw Throwables.propagate(e);
+      }
+      return delegate;
+    });
+  }
+
+}
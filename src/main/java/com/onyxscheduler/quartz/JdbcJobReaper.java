@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.jdbcjobstore.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically removes jobs left behind by quartz jdbc job store, which otherwise grow its tables
+ * (and every index on them) without bound. <p/> Non durable jobs are removed by quartz once their
+ * last trigger completes, but triggers may be left in COMPLETE state (for example when a node
+ * dies between firing a one shot trigger and completing its job, or when a misfire policy leaves
+ * no more fire times), and then their jobs are never removed. Jobs whose triggers are all complete
+ * (and not being fired) are deleted, and optionally copied to ONYX_JOB_ARCHIVE table before. <p/>
+ * In clustered job stores fired triggers of instances which no longer check in are only recovered
+ * by other instances while they have a scheduler state row, so rows older than
+ * orphanedFiredTriggerAgeMillis from instances without it are deleted too. <p/> Each interval, at
+ * most batchSize jobs and fired triggers are removed per scheduler, each batch in its own
+ * transaction, so removal never holds quartz locks for long nor competes with trigger acquisition
+ * for a significant share of the database. Backlog and amount of removed rows are exposed through
+ * actuator metrics endpoint.
+ */
+public class JdbcJobReaper implements PublicMetrics, InitializingBean, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcJobReaper.class);
+
+  private static final String METRIC_PREFIX = "onyx.reaper.";
+  private static final String TABLE_TRIGGERS =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_TRIGGERS;
+  private static final String TABLE_JOB_DETAILS =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_JOB_DETAILS;
+  private static final String TABLE_FIRED_TRIGGERS =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_FIRED_TRIGGERS;
+  private static final String TABLE_SCHEDULER_STATE =
+      Constants.DEFAULT_TABLE_PREFIX + Constants.TABLE_SCHEDULER_STATE;
+  static final String TABLE_JOB_ARCHIVE = "ONYX_JOB_ARCHIVE";
+  //backlog is counted up to this amount, to avoid counting millions of rows on each interval
+  static final int MAX_COUNTED_BACKLOG = 100000;
+
+  //served by acquisition, triggers of job and fired triggers by trigger indexes
+  private static final String SELECT_COMPLETED_JOBS = "SELECT DISTINCT T.JOB_NAME, T.JOB_GROUP"
+      + " FROM " + TABLE_TRIGGERS + " T WHERE T.SCHED_NAME = ? AND T.TRIGGER_STATE = ?"
+      + " AND NOT EXISTS (SELECT 1 FROM " + TABLE_TRIGGERS + " O WHERE O.SCHED_NAME = T.SCHED_NAME"
+      + " AND O.JOB_NAME = T.JOB_NAME AND O.JOB_GROUP = T.JOB_GROUP AND O.TRIGGER_STATE <> ?)"
+      + " AND NOT EXISTS (SELECT 1 FROM " + TABLE_FIRED_TRIGGERS + " F"
+      + " WHERE F.SCHED_NAME = T.SCHED_NAME AND F.TRIGGER_NAME = T.TRIGGER_NAME"
+      + " AND F.TRIGGER_GROUP = T.TRIGGER_GROUP)"
+      + " AND EXISTS (SELECT 1 FROM " + TABLE_JOB_DETAILS + " J WHERE J.SCHED_NAME = T.SCHED_NAME"
+      + " AND J.JOB_NAME = T.JOB_NAME AND J.JOB_GROUP = T.JOB_GROUP AND J.IS_DURABLE = ?)"
+      + " LIMIT ?";
+  private static final String COUNT_COMPLETED_TRIGGERS = "SELECT COUNT(*) FROM (SELECT 1 FROM "
+      + TABLE_TRIGGERS + " WHERE SCHED_NAME = ? AND TRIGGER_STATE = ? LIMIT ?) B";
+  private static final String DELETE_ORPHANED_FIRED_TRIGGERS = "DELETE FROM "
+      + TABLE_FIRED_TRIGGERS + " WHERE SCHED_NAME = ? AND FIRED_TIME < ?"
+      + " AND INSTANCE_NAME NOT IN (SELECT INSTANCE_NAME FROM " + TABLE_SCHEDULER_STATE
+      + " WHERE SCHED_NAME = ?) LIMIT ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final List<Scheduler> schedulers;
+  private final int batchSize;
+  private final long intervalMillis;
+  private final boolean archive;
+  private final long orphanedFiredTriggerAgeMillis;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("job-reaper")
+          .setDaemon(true)
+          .build());
+  private final AtomicLong reapedJobs = new AtomicLong();
+  private final AtomicLong archivedJobs = new AtomicLong();
+  private final AtomicLong deletedFiredTriggers = new AtomicLong();
+  private volatile long backlog;
+  private volatile double reapedJobsPerSecond;
+
+  public JdbcJobReaper(JdbcTemplate jdbcTemplate, List<Scheduler> schedulers, int batchSize,
+                       long intervalMillis, boolean archive, long orphanedFiredTriggerAgeMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schedulers = schedulers;
+    this.batchSize = batchSize;
+    this.intervalMillis = intervalMillis;
+    this.archive = archive;
+    this.orphanedFiredTriggerAgeMillis = orphanedFiredTriggerAgeMillis;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executor.scheduleWithFixedDelay(this::reapSafely, intervalMillis, intervalMillis,
+                                    TimeUnit.MILLISECONDS);
+  }
+
+  //the executor stops running the task if it throws an exception
+  private void reapSafely() {
+    try {
+      long start = System.currentTimeMillis();
+      long reaped = reap();
+      //throughput includes the delay between intervals, since that is what limits it
+      long elapsedMillis = System.currentTimeMillis() - start + intervalMillis;
+      reapedJobsPerSecond = reaped * 1000.0 / elapsedMillis;
+    } catch (RuntimeException | SchedulerException e) {
+      LOG.error("Problem reaping jobs", e);
+    }
+  }
+
+  /**
+   * Removes a batch of completed jobs and orphaned fired triggers from each scheduler.
+   *
+   * @return the amount of removed jobs.
+   */
+  long reap() throws SchedulerException {
+    long reaped = 0;
+    long currentBacklog = 0;
+    for (Scheduler scheduler : schedulers) {
+      String schedulerName = scheduler.getSchedulerName();
+      List<JobKey> jobKeys = jdbcTemplate.query(
+          SELECT_COMPLETED_JOBS,
+          new Object[]{schedulerName, Constants.STATE_COMPLETE, Constants.STATE_COMPLETE, false,
+                       batchSize},
+          (rs, rowNum) -> new JobKey(rs.getString(1), rs.getString(2)));
+      if (!jobKeys.isEmpty()) {
+        if (archive) {
+          archivedJobs.addAndGet(archiveJobs(schedulerName, jobKeys));
+        }
+        scheduler.deleteJobs(jobKeys);
+        reapedJobs.addAndGet(jobKeys.size());
+        reaped += jobKeys.size();
+        LOG.info("Reaped {} completed jobs from {}", jobKeys.size(), schedulerName);
+      }
+      //when the batch is not full there is nothing left, otherwise remaining triggers are counted
+      currentBacklog += jobKeys.size() < batchSize ? 0 : jdbcTemplate.queryForObject(
+          COUNT_COMPLETED_TRIGGERS, Long.class, schedulerName, Constants.STATE_COMPLETE,
+          MAX_COUNTED_BACKLOG);
+      if (scheduler.getMetaData().isJobStoreClustered()) {
+        deletedFiredTriggers.addAndGet(jdbcTemplate.update(
+            DELETE_ORPHANED_FIRED_TRIGGERS, schedulerName,
+            System.currentTimeMillis() - orphanedFiredTriggerAgeMillis, schedulerName,
+            batchSize));
+      }
+    }
+    backlog = currentBacklog;
+    return reaped;
+  }
+
+  private int archiveJobs(String schedulerName, List<JobKey> jobKeys) {
+    List<Object> args = new ArrayList<>(2 + jobKeys.size() * 2);
+    args.add(System.currentTimeMillis());
+    args.add(schedulerName);
+    for (JobKey jobKey : jobKeys) {
+      args.add(jobKey.getName());
+      args.add(jobKey.getGroup());
+    }
+    return jdbcTemplate.update(
+        "INSERT INTO " + TABLE_JOB_ARCHIVE + " (SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME,"
+        + " JOB_DATA, ARCHIVED_AT) SELECT SCHED_NAME, JOB_NAME, JOB_GROUP, JOB_CLASS_NAME,"
+        + " JOB_DATA, ? FROM " + TABLE_JOB_DETAILS + " WHERE SCHED_NAME = ? AND ("
+        + Joiner.on(" OR ").join(Collections.nCopies(jobKeys.size(),
+                                                     "(JOB_NAME = ? AND JOB_GROUP = ?)"))
+        + ")", args.toArray());
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return ImmutableList.of(
+        new Metric<>(METRIC_PREFIX + "backlog", backlog),
+        new Metric<>(METRIC_PREFIX + "reapedJobs", reapedJobs.get()),
+        new Metric<>(METRIC_PREFIX + "reapedJobsPerSecond", reapedJobsPerSecond),
+        new Metric<>(METRIC_PREFIX + "archivedJobs", archivedJobs.get()),
+        new Metric<>(METRIC_PREFIX + "deletedFiredTriggers", deletedFiredTriggers.get()));
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection pool used by jdbc job store, which keeps track of the time threads wait to get a
+ * connection. <p/> Quartz worker threads need a connection to complete each fired job, so when the
+ * pool is too small for the amount of threads they queue up waiting for connections, which shows
+ * up as growing wait times and timeouts (see {@link JobStoreDataSourceMetrics}).
+ */
+public class JobStoreDataSource extends org.apache.tomcat.jdbc.pool.DataSource {
+
+  private final AtomicLong borrowedConnections = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+
+  public JobStoreDataSource(PoolConfiguration poolProperties) {
+    super(poolProperties);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    long start = System.nanoTime();
+    try {
+      Connection connection = super.getConnection();
+      borrowedConnections.incrementAndGet();
+      return connection;
+    } catch (PoolExhaustedException e) {
+      //other failures (like the database being unreachable) are not about waiting for the pool
+      timeouts.incrementAndGet();
+      throw e;
+    } finally {
+      long waited = System.nanoTime() - start;
+      waitNanos.addAndGet(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+  }
+
+  public long getBorrowedConnections() {
+    return borrowedConnections.get();
+  }
+
+  public long getWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+  }
+
+  public long getMaxObservedWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+  }
+
+  public long getTimeouts() {
+    return timeouts.get();
+  }
+
+}
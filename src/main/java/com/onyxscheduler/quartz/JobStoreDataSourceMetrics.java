@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.collect.ImmutableList;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Collection;
+
+/**
+ * Exposes utilization of jdbc job store connection pool through actuator metrics endpoint,
+ * allowing to properly size it (quartz.jobstore.pool.maxActive). <p/> waiting is the amount of
+ * threads currently waiting for a connection, and waitMillis the accumulated time threads waited
+ * for one, so its rate against borrowed connections gives the average wait.
+ */
+public class JobStoreDataSourceMetrics implements PublicMetrics {
+
+  private static final String METRIC_PREFIX = "onyx.jobstore.pool.";
+
+  private final JobStoreDataSource dataSource;
+
+  public JobStoreDataSourceMetrics(JobStoreDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return ImmutableList.of(
+        new Metric<>(METRIC_PREFIX + "active", dataSource.getActive()),
+        new Metric<>(METRIC_PREFIX + "idle", dataSource.getIdle()),
+        new Metric<>(METRIC_PREFIX + "max", dataSource.getMaxActive()),
+        new Metric<>(METRIC_PREFIX + "waiting", dataSource.getWaitCount()),
+        new Metric<>(METRIC_PREFIX + "borrowed", dataSource.getBorrowedConnections()),
+        new Metric<>(METRIC_PREFIX + "waitMillis", dataSource.getWaitMillis()),
+        new Metric<>(METRIC_PREFIX + "maxObservedWaitMillis",
+                   dataSource.getMaxObservedWaitMillis()),
+        new Metric<>(METRIC_PREFIX + "timeouts", dataSource.getTimeouts()));
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read replica of jdbc job store database, which keeps track of how far behind the primary
+ * database it is. <p/> Every heartbeatMillis the current time is written to ONYX_HEARTBEAT table
+ * in the primary database and read back from the replica, so the age of the heartbeat read from
+ * the replica bounds how stale its data is (regardless of the replication technology in use, and
+ * without requiring replication privileges). The replica is only considered usable while that age
+ * is within maxLagMillis, so when replication lags, breaks or the replica is unreachable reads go
+ * back to the primary database. <p/> Since the heartbeat is written periodically, maxLagMillis
+ * should be several times heartbeatMillis. Replica lag is exposed through actuator metrics
+ * endpoint.
+ */
+public class JobStoreReplica implements PublicMetrics, InitializingBean, DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JobStoreReplica.class);
+
+  private static final String METRIC_PREFIX = "onyx.jobstore.replica.";
+  static final String TABLE_HEARTBEAT = "ONYX_HEARTBEAT";
+  //all nodes write the same row, keeping the latest heartbeat among them
+  private static final String UPSERT_HEARTBEAT = "INSERT INTO " + TABLE_HEARTBEAT
+      + " (ID, BEAT_TIME) VALUES (1, ?)"
+      + " ON DUPLICATE KEY UPDATE BEAT_TIME = GREATEST(BEAT_TIME, VALUES(BEAT_TIME))";
+  private static final String SELECT_HEARTBEAT =
+      "SELECT BEAT_TIME FROM " + TABLE_HEARTBEAT + " WHERE ID = 1";
+
+  private final JdbcTemplate primaryJdbcTemplate;
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final long heartbeatMillis;
+  private final long maxLagMillis;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+          .setNameFormat("replica-heartbeat")
+          .setDaemon(true)
+          .build());
+  //0 until a heartbeat is read from the replica, so it's not used until then
+  private volatile long replicaHeartbeat;
+
+  public JobStoreReplica(JdbcTemplate primaryJdbcTemplate, PoolConfiguration poolConfiguration,
+                         long heartbeatMillis, long maxLagMillis) {
+    this.primaryJdbcTemplate = primaryJdbcTemplate;
+    this.dataSource = new DataSource(poolConfiguration);
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.heartbeatMillis = heartbeatMillis;
+    this.maxLagMillis = maxLagMillis;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executor.scheduleWithFixedDelay(this::heartbeatSafely, 0, heartbeatMillis,
+                                    TimeUnit.MILLISECONDS);
+  }
+
+  //the executor stops running the task if it throws an exception
+  private void heartbeatSafely() {
+    try {
+      primaryJdbcTemplate.update(UPSERT_HEARTBEAT, System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      LOG.error("Problem writing heartbeat to primary database", e);
+    }
+    try {
+      List<Long> heartbeats = jdbcTemplate.queryForList(SELECT_HEARTBEAT, Long.class);
+      if (!heartbeats.isEmpty()) {
+        replicaHeartbeat = heartbeats.get(0);
+      }
+    } catch (RuntimeException e) {
+      LOG.error("Problem reading heartbeat from replica database", e);
+    }
+  }
+
+  public JdbcTemplate getJdbcTemplate() {
+    return jdbcTemplate;
+  }
+
+  public long getLagMillis() {
+    return replicaHeartbeat == 0 ? Long.MAX_VALUE
+        : Math.max(0, System.currentTimeMillis() - replicaHeartbeat);
+  }
+
+  public boolean isWithinMaxLag() {
+    return getLagMillis() <= maxLagMillis;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return ImmutableList.of(
+        new Metric<>(METRIC_PREFIX + "lagMillis", getLagMillis()),
+        new Metric<>(METRIC_PREFIX + "active", dataSource.getActive()),
+        new Metric<>(METRIC_PREFIX + "idle", dataSource.getIdle()));
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+    dataSource.close();
+  }
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of records stored in segment files, with periodic snapshots which allow
+ * discarding old segments. <p/> Appended records are written and synced to disk by a flusher
+ * thread: while it syncs a set of records others keep being appended, and then are synced all
+ * together (group commit), so the cost of fsync is shared by all records appended meanwhile. <p/>
+ * Each record is written as its length, its CRC32 and its bytes, so a record partially written
+ * (eg: due to a crash) is detected and ignored, along with any following one in the segment. <p/>
+ * Snapshots content is written and read by the journal user, and snapshots are read through
+ * memory mapped I/O.
+ */
+class Journal implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_FILE_NAME = "snapshot";
+  private static final String SNAPSHOT_TEMP_FILE_NAME = "snapshot.tmp";
+  private static final int SNAPSHOT_MAGIC = 0x4f4e5958;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+
+  /**
+   * Consumer of records being replayed.
+   */
+  @FunctionalInterface
+  interface RecordConsumer {
+
+    void accept(byte[] record) throws Exception;
+
+  }
+
+  /**
+   * Writes the content of a snapshot.
+   */
+  @FunctionalInterface
+  interface SnapshotWriter {
+
+    void write(DataOutputStream out) throws IOException;
+
+  }
+
+  /**
+   * Reads the content of a snapshot.
+   */
+  @FunctionalInterface
+  interface SnapshotReader {
+
+    void read(MappedFileInput in) throws Exception;
+
+  }
+
+  private final Path directory;
+  //held while writing to segments, so appends are not blocked by writes and syncs
+  private final Object writeLock = new Object();
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private final DataOutputStream pendingOut = new DataOutputStream(pending);
+  private final CRC32 crc = new CRC32();
+  private long appendedSequence;
+  private long flushedSequence;
+  private IOException failure;
+  private boolean closed;
+  private Thread flusher;
+  private FileChannel segment;
+  private long generation;
+  private volatile long segmentSize;
+
+  Journal(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Passes the last snapshot to the snapshot reader and then to the consumer the records of the
+   * segments written after it, in the same order they were appended.
+   *
+   * @return the amount of replayed records, excluding the snapshot.
+   */
+  public long replay(SnapshotReader snapshotReader, RecordConsumer consumer) throws Exception {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+    long count = 0;
+    long firstGeneration = 0;
+    Path snapshot = directory.resolve(SNAPSHOT_FILE_NAME);
+    if (Files.exists(snapshot)) {
+      try (MappedFileInput in = new MappedFileInput(snapshot)) {
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+          throw new IOException("Invalid snapshot file " + snapshot);
+        }
+        firstGeneration = in.readLong();
+        snapshotReader.read(in);
+      }
+    }
+    for (long segmentGeneration : findSegmentGenerations()) {
+      if (segmentGeneration >= firstGeneration) {
+        Path segmentPath = getSegmentPath(segmentGeneration);
+        try (DataInputStream in = openForRead(segmentPath)) {
+          count += readRecords(in, segmentPath, consumer);
+        }
+      }
+    }
+    return count;
+  }
+
+  private static DataInputStream openForRead(Path path) throws IOException {
+    return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+  }
+
+  private long readRecords(DataInputStream in, Path path, RecordConsumer consumer)
+      throws Exception {
+    long count = 0;
+    CRC32 readCrc = new CRC32();
+    while (true) {
+      byte[] record;
+      try {
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length < 0 || length > MAX_RECORD_LENGTH) {
+          LOG.warn("Ignoring rest of {} due to invalid record length {}", path, length);
+          return count;
+        }
+        record = new byte[length];
+        in.readFully(record);
+        readCrc.reset();
+        readCrc.update(record);
+        if ((int) readCrc.getValue() != checksum) {
+          LOG.warn("Ignoring rest of {} due to record with invalid checksum", path);
+          return count;
+        }
+      } catch (EOFException e) {
+        return count;
+      }
+      consumer.accept(record);
+      count++;
+    }
+  }
+
+  private List<Long> findSegmentGenerations() throws IOException {
+    List<Long> generations = new ArrayList<>();
+    try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory,
+                                                                   SEGMENT_PREFIX + "*"
+                                                                   + SEGMENT_SUFFIX)) {
+      for (Path segmentPath : segments) {
+        String fileName = segmentPath.getFileName().toString();
+        generations.add(Long.parseLong(fileName.substring(
+            SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length())));
+      }
+    }
+    generations.sort(null);
+    return generations;
+  }
+
+  private Path getSegmentPath(long segmentGeneration) {
+    return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segmentGeneration,
+                                           SEGMENT_SUFFIX));
+  }
+
+  /**
+   * Opens a new segment (after the existing ones) for appending records and starts the flusher.
+   */
+  public void open() throws IOException {
+    Files.createDirectories(directory);
+    List<Long> generations = findSegmentGenerations();
+    synchronized (writeLock) {
+      openSegment(generations.isEmpty() ? 1 : generations.get(generations.size() - 1) + 1);
+    }
+    flusher = new Thread(this::flushLoop, "onyx-journal-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  private void openSegment(long segmentGeneration) throws IOException {
+    segment = FileChannel.open(getSegmentPath(segmentGeneration), StandardOpenOption.CREATE,
+                               StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    generation = segmentGeneration;
+    segmentSize = 0;
+  }
+
+  /**
+   * Appends a record to be synced by flusher thread.
+   *
+   * @return the sequence of the record.
+   */
+  public synchronized long append(byte[] record) throws IOException {
+    checkFailure();
+    crc.reset();
+    crc.update(record);
+    pendingOut.writeInt(record.length);
+    pendingOut.writeInt((int) crc.getValue());
+    pendingOut.write(record);
+    appendedSequence++;
+    notifyAll();
+    return appendedSequence;
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) {
+      throw new IOException("Journal is not available due to previous failure", failure);
+    }
+  }
+
+  /**
+   * Waits until all records appended so far are synced to disk.
+   */
+  public synchronized void sync() throws IOException {
+    long sequence = appendedSequence;
+    try {
+      while (flushedSequence < sequence && failure == null) {
+        wait();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting journal sync");
+    }
+    checkFailure();
+  }
+
+  private void flushLoop() {
+    try {
+      while (true) {
+        synchronized (this) {
+          while (pending.size() == 0 && !closed) {
+            wait();
+          }
+          if (pending.size() == 0) {
+            return;
+          }
+        }
+        flush();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      LOG.error("Problem writing journal, no more changes will be persisted", e);
+      synchronized (this) {
+        failure = e;
+        notifyAll();
+      }
+    }
+  }
+
+  private void flush() throws IOException {
+    synchronized (writeLock) {
+      ByteBuffer buffer;
+      long sequence;
+      synchronized (this) {
+        buffer = ByteBuffer.wrap(pending.toByteArray());
+        pending.reset();
+        sequence = appendedSequence;
+      }
+      if (buffer.hasRemaining()) {
+        segmentSize += buffer.remaining();
+        while (buffer.hasRemaining()) {
+          segment.write(buffer);
+        }
+        segment.force(false);
+      }
+      synchronized (this) {
+        flushedSequence = sequence;
+        notifyAll();
+      }
+    }
+  }
+
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  /**
+   * Syncs appended records and starts a new segment for following ones. <p/> Has to be invoked
+   * while no records are appended, so the returned generation can be used to take a snapshot of
+   * data up to this point.
+   *
+   * @return the generation of the new segment.
+   */
+  public long rotate() throws IOException {
+    synchronized (writeLock) {
+      flush();
+      segment.close();
+      openSegment(generation + 1);
+      return generation;
+    }
+  }
+
+  /**
+   * Atomically replaces the snapshot with one written by given writer, and deletes segments
+   * previous to given generation since their records are already contained in it.
+   */
+  public void writeSnapshot(long snapshotGeneration, SnapshotWriter writer) throws IOException {
+    Path tempSnapshot = directory.resolve(SNAPSHOT_TEMP_FILE_NAME);
+    try (FileChannel channel = FileChannel.open(tempSnapshot, StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING);
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+             Channels.newOutputStream(channel), 64 * 1024))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeLong(snapshotGeneration);
+      writer.write(out);
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(tempSnapshot, directory.resolve(SNAPSHOT_FILE_NAME),
+               StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    for (long segmentGeneration : findSegmentGenerations()) {
+      if (segmentGeneration < snapshotGeneration) {
+        Files.deleteIfExists(getSegmentPath(segmentGeneration));
+      }
+    }
+  }
+
+  /**
+   * Syncs pending records and closes current segment.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    if (flusher != null) {
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (writeLock) {
+      if (segment != null) {
+        segment.close();
+      }
+    }
+  }
+
+}
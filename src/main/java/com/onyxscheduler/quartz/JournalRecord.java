@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.spi.OperableTrigger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Change of JournalingJobStore data, which is serialized with java serialization (as quartz jdbc
+ * job stores do with job data) to be written in journal. Snapshots use SnapshotCodec instead.
+ */
+class JournalRecord implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  enum Type {
+    STORE_JOB, REMOVE_JOB, STORE_TRIGGER, REMOVE_TRIGGER, STORE_CALENDAR, REMOVE_CALENDAR,
+    PAUSED_GROUPS, CLEAR
+  }
+
+  private final Type type;
+  private JobDetail job;
+  private JobKey jobKey;
+  private OperableTrigger trigger;
+  private Trigger.TriggerState triggerState;
+  private TriggerKey triggerKey;
+  private String calendarName;
+  private Calendar calendar;
+  private Set<String> pausedTriggerGroups;
+  private Set<String> pausedJobGroups;
+
+  private JournalRecord(Type type) {
+    this.type = type;
+  }
+
+  public static JournalRecord storeJob(JobDetail job) {
+    JournalRecord record = new JournalRecord(Type.STORE_JOB);
+    record.job = job;
+    return record;
+  }
+
+  public static JournalRecord removeJob(JobKey jobKey) {
+    JournalRecord record = new JournalRecord(Type.REMOVE_JOB);
+    record.jobKey = jobKey;
+    return record;
+  }
+
+  public static JournalRecord storeTrigger(OperableTrigger trigger,
+                                           Trigger.TriggerState triggerState) {
+    JournalRecord record = new JournalRecord(Type.STORE_TRIGGER);
+    record.trigger = trigger;
+    record.triggerState = triggerState;
+    return record;
+  }
+
+  public static JournalRecord removeTrigger(TriggerKey triggerKey) {
+    JournalRecord record = new JournalRecord(Type.REMOVE_TRIGGER);
+    record.triggerKey = triggerKey;
+    return record;
+  }
+
+  public static JournalRecord storeCalendar(String name, Calendar calendar) {
+    JournalRecord record = new JournalRecord(Type.STORE_CALENDAR);
+    record.calendarName = name;
+    record.calendar = calendar;
+    return record;
+  }
+
+  public static JournalRecord removeCalendar(String name) {
+    JournalRecord record = new JournalRecord(Type.REMOVE_CALENDAR);
+    record.calendarName = name;
+    return record;
+  }
+
+  public static JournalRecord pausedGroups(Set<String> pausedTriggerGroups,
+                                           Set<String> pausedJobGroups) {
+    JournalRecord record = new JournalRecord(Type.PAUSED_GROUPS);
+    record.pausedTriggerGroups = new HashSet<>(pausedTriggerGroups);
+    record.pausedJobGroups = new HashSet<>(pausedJobGroups);
+    return record;
+  }
+
+  public static JournalRecord clear() {
+    return new JournalRecord(Type.CLEAR);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public JobDetail getJob() {
+    return job;
+  }
+
+  public JobKey getJobKey() {
+    return jobKey;
+  }
+
+  public OperableTrigger getTrigger() {
+    return trigger;
+  }
+
+  public Trigger.TriggerState getTriggerState() {
+    return triggerState;
+  }
+
+  public TriggerKey getTriggerKey() {
+    return triggerKey;
+  }
+
+  public String getCalendarName() {
+    return calendarName;
+  }
+
+  public Calendar getCalendar() {
+    return calendar;
+  }
+
+  public Set<String> getPausedTriggerGroups() {
+    return pausedTriggerGroups;
+  }
+
+  public Set<String> getPausedJobGroups() {
+    return pausedJobGroups;
+  }
+
+  public byte[] toBytes() throws IOException {
+    return serialize(this);
+  }
+
+  public static JournalRecord fromBytes(byte[] bytes, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException {
+    return (JournalRecord) deserialize(bytes, classLoader);
+  }
+
+  static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  static Object deserialize(byte[] bytes, ClassLoader classLoader)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ClassLoaderObjectInputStream(
+        new ByteArrayInputStream(bytes), classLoader)) {
+      return in.readObject();
+    }
+  }
+
+  /* resolves classes with given class loader, since job classes may not be visible from
+  the one of this class (eg: when running from spring boot executable jar) */
+  private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+    private final ClassLoader classLoader;
+
+    private ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader)
+        throws IOException {
+      super(in);
+      this.classLoader = classLoader;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      try {
+        return Class.forName(desc.getName(), false, classLoader);
+      } catch (ClassNotFoundException e) {
+        return super.resolveClass(desc);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * TimingWheelJobStore which persists its data in a local directory, for single node deployments
+ * which need persistence without a database. <p/> All data is kept in memory, and every change is
+ * appended to a Journal which is synced to disk before returning from the operation that made
+ * it (several concurrent operations are synced at once). When the journal grows beyond
+ * snapshotThresholdBytes, a snapshot of all data is taken in background and older journal
+ * segments discarded. On initialization the last snapshot (see SnapshotCodec) and the journal are
+ * replayed. <p/> Misfires detected while acquiring triggers are persisted without waiting for the
+ * sync, since they are detected again if lost. Triggers acquired or blocked when the process stops
+ * are restored as waiting ones. <p/> Quartz sets directory (org.quartz.jobStore.directory) and
+ * snapshotThresholdBytes (org.quartz.jobStore.snapshotThresholdBytes) before initializing the
+ * store.
+ */
+public class JournalingJobStore extends TimingWheelJobStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JournalingJobStore.class);
+
+  public static final String DEFAULT_DIRECTORY = "journal";
+  public static final long DEFAULT_SNAPSHOT_THRESHOLD_BYTES = 64 * 1024 * 1024;
+
+  private String directory = DEFAULT_DIRECTORY;
+  private long snapshotThresholdBytes = DEFAULT_SNAPSHOT_THRESHOLD_BYTES;
+  private Journal journal;
+  private ClassLoader classLoader;
+  private Consumer<JournalRecord> recordSink = this::appendToJournal;
+  private ExecutorService snapshotExecutor;
+  private final AtomicBoolean snapshotInProgress = new AtomicBoolean();
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public long getSnapshotThresholdBytes() {
+    return snapshotThresholdBytes;
+  }
+
+  public void setSnapshotThresholdBytes(long snapshotThresholdBytes) {
+    this.snapshotThresholdBytes = snapshotThresholdBytes;
+  }
+
+  @Override
+  public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler)
+      throws SchedulerConfigException {
+    super.initialize(loadHelper, signaler);
+    classLoader = loadHelper != null ? loadHelper.getClassLoader() : getClass().getClassLoader();
+    journal = new Journal(Paths.get(directory));
+    try {
+      long records;
+      synchronized (lock) {
+        recordSink = record -> {
+        };
+        try {
+          records = journal.replay(this::readSnapshot, this::replayRecord);
+        } finally {
+          recordSink = this::appendToJournal;
+        }
+      }
+      journal.open();
+      LOG.info("Restored {} jobs and {} triggers from snapshot and {} journal records in {}.",
+               getNumberOfJobs(), getNumberOfTriggers(), records, directory);
+    } catch (Exception e) {
+      throw new SchedulerConfigException("Could not restore jobs from journal in " + directory, e);
+    }
+    snapshotExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                                                             .setNameFormat("onyx-journal-snapshot")
+                                                             .setDaemon(true)
+                                                             .build());
+  }
+
+  private void readSnapshot(MappedFileInput in) throws Exception {
+    long startTime = System.currentTimeMillis();
+    SnapshotCodec codec = new SnapshotCodec(classLoader);
+    codec.read(in, record -> {
+      try {
+        applyRecord(record);
+      } catch (JobPersistenceException e) {
+        throw Throwables.propagate(e);
+      }
+    });
+    LOG.info("Read snapshot of {} bytes in {} ms.", in.getPosition(),
+             System.currentTimeMillis() - startTime);
+  }
+
+  private void replayRecord(byte[] bytes) throws Exception {
+    applyRecord(JournalRecord.fromBytes(bytes, classLoader));
+  }
+
+  private void applyRecord(JournalRecord record) throws JobPersistenceException {
+    switch (record.getType()) {
+      case STORE_JOB:
+        storeJob(record.getJob(), true);
+        break;
+      case REMOVE_JOB:
+        removeJob(record.getJobKey());
+        break;
+      case STORE_TRIGGER:
+        restoreTrigger(record.getTrigger(), record.getTriggerState());
+        break;
+      case REMOVE_TRIGGER:
+        restoreRemovedTrigger(record.getTriggerKey());
+        break;
+      case STORE_CALENDAR:
+        storeCalendar(record.getCalendarName(), record.getCalendar(), true, false);
+        break;
+      case REMOVE_CALENDAR:
+        removeCalendar(record.getCalendarName());
+        break;
+      case PAUSED_GROUPS:
+        restorePausedGroups(record.getPausedTriggerGroups(), record.getPausedJobGroups());
+        break;
+      case CLEAR:
+        clearAllSchedulingData();
+        break;
+      default:
+        throw new IllegalStateException("Unknown journal record type " + record.getType());
+    }
+  }
+
+  private void appendToJournal(JournalRecord record) {
+    try {
+      journal.append(record.toBytes());
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  @Override
+  public boolean supportsPersistence() {
+    return true;
+  }
+
+  @Override
+  public void shutdown() {
+    super.shutdown();
+    if (snapshotExecutor != null) {
+      snapshotExecutor.shutdown();
+      try {
+        snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        LOG.error("Problem closing journal", e);
+      }
+    }
+  }
+
+  @Override
+  protected void jobStored(JobDetail job) {
+    recordSink.accept(JournalRecord.storeJob((JobDetail) job.clone()));
+  }
+
+  @Override
+  protected void jobRemoved(JobKey jobKey) {
+    recordSink.accept(JournalRecord.removeJob(jobKey));
+  }
+
+  @Override
+  protected void triggerStored(OperableTrigger trigger, Trigger.TriggerState state) {
+    recordSink.accept(JournalRecord.storeTrigger((OperableTrigger) trigger.clone(), state));
+  }
+
+  @Override
+  protected void triggerRemoved(TriggerKey triggerKey) {
+    recordSink.accept(JournalRecord.removeTrigger(triggerKey));
+  }
+
+  @Override
+  protected void calendarStored(String name, Calendar calendar) {
+    recordSink.accept(JournalRecord.storeCalendar(name, (Calendar) calendar.clone()));
+  }
+
+  @Override
+  protected void calendarRemoved(String name) {
+    recordSink.accept(JournalRecord.removeCalendar(name));
+  }
+
+  @Override
+  protected void pausedGroupsChanged(Set<String> pausedTriggerGroups,
+                                     Set<String> pausedJobGroups) {
+    recordSink.accept(JournalRecord.pausedGroups(pausedTriggerGroups, pausedJobGroups));
+  }
+
+  @Override
+  protected void schedulingDataCleared() {
+    recordSink.accept(JournalRecord.clear());
+  }
+
+  /* waits for changes to be synced once the lock is released (and not in nested invocations), so
+  changes of other threads made meanwhile are synced together */
+  private void syncJournal() {
+    if (Thread.holdsLock(lock)) {
+      return;
+    }
+    try {
+      journal.sync();
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+    if (journal.getSegmentSize() > snapshotThresholdBytes
+        && snapshotInProgress.compareAndSet(false, true)) {
+      snapshotExecutor.execute(this::takeSnapshot);
+    }
+  }
+
+  private void takeSnapshot() {
+    try {
+      List<JournalRecord> records = new ArrayList<>();
+      long generation;
+      synchronized (lock) {
+        recordSink = records::add;
+        try {
+          notifyStoredData();
+        } finally {
+          recordSink = this::appendToJournal;
+        }
+        generation = journal.rotate();
+      }
+      //encoding is done out of the lock since it is the most expensive part
+      journal.writeSnapshot(generation, out -> SnapshotCodec.write(out, records));
+      LOG.info("Journal snapshot taken with {} records.", records.size());
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Problem taking journal snapshot", e);
+    } finally {
+      snapshotInProgress.set(false);
+    }
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+    super.storeJobAndTrigger(newJob, newTrigger);
+    syncJournal();
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting)
+      throws ObjectAlreadyExistsException {
+    super.storeJob(newJob, replaceExisting);
+    syncJournal();
+  }
+
+  @Override
+  public void storeJobsAndTriggers(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs,
+                                   boolean replace) throws JobPersistenceException {
+    super.storeJobsAndTriggers(triggersAndJobs, replace);
+    syncJournal();
+  }
+
+  @Override
+  public boolean removeJob(JobKey jobKey) {
+    boolean removed = super.removeJob(jobKey);
+    syncJournal();
+    return removed;
+  }
+
+  @Override
+  public boolean removeJobs(List<JobKey> jobKeys) {
+    boolean removed = super.removeJobs(jobKeys);
+    syncJournal();
+    return removed;
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+    super.storeTrigger(newTrigger, replaceExisting);
+    syncJournal();
+  }
+
+  @Override
+  public boolean removeTrigger(TriggerKey triggerKey) {
+    boolean removed = super.removeTrigger(triggerKey);
+    syncJournal();
+    return removed;
+  }
+
+  @Override
+  public boolean removeTriggers(List<TriggerKey> triggerKeys) {
+    boolean removed = super.removeTriggers(triggerKeys);
+    syncJournal();
+    return removed;
+  }
+
+  @Override
+  public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+    boolean replaced = super.replaceTrigger(triggerKey, newTrigger);
+    syncJournal();
+    return replaced;
+  }
+
+  @Override
+  public void clearAllSchedulingData() {
+    super.clearAllSchedulingData();
+    syncJournal();
+  }
+
+  @Override
+  public void storeCalendar(String name, Calendar calendar, boolean replaceExisting,
+                            boolean updateTriggers) throws ObjectAlreadyExistsException {
+    super.storeCalendar(name, calendar, replaceExisting, updateTriggers);
+    syncJournal();
+  }
+
+  @Override
+  public boolean removeCalendar(String calName) throws JobPersistenceException {
+    boolean removed = super.removeCalendar(calName);
+    syncJournal();
+    return removed;
+  }
+
+  @Override
+  public void pauseTrigger(TriggerKey triggerKey) {
+    super.pauseTrigger(triggerKey);
+    syncJournal();
+  }
+
+  @Override
+  public Collection<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+    Collection<String> groups = super.pauseTriggers(matcher);
+    syncJournal();
+    return groups;
+  }
+
+  @Override
+  public void pauseJob(JobKey jobKey) {
+    super.pauseJob(jobKey);
+    syncJournal();
+  }
+
+  @Override
+  public Collection<String> pauseJobs(GroupMatcher<JobKey> matcher) {
+    Collection<String> groups = super.pauseJobs(matcher);
+    syncJournal();
+    return groups;
+  }
+
+  @Override
+  public void resumeTrigger(TriggerKey triggerKey) {
+    super.resumeTrigger(triggerKey);
+    syncJournal();
+  }
+
+  @Override
+  public Collection<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+    Collection<String> groups = super.resumeTriggers(matcher);
+    syncJournal();
+    return groups;
+  }
+
+  @Override
+  public void resumeJob(JobKey jobKey) {
+    super.resumeJob(jobKey);
+    syncJournal();
+  }
+
+  @Override
+  public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) {
+    Collection<String> groups = super.resumeJobs(matcher);
+    syncJournal();
+    return groups;
+  }
+
+  @Override
+  public void pauseAll() {
+    super.pauseAll();
+    syncJournal();
+  }
+
+  @Override
+  public void resumeAll() {
+    super.resumeAll();
+    syncJournal();
+  }
+
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+    List<TriggerFiredResult> results = super.triggersFired(firedTriggers);
+    syncJournal();
+    return results;
+  }
+
+  @Override
+  public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+                                   Trigger.CompletedExecutionInstruction triggerInstCode) {
+    super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+    syncJournal();
+  }
+
+}
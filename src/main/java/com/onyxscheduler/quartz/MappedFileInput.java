@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory mapped windows, so reading it costs about the same as the
+ * sequential read of the file done by the OS, without copies to intermediate buffers nor system
+ * calls for each read. <p/> Files are mapped in windows (instead of all at once) since a single
+ * mapping can't exceed 2GB.
+ */
+class MappedFileInput implements Closeable {
+
+  private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+  private final FileChannel channel;
+  private final long size;
+  private final long windowSize;
+  private long windowStart;
+  private MappedByteBuffer window;
+
+  MappedFileInput(Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  MappedFileInput(Path path, long windowSize) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.size = channel.size();
+    this.windowSize = windowSize;
+    map(0);
+  }
+
+  private void map(long position) throws IOException {
+    windowStart = position;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                         Math.min(windowSize, size - position));
+  }
+
+  private MappedByteBuffer require(int bytes) throws IOException {
+    if (window.remaining() < bytes) {
+      long position = getPosition();
+      if (size - position < bytes) {
+        throw new EOFException("Expected " + bytes + " bytes at " + position + " but file size is "
+                               + size);
+      }
+      if (bytes > windowSize) {
+        throw new IOException("Can't read " + bytes + " bytes at once");
+      }
+      map(position);
+    }
+    return window;
+  }
+
+  public long getPosition() {
+    return windowStart + window.position();
+  }
+
+  public boolean hasRemaining() {
+    return getPosition() < size;
+  }
+
+  public byte readByte() throws IOException {
+    return require(Byte.BYTES).get();
+  }
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  public int readInt() throws IOException {
+    return require(Integer.BYTES).getInt();
+  }
+
+  public long readLong() throws IOException {
+    return require(Long.BYTES).getLong();
+  }
+
+  public byte[] readBytes(int length) throws IOException {
+    byte[] bytes = new byte[length];
+    require(length).get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads a string written as its length in bytes (-1 for null) followed by its UTF-8 bytes.
+   */
+  public String readString() throws IOException {
+    int length = readInt();
+    return length < 0 ? null : new String(readBytes(length), StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+
+import java.util.Properties;
+
+/**
+ * Scheduler factory which allows to use a custom job store even when SchedulerFactoryBean has a
+ * DataSource. <p/> SchedulerFactoryBean always forces its own LocalDataSourceJobStore when a
+ * DataSource is provided, so custom job stores extending it can be specified through
+ * PROP_JOB_STORE_CLASS_OVERRIDE property.
+ */
+public class OnyxSchedulerFactory extends StdSchedulerFactory {
+
+  public static final String PROP_JOB_STORE_CLASS_OVERRIDE = "onyx.jobStore.class";
+
+  @Override
+  public void initialize(Properties props) throws SchedulerException {
+    String jobStoreClass = props.getProperty(PROP_JOB_STORE_CLASS_OVERRIDE);
+    if (jobStoreClass == null) {
+      super.initialize(props);
+      return;
+    }
+    Properties overriddenProps = new Properties();
+    overriddenProps.putAll(props);
+    overriddenProps.remove(PROP_JOB_STORE_CLASS_OVERRIDE);
+    overriddenProps.setProperty(PROP_JOB_STORE_CLASS, jobStoreClass);
+    super.initialize(overriddenProps);
+  }
+
+}
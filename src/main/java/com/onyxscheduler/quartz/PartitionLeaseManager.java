@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.quartz.SchedulerException;
+import org.quartz.simpl.SimpleInstanceIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributes partitions among nodes through leases stored in ONYX_PARTITION_LEASES table, so each
+ * partition is processed (its triggers acquired and fired) by a single node at a time. <p/> Every
+ * third of leaseMillis each node records a heartbeat in ONYX_PARTITION_NODES, renews its leases,
+ * and computes its fair share of partitions from the nodes with recent heartbeats: nodes owning
+ * more partitions than their share release them, and nodes owning less claim released or expired
+ * ones. This way partitions are rebalanced when nodes join, leave or die (when their leases
+ * expire). <p/> Partition schedulers are clustered, so when a partition changes owner quartz
+ * recovers the triggers acquired by the previous one, and a short overlap between owners (for
+ * example due to clock skew) only means contention on the partition locks.
+ */
+public class PartitionLeaseManager implements SmartLifecycle {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PartitionLeaseManager.class);
+
+  static final String TABLE_LEASES = "ONYX_PARTITION_LEASES";
+  static final String TABLE_NODES = "ONYX_PARTITION_NODES";
+  //nodes not heard from in this amount of lease periods are removed from nodes table
+  private static final int DEAD_NODE_LEASE_PERIODS = 10;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final PartitionedQuartzSchedulers schedulers;
+  private final long leaseMillis;
+  private final String nodeId;
+  private final NavigableSet<Integer> ownedPartitions = new TreeSet<>();
+  private ScheduledExecutorService executor;
+  private long lastRenewalTime;
+
+  public PartitionLeaseManager(JdbcTemplate jdbcTemplate, PartitionedQuartzSchedulers schedulers,
+                               long leaseMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schedulers = schedulers;
+    this.leaseMillis = leaseMillis;
+    try {
+      this.nodeId = new SimpleInstanceIdGenerator().generateInstanceId();
+    } catch (SchedulerException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public synchronized Set<Integer> getOwnedPartitions() {
+    return ImmutableSet.copyOf(ownedPartitions);
+  }
+
+  @Override
+  public synchronized void start() {
+    insertMissingPartitions();
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                              .setNameFormat("partition-leases")
+                                                              .setDaemon(true)
+                                                              .build());
+    executor.scheduleWithFixedDelay(this::rebalanceSafely, 0, leaseMillis / 3,
+                                    TimeUnit.MILLISECONDS);
+  }
+
+  private void insertMissingPartitions() {
+    Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(
+        "SELECT PARTITION_ID FROM " + TABLE_LEASES, Integer.class));
+    for (int partition = 0; partition < schedulers.getPartitionCount(); partition++) {
+      if (!existing.contains(partition)) {
+        try {
+          jdbcTemplate.update("INSERT INTO " + TABLE_LEASES
+                              + " (PARTITION_ID, OWNER, EXPIRES_AT) VALUES (?, NULL, 0)",
+                              partition);
+        } catch (DuplicateKeyException e) {
+          LOG.debug("Partition {} concurrently inserted by another node", partition);
+        }
+      }
+    }
+  }
+
+  /* the executor stops running the task if it throws an exception, and partitions are released
+  locally when leases can't be renewed since other nodes will claim them once they expire */
+  private synchronized void rebalanceSafely() {
+    try {
+      rebalance(System.currentTimeMillis());
+    } catch (RuntimeException e) {
+      LOG.error("Problem rebalancing partitions", e);
+      if (System.currentTimeMillis() - lastRenewalTime >= leaseMillis) {
+        new ArrayList<>(ownedPartitions).forEach(this::stopProcessing);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void rebalance(long now) {
+    heartbeat(now);
+    List<String> liveNodes = jdbcTemplate.queryForList(
+        "SELECT NODE_ID FROM " + TABLE_NODES + " WHERE LAST_HEARTBEAT >= ? ORDER BY NODE_ID",
+        String.class, now - leaseMillis);
+    int share = computeFairShare(schedulers.getPartitionCount(), liveNodes, nodeId);
+    renewLeases(now);
+    while (ownedPartitions.size() > share) {
+      releasePartition(ownedPartitions.last());
+    }
+    if (ownedPartitions.size() < share) {
+      claimPartitions(share, now);
+    }
+    jdbcTemplate.update("DELETE FROM " + TABLE_NODES + " WHERE LAST_HEARTBEAT < ?",
+                        now - DEAD_NODE_LEASE_PERIODS * leaseMillis);
+  }
+
+  private void heartbeat(long now) {
+    int updated = jdbcTemplate.update(
+        "UPDATE " + TABLE_NODES + " SET LAST_HEARTBEAT = ? WHERE NODE_ID = ?", now, nodeId);
+    if (updated == 0) {
+      jdbcTemplate.update(
+          "INSERT INTO " + TABLE_NODES + " (NODE_ID, LAST_HEARTBEAT) VALUES (?, ?)", nodeId, now);
+    }
+  }
+
+  /**
+   * Computes the amount of partitions the given node should own, splitting them evenly among the
+   * live nodes and assigning the remainder to the first ones (in the given order).
+   */
+  @VisibleForTesting
+  static int computeFairShare(int partitionCount, List<String> liveNodes, String nodeId) {
+    int nodeIndex = liveNodes.indexOf(nodeId);
+    int nodeCount = liveNodes.size();
+    //the node might not be seen as live if its clock is ahead of the database one
+    if (nodeIndex < 0) {
+      nodeIndex = nodeCount;
+      nodeCount++;
+    }
+    return partitionCount / nodeCount + (nodeIndex < partitionCount % nodeCount ? 1 : 0);
+  }
+
+  private void renewLeases(long now) {
+    jdbcTemplate.update("UPDATE " + TABLE_LEASES + " SET EXPIRES_AT = ? WHERE OWNER = ?",
+                        now + leaseMillis, nodeId);
+    Set<Integer> leased = new HashSet<>(jdbcTemplate.queryForList(
+        "SELECT PARTITION_ID FROM " + TABLE_LEASES + " WHERE OWNER = ?", Integer.class, nodeId));
+    lastRenewalTime = now;
+    for (Integer partition : new ArrayList<>(ownedPartitions)) {
+      if (!leased.contains(partition)) {
+        LOG.warn("Lost lease of partition {}", partition);
+        stopProcessing(partition);
+      }
+    }
+    //partitions whose scheduler failed to start are retried
+    leased.stream()
+        .filter(partition -> !ownedPartitions.contains(partition))
+        .forEach(this::startProcessing);
+  }
+
+  private void releasePartition(int partition) {
+    stopProcessing(partition);
+    jdbcTemplate.update("UPDATE " + TABLE_LEASES
+                        + " SET OWNER = NULL, EXPIRES_AT = 0 WHERE PARTITION_ID = ? AND OWNER = ?",
+                        partition, nodeId);
+    LOG.info("Released partition {}", partition);
+  }
+
+  private void claimPartitions(int share, long now) {
+    List<Integer> available = jdbcTemplate.queryForList(
+        "SELECT PARTITION_ID FROM " + TABLE_LEASES
+        + " WHERE (OWNER IS NULL OR EXPIRES_AT < ?) AND PARTITION_ID < ? ORDER BY PARTITION_ID",
+        Integer.class, now, schedulers.getPartitionCount());
+    for (Integer partition : available) {
+      if (ownedPartitions.size() >= share) {
+        return;
+      }
+      //the condition is checked again since other nodes may be claiming the same partition
+      int claimed = jdbcTemplate.update(
+          "UPDATE " + TABLE_LEASES + " SET OWNER = ?, EXPIRES_AT = ?"
+          + " WHERE PARTITION_ID = ? AND (OWNER IS NULL OR EXPIRES_AT < ?)",
+          nodeId, now + leaseMillis, partition, now);
+      if (claimed == 1) {
+        LOG.info("Claimed partition {}", partition);
+        startProcessing(partition);
+      }
+    }
+  }
+
+  private void startProcessing(int partition) {
+    try {
+      schedulers.getScheduler(partition).start();
+      ownedPartitions.add(partition);
+    } catch (SchedulerException e) {
+      LOG.error("Problem starting scheduler of partition {}", partition, e);
+    }
+  }
+
+  private void stopProcessing(int partition) {
+    try {
+      schedulers.getScheduler(partition).standby();
+    } catch (SchedulerException e) {
+      LOG.error("Problem stopping scheduler of partition {}", partition, e);
+    }
+    ownedPartitions.remove(partition);
+  }
+
+  @Override
+  public synchronized void stop() {
+    executor.shutdownNow();
+    executor = null;
+    try {
+      new ArrayList<>(ownedPartitions).forEach(this::releasePartition);
+      jdbcTemplate.update("DELETE FROM " + TABLE_NODES + " WHERE NODE_ID = ?", nodeId);
+    } catch (RuntimeException e) {
+      //other nodes will claim the partitions once their leases expire
+      LOG.warn("Problem releasing partitions", e);
+    }
+  }
+
+  @Override
+  public void stop(Runnable callback) {
+    stop();
+    callback.run();
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return executor != null;
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    return true;
+  }
+
+  //same phase as SchedulerFactoryBean, so partitions start processing once the context is ready
+  @Override
+  public int getPhase() {
+    return Integer.MAX_VALUE;
+  }
+
+}
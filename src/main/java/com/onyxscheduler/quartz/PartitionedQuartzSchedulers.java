@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+
+import com.onyxscheduler.domain.QuartzSchedulerRouter;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.JobFactory;
+import org.quartz.spi.ThreadPool;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits jobs in a fixed amount of partitions, each one stored by its own quartz scheduler (with
+ * its own scheduler name, and so its own rows in jdbc job store tables, including the lock rows).
+ * <p/> Quartz jdbc job store serializes trigger acquisition of all nodes of a cluster on a single
+ * lock row, so with partitions each node only contends for the locks of the partitions it
+ * processes (see PartitionLeaseManager). <p/> Schedulers are created in standby, so they can
+ * store and read jobs of their partition without firing them until started. <p/> All partition
+ * schedulers share a single thread pool (see SharedThreadPool), so a node runs at most threadCount
+ * jobs at a time no matter how many partitions it processes, and standby partitions hold no
+ * worker threads. <p/> Jobs are
+ * assigned to partitions by the hash of their key, so the amount of partitions can't be changed
+ * once jobs are stored.
+ */
+public class PartitionedQuartzSchedulers implements QuartzSchedulerRouter, DisposableBean {
+
+  public static final String SCHEDULER_NAME_PREFIX = "onyx-partition-";
+
+  private final ThreadPool threadPool;
+  private final List<SchedulerFactoryBean> schedulerFactories;
+  private final List<Scheduler> schedulers;
+
+  /**
+   * @param quartzProperties properties of partition schedulers, which must use SharedThreadPool.
+   * @param threadPool pool shared by all partition schedulers, which is initialized and shutdown by
+   * this class.
+   */
+  public PartitionedQuartzSchedulers(int partitionCount, JobFactory jobFactory,
+                                     DataSource dataSource, Properties quartzProperties,
+                                     ThreadPool threadPool) {
+    this.threadPool = threadPool;
+    threadPool.setInstanceName(SCHEDULER_NAME_PREFIX + "shared");
+    try {
+      threadPool.initialize();
+    } catch (SchedulerConfigException e) {
+      throw Throwables.propagate(e);
+    }
+    ImmutableList.Builder<SchedulerFactoryBean> factories = ImmutableList.builder();
+    ImmutableList.Builder<Scheduler> schedulers = ImmutableList.builder();
+    SharedThreadPool.runWithSharedPool(threadPool, () -> {
+      for (int partition = 0; partition < partitionCount; partition++) {
+        SchedulerFactoryBean schedulerFactory = new SchedulerFactoryBean();
+        schedulerFactory.setSchedulerFactoryClass(OnyxSchedulerFactory.class);
+        schedulerFactory.setSchedulerName(buildSchedulerName(partition));
+        schedulerFactory.setJobFactory(jobFactory);
+        schedulerFactory.setDataSource(dataSource);
+        schedulerFactory.setQuartzProperties(quartzProperties);
+        schedulerFactory.setAutoStartup(false);
+        try {
+          schedulerFactory.afterPropertiesSet();
+        } catch (Exception e) {
+          throw Throwables.propagate(e);
+        }
+        factories.add(schedulerFactory);
+        schedulers.add(schedulerFactory.getObject());
+      }
+    });
+    this.schedulerFactories = factories.build();
+    this.schedulers = schedulers.build();
+  }
+
+  public static String buildSchedulerName(int partition) {
+    return SCHEDULER_NAME_PREFIX + partition;
+  }
+
+  public int getPartitionCount() {
+    return schedulers.size();
+  }
+
+  public Scheduler getScheduler(int partition) {
+    return schedulers.get(partition);
+  }
+
+  @Override
+  public List<Scheduler> getSchedulers() {
+    return schedulers;
+  }
+
+  @Override
+  public Scheduler getScheduler(JobKey jobKey) {
+    return schedulers.get(partitionOf(jobKey, schedulers.size()));
+  }
+
+  /* using murmur instead of String.hashCode since group and name usually share long prefixes, and
+  the hash has to be stable between versions and nodes */
+  static int partitionOf(JobKey jobKey, int partitionCount) {
+    int hash = Hashing.murmur3_32().newHasher()
+        .putString(jobKey.getGroup(), StandardCharsets.UTF_8)
+        .putInt(0)
+        .putString(jobKey.getName(), StandardCharsets.UTF_8)
+        .hash()
+        .asInt();
+    return Math.floorMod(hash, partitionCount);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    for (SchedulerFactoryBean schedulerFactory : schedulerFactories) {
+      schedulerFactory.destroy();
+    }
+    threadPool.shutdown(false);
+  }
+
+}
@@ -16,17 +16,27 @@
 
 package com.onyxscheduler.quartz;
 
+import com.onyxscheduler.domain.JobKeyPager;
+import com.onyxscheduler.domain.JobReader;
+import com.onyxscheduler.domain.MergingJobKeyPager;
+import com.onyxscheduler.domain.QuartzSchedulerRouter;
+import com.onyxscheduler.domain.SingleQuartzSchedulerRouter;
+
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.quartz.Scheduler;
 import org.quartz.spi.JobFactory;
-import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
@@ -39,6 +49,13 @@ public class QuartzConfiguration {
     return new AutowiringSpringBeanJobFactory();
   }
 
+  //all profiles but partitioned one (which provides its own router) have a single quartz scheduler
+  @Profile("!partitioned-jobstore")
+  @Bean
+  public QuartzSchedulerRouter quartzSchedulerRouter(Scheduler quartzScheduler) {
+    return new SingleQuartzSchedulerRouter(quartzScheduler);
+  }
+
   @Profile("default")
   @Bean
   public SchedulerFactoryBean quartzSchedulerFactory(JobFactory jobFactory,
@@ -53,25 +70,168 @@ public class QuartzConfiguration {
                                                      Optional<DataSource> dataSource,
                                                      QuartzProperties quartzProperties) {
     Properties props = quartzProperties.buildQuartzProperties();
-    props.putAll(quartzProperties.getJobstore().buildQuartzProperties());
+    props.putAll(quartzProperties.buildJobStoreQuartzProperties());
     return buildSchedulerFactory(jobFactory, dataSource, props);
   }
 
+  /* in memory job store for lots of pending triggers. It doesn't support adaptive batch
+  acquisition (its job store class takes precedence), and no DataSource is passed since
+  SchedulerFactoryBean would replace the job store with a jdbc one */
+  @Profile("timingwheel-jobstore")
+  @Bean
+  public SchedulerFactoryBean quartzSchedulerFactoryWithTimingWheel(JobFactory jobFactory,
+                                                     QuartzProperties quartzProperties) {
+    Properties props = quartzProperties.buildQuartzProperties();
+    props.putAll(quartzProperties.buildTimingWheelJobStoreQuartzProperties());
+    return buildSchedulerFactory(jobFactory, Optional.empty(), props);
+  }
+
+  //file based job store for single node deployments, with same limitations as timing wheel one
+  @Profile("journal-jobstore")
+  @Bean
+  public SchedulerFactoryBean quartzSchedulerFactoryWithJournal(JobFactory jobFactory,
+                                                     QuartzProperties quartzProperties) {
+    Properties props = quartzProperties.buildQuartzProperties();
+    props.putAll(quartzProperties.buildJournalJobStoreQuartzProperties());
+    return buildSchedulerFactory(jobFactory, Optional.empty(), props);
+  }
+
   private SchedulerFactoryBean buildSchedulerFactory(JobFactory jobFactory,
                                                      Optional<DataSource> dataSource,
                                                      Properties properties) {
     SchedulerFactoryBean schedulerFactoryBean = new SchedulerFactoryBean();
+    schedulerFactoryBean.setSchedulerFactoryClass(OnyxSchedulerFactory.class);
     schedulerFactoryBean.setJobFactory(jobFactory);
     schedulerFactoryBean.setDataSource(dataSource.orElse(null));
     schedulerFactoryBean.setQuartzProperties(properties);
     return schedulerFactoryBean;
   }
 
+  private static JobStoreDataSource buildJobStoreDataSource(
+      DataSourceProperties dataSourceProperties, PoolConfiguration pool) {
+    pool.setDriverClassName(dataSourceProperties.getDriverClassName());
+    pool.setUrl(dataSourceProperties.getUrl());
+    pool.setUsername(dataSourceProperties.getUsername());
+    pool.setPassword(dataSourceProperties.getPassword());
+    return new JobStoreDataSource(pool);
+  }
+
+  /* connection pool is explicitly configured (with spring.datasource connection settings) to size
+  it against quartz threads */
   @Configuration
   @Profile("mysql-jobstore")
-  @Import(DataSourceAutoConfiguration.class)
+  @EnableConfigurationProperties(DataSourceProperties.class)
   public static class QuartzJobStoreConfiguration {
 
+    @Bean
+    public JobStoreDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                         QuartzProperties quartzProperties) {
+      return buildJobStoreDataSource(dataSourceProperties,
+                                     quartzProperties.buildJobStorePoolConfiguration());
+    }
+
+    @Bean
+    public JobStoreDataSourceMetrics jobStoreDataSourceMetrics(JobStoreDataSource dataSource) {
+      return new JobStoreDataSourceMetrics(dataSource);
+    }
+
+    @Bean
+    public JobKeyPager jobKeyPager(DataSource dataSource, Scheduler quartzScheduler) {
+      return new JdbcJobKeyPager(new JdbcTemplate(dataSource), quartzScheduler);
+    }
+
+  }
+
+  /* jdbc job store split in partitions, each one with its own quartz scheduler, distributed among
+  nodes through leases. Connection pool is sized against quartz threads as with mysql job store,
+  but reserving connections for the threads of every partition scheduler */
+  @Configuration
+  @Profile("partitioned-jobstore")
+  @EnableConfigurationProperties(DataSourceProperties.class)
+  public static class PartitionedJobStoreConfiguration {
+
+    @Bean
+    public JobStoreDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                         QuartzProperties quartzProperties) {
+      return buildJobStoreDataSource(dataSourceProperties,
+                                     quartzProperties.buildPartitionedJobStorePoolConfiguration());
+    }
+
+    @Bean
+    public JobStoreDataSourceMetrics jobStoreDataSourceMetrics(JobStoreDataSource dataSource) {
+      return new JobStoreDataSourceMetrics(dataSource);
+    }
+
+    @Bean
+    public PartitionedQuartzSchedulers partitionedQuartzSchedulers(JobFactory jobFactory,
+                                                     DataSource dataSource,
+                                                     QuartzProperties quartzProperties) {
+      return new PartitionedQuartzSchedulers(
+          quartzProperties.getPartitions().getCount(), jobFactory, dataSource,
+          quartzProperties.buildPartitionedJobStoreQuartzProperties(),
+          quartzProperties.buildSharedThreadPool());
+    }
+
+    @Bean
+    public JobKeyPager jobKeyPager(DataSource dataSource, PartitionedQuartzSchedulers schedulers) {
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+      return new MergingJobKeyPager(schedulers.getSchedulers().stream()
+                                        .map(scheduler -> new JdbcJobKeyPager(jdbcTemplate,
+                                                                              scheduler))
+                                        .collect(Collectors.toList()));
+    }
+
+    @Bean
+    public PartitionLeaseManager partitionLeaseManager(DataSource dataSource,
+                                                     PartitionedQuartzSchedulers schedulers,
+                                                     QuartzProperties quartzProperties) {
+      return new PartitionLeaseManager(new JdbcTemplate(dataSource), schedulers,
+                                       quartzProperties.getPartitions().getLeaseMillis());
+    }
+
+  }
+
+  /* serves read only queries from a read replica of jdbc job store database, when
+  quartz.jobstore.replica.url is set */
+  @Configuration
+  @Profile({"mysql-jobstore", "partitioned-jobstore"})
+  @ConditionalOnProperty(prefix = "quartz.jobstore.replica", name = "url")
+  public static class JobStoreReplicaConfiguration {
+
+    @Bean
+    public JobStoreReplica jobStoreReplica(DataSource dataSource,
+                                           QuartzProperties quartzProperties) {
+      QuartzProperties.ReplicaProperties replica = quartzProperties.getJobstore().getReplica();
+      return new JobStoreReplica(new JdbcTemplate(dataSource), replica.buildPoolConfiguration(),
+                                 replica.getHeartbeatMillis(), replica.getMaxLagMillis());
+    }
+
+    @Bean
+    public JobReader jobReader(JobStoreReplica jobStoreReplica,
+                               QuartzSchedulerRouter quartzSchedulerRouter) {
+      return new JdbcJobReader(jobStoreReplica, quartzSchedulerRouter);
+    }
+
+  }
+
+  /* removes completed jobs left in jdbc job stores, which can be disabled by setting
+  quartz.reaper.enabled to false */
+  @Configuration
+  @Profile({"mysql-jobstore", "partitioned-jobstore"})
+  @ConditionalOnProperty(prefix = "quartz.reaper", name = "enabled", havingValue = "true",
+      matchIfMissing = true)
+  public static class JobReaperConfiguration {
+
+    @Bean
+    public JdbcJobReaper jobReaper(DataSource dataSource,
+                                   QuartzSchedulerRouter quartzSchedulerRouter,
+                                   QuartzProperties quartzProperties) {
+      QuartzProperties.ReaperProperties reaper = quartzProperties.getReaper();
+      return new JdbcJobReaper(new JdbcTemplate(dataSource), quartzSchedulerRouter.getSchedulers(),
+                               reaper.getBatchSize(), reaper.getIntervalMillis(),
+                               reaper.isArchive(), reaper.getOrphanedFiredTriggerAgeMillis());
+    }
+
   }
 
 }
@@ -16,7 +16,11 @@
 
 package com.onyxscheduler.quartz;
 
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.SimpleThreadPool;
+import org.quartz.spi.ThreadPool;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
 
@@ -27,24 +31,84 @@ public class QuartzProperties {
 
   private Integer threadCount;
 
+  private ThreadPoolType threadPool;
+
+  private Integer threadKeepAliveSeconds;
+
   private JobStoreProperties jobstore = new JobStoreProperties();
 
+  private BatchAcquisitionProperties batchAcquisition = new BatchAcquisitionProperties();
+
+  private TimingWheelProperties timingWheel = new TimingWheelProperties();
+
+  private JournalProperties journal = new JournalProperties();
+
+  private PartitionProperties partitions = new PartitionProperties();
+
+  private ReaperProperties reaper = new ReaperProperties();
+
   public void setThreadCount(int threadCount) {
     this.threadCount = threadCount;
   }
 
+  public void setThreadPool(ThreadPoolType threadPool) {
+    this.threadPool = threadPool;
+  }
+
+  public void setThreadKeepAliveSeconds(int threadKeepAliveSeconds) {
+    this.threadKeepAliveSeconds = threadKeepAliveSeconds;
+  }
+
   public JobStoreProperties getJobstore() {
     return jobstore;
   }
 
+  public BatchAcquisitionProperties getBatchAcquisition() {
+    return batchAcquisition;
+  }
+
+  public TimingWheelProperties getTimingWheel() {
+    return timingWheel;
+  }
+
+  public JournalProperties getJournal() {
+    return journal;
+  }
+
+  public PartitionProperties getPartitions() {
+    return partitions;
+  }
+
+  public ReaperProperties getReaper() {
+    return reaper;
+  }
+
   public static class JobStoreProperties {
 
     private Boolean isClustered;
 
+    private Boolean acquireTriggersWithinLock;
+
+    private ConnectionPoolProperties pool = new ConnectionPoolProperties();
+
+    private ReplicaProperties replica = new ReplicaProperties();
+
+    public ConnectionPoolProperties getPool() {
+      return pool;
+    }
+
+    public ReplicaProperties getReplica() {
+      return replica;
+    }
+
     public void setClustered(boolean isClustered) {
       this.isClustered = isClustered;
     }
 
+    public void setAcquireTriggersWithinLock(boolean acquireTriggersWithinLock) {
+      this.acquireTriggersWithinLock = acquireTriggersWithinLock;
+    }
+
     public Properties buildQuartzProperties() {
       Properties props = new Properties();
             /* using setProperty with string parameters, since quartz uses getProperty,
@@ -56,10 +120,390 @@ public class QuartzProperties {
         props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".isClustered",
                           isClustered.toString());
       }
+      if (acquireTriggersWithinLock != null) {
+        props.setProperty(
+            StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".acquireTriggersWithinLock",
+            acquireTriggersWithinLock.toString());
+      }
+      return props;
+    }
+  }
+
+  /**
+   * Configures jdbc job store connection pool. <p/> Quartz worker threads need a connection to
+   * complete each fired job, and scheduler, misfire handler and cluster manager threads one each,
+   * so maxActive must be at least threadCount plus QUARTZ_RESERVED_CONNECTIONS per scheduler (which
+   * is validated on startup), and defaults to that plus DEFAULT_EXTRA_CONNECTIONS for api
+   * requests. minIdle defaults to maxActive, since the pool is used on every fire, and
+   * maxWaitMillis is how long a thread waits for a connection before failing.
+   */
+  public static class ConnectionPoolProperties {
+
+    public static final int QUARTZ_RESERVED_CONNECTIONS = 3;
+    public static final int DEFAULT_EXTRA_CONNECTIONS = 5;
+    public static final int DEFAULT_MAX_WAIT_MILLIS = 30000;
+    public static final String DEFAULT_VALIDATION_QUERY = "SELECT 1";
+
+    private Integer maxActive;
+
+    private Integer minIdle;
+
+    private int maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+
+    private String validationQuery = DEFAULT_VALIDATION_QUERY;
+
+    public void setMaxActive(int maxActive) {
+      this.maxActive = maxActive;
+    }
+
+    public void setMinIdle(int minIdle) {
+      this.minIdle = minIdle;
+    }
+
+    public void setMaxWaitMillis(int maxWaitMillis) {
+      this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+      this.validationQuery = validationQuery;
+    }
+
+    public PoolConfiguration buildPoolConfiguration(int threadCount) {
+      return buildPoolConfiguration(threadCount, 1);
+    }
+
+    /**
+     * @param threadCount worker threads using the pool.
+     * @param schedulerCount schedulers using the pool, each one reserving
+     * QUARTZ_RESERVED_CONNECTIONS connections.
+     */
+    public PoolConfiguration buildPoolConfiguration(int threadCount, int schedulerCount) {
+      int reservedConnections = QUARTZ_RESERVED_CONNECTIONS * schedulerCount;
+      int requiredConnections = threadCount + reservedConnections;
+      int resolvedMaxActive = maxActive != null ? maxActive
+          : requiredConnections + DEFAULT_EXTRA_CONNECTIONS;
+      if (resolvedMaxActive < requiredConnections) {
+        throw new IllegalStateException(String.format(
+            "quartz.jobstore.pool.maxActive (%d) must be at least quartz.threadCount (%d) + %d "
+            + "(%d per scheduler), otherwise quartz threads starve waiting for connections",
+            resolvedMaxActive, threadCount, reservedConnections, QUARTZ_RESERVED_CONNECTIONS));
+      }
+      int resolvedMinIdle = minIdle != null ? minIdle : resolvedMaxActive;
+      if (resolvedMinIdle > resolvedMaxActive) {
+        throw new IllegalStateException(String.format(
+            "quartz.jobstore.pool.minIdle (%d) can't be greater than maxActive (%d)",
+            resolvedMinIdle, resolvedMaxActive));
+      }
+      PoolProperties props = new PoolProperties();
+      props.setMaxActive(resolvedMaxActive);
+      props.setMaxIdle(resolvedMaxActive);
+      props.setMinIdle(resolvedMinIdle);
+      props.setInitialSize(resolvedMinIdle);
+      props.setMaxWait(maxWaitMillis);
+      props.setValidationQuery(validationQuery);
+      props.setTestOnBorrow(true);
+      return props;
+    }
+  }
+
+  /**
+   * Configures a read replica of jdbc job store database used for read only queries (see
+   * JobStoreReplica). <p/> url, username, password and driverClassName are its connection settings
+   * (it's only used when url is set), maxActive the max amount of connections to it, and
+   * maxLagMillis the staleness tolerated in its data, which is checked every heartbeatMillis.
+   */
+  public static class ReplicaProperties {
+
+    public static final String DEFAULT_DRIVER_CLASS_NAME = "com.mysql.jdbc.Driver";
+    public static final int DEFAULT_MAX_ACTIVE = 10;
+    public static final long DEFAULT_HEARTBEAT_MILLIS = 1000;
+    public static final long DEFAULT_MAX_LAG_MILLIS = 5000;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName = DEFAULT_DRIVER_CLASS_NAME;
+
+    private int maxActive = DEFAULT_MAX_ACTIVE;
+
+    private long heartbeatMillis = DEFAULT_HEARTBEAT_MILLIS;
+
+    private long maxLagMillis = DEFAULT_MAX_LAG_MILLIS;
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+
+    public void setPassword(String password) {
+      this.password = password;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+      this.driverClassName = driverClassName;
+    }
+
+    public void setMaxActive(int maxActive) {
+      this.maxActive = maxActive;
+    }
+
+    public long getHeartbeatMillis() {
+      return heartbeatMillis;
+    }
+
+    public void setHeartbeatMillis(long heartbeatMillis) {
+      this.heartbeatMillis = heartbeatMillis;
+    }
+
+    public long getMaxLagMillis() {
+      return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+      this.maxLagMillis = maxLagMillis;
+    }
+
+    public PoolConfiguration buildPoolConfiguration() {
+      PoolProperties props = new PoolProperties();
+      props.setUrl(url);
+      props.setUsername(username);
+      props.setPassword(password);
+      props.setDriverClassName(driverClassName);
+      props.setMaxActive(maxActive);
+      props.setMaxIdle(maxActive);
+      props.setDefaultReadOnly(true);
+      props.setValidationQuery(ConnectionPoolProperties.DEFAULT_VALIDATION_QUERY);
+      props.setTestOnBorrow(true);
+      return props;
+    }
+  }
+
+  /**
+   * Allows quartz to acquire and fire several triggers in each scheduler thread round trip, which
+   * in a jdbc job store means a single query and lock for all of them. <p/> maxCount defaults to
+   * threadCount (there is no point in acquiring more triggers than threads to run them) and
+   * fireAheadTimeWindowMillis to 0 (only triggers already due, or due at the same time as the first
+   * acquired one, are batched, so no trigger is fired before its time). <p/> When adaptive is
+   * enabled the amount of acquired triggers grows and shrinks within maxCount depending on the
+   * fire backlog.
+   */
+  public static class BatchAcquisitionProperties {
+
+    private Integer maxCount;
+
+    private Long fireAheadTimeWindowMillis;
+
+    private boolean adaptive;
+
+    public void setMaxCount(int maxCount) {
+      this.maxCount = maxCount;
+    }
+
+    public void setFireAheadTimeWindowMillis(long fireAheadTimeWindowMillis) {
+      this.fireAheadTimeWindowMillis = fireAheadTimeWindowMillis;
+    }
+
+    public boolean isAdaptive() {
+      return adaptive;
+    }
+
+    public void setAdaptive(boolean adaptive) {
+      this.adaptive = adaptive;
+    }
+
+    public int resolveMaxCount(int threadCount) {
+      return maxCount != null ? maxCount : threadCount;
+    }
+
+    public Properties buildQuartzProperties(int threadCount) {
+      Properties props = new Properties();
+      props.setProperty(StdSchedulerFactory.PROP_SCHED_MAX_BATCH_SIZE,
+                        Integer.toString(resolveMaxCount(threadCount)));
+      if (fireAheadTimeWindowMillis != null) {
+        props.setProperty(StdSchedulerFactory.PROP_SCHED_BATCH_TIME_WINDOW,
+                          fireAheadTimeWindowMillis.toString());
+      }
+      if (adaptive) {
+        props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS,
+                          AdaptiveBatchRAMJobStore.class.getName());
+      }
+      return props;
+    }
+  }
+
+  /**
+   * Configures TimingWheelJobStore. <p/> tickMillis is the precision of the wheel: triggers due in
+   * the same tick are kept in the same bucket and only get ordered when the tick is reached, so
+   * smaller ticks mean more frequent cascading of buckets while larger ones mean more triggers
+   * sorted at once.
+   */
+  public static class TimingWheelProperties {
+
+    private Long tickMillis;
+
+    public void setTickMillis(long tickMillis) {
+      this.tickMillis = tickMillis;
+    }
+
+    public Properties buildQuartzProperties() {
+      Properties props = new Properties();
+      props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS,
+                        TimingWheelJobStore.class.getName());
+      if (tickMillis != null) {
+        props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".tickMillis",
+                          tickMillis.toString());
+      }
+      return props;
+    }
+  }
+
+  /**
+   * Configures JournalingJobStore. <p/> directory is where journal and snapshots are stored, and
+   * snapshotThresholdBytes the size the journal can reach before taking a snapshot which allows
+   * discarding it.
+   */
+  public static class JournalProperties {
+
+    private String directory;
+
+    private Long snapshotThresholdBytes;
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    public void setSnapshotThresholdBytes(long snapshotThresholdBytes) {
+      this.snapshotThresholdBytes = snapshotThresholdBytes;
+    }
+
+    public Properties buildQuartzProperties() {
+      Properties props = new Properties();
+      props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS,
+                        JournalingJobStore.class.getName());
+      if (directory != null) {
+        props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".directory", directory);
+      }
+      if (snapshotThresholdBytes != null) {
+        props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".snapshotThresholdBytes",
+                          snapshotThresholdBytes.toString());
+      }
       return props;
     }
   }
 
+  /**
+   * Configures partitioned job store. <p/> count is the amount of partitions jobs are split in
+   * (which can't be changed once jobs are stored, and should be several times the expected amount
+   * of nodes so they can be evenly distributed), and leaseMillis how long a node owns a partition
+   * without renewing its lease (so how long partitions of a dead node take to be processed by
+   * another one).
+   */
+  public static class PartitionProperties {
+
+    public static final int DEFAULT_COUNT = 16;
+    public static final long DEFAULT_LEASE_MILLIS = 30000;
+
+    private int count = DEFAULT_COUNT;
+
+    private long leaseMillis = DEFAULT_LEASE_MILLIS;
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    public long getLeaseMillis() {
+      return leaseMillis;
+    }
+
+    public void setLeaseMillis(long leaseMillis) {
+      this.leaseMillis = leaseMillis;
+    }
+  }
+
+  /**
+   * Configures removal of completed jobs from jdbc job stores. <p/> batchSize is the maximum amount
+   * of jobs (and orphaned fired triggers) removed per scheduler every intervalMillis, archive
+   * whether removed jobs are copied to ONYX_JOB_ARCHIVE table, and orphanedFiredTriggerAgeMillis
+   * how old fired triggers of instances no longer in the cluster have to be to be removed.
+   */
+  public static class ReaperProperties {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_ORPHANED_FIRED_TRIGGER_AGE_MILLIS = 600000;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private long intervalMillis = DEFAULT_INTERVAL_MILLIS;
+
+    private boolean archive;
+
+    private long orphanedFiredTriggerAgeMillis = DEFAULT_ORPHANED_FIRED_TRIGGER_AGE_MILLIS;
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getIntervalMillis() {
+      return intervalMillis;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+      this.intervalMillis = intervalMillis;
+    }
+
+    public boolean isArchive() {
+      return archive;
+    }
+
+    public void setArchive(boolean archive) {
+      this.archive = archive;
+    }
+
+    public long getOrphanedFiredTriggerAgeMillis() {
+      return orphanedFiredTriggerAgeMillis;
+    }
+
+    public void setOrphanedFiredTriggerAgeMillis(long orphanedFiredTriggerAgeMillis) {
+      this.orphanedFiredTriggerAgeMillis = orphanedFiredTriggerAgeMillis;
+    }
+  }
+
+  /**
+   * Thread pools available to run jobs. <p/> Simple is quartz default fixed size thread pool, elastic
+   * creates threads on demand and discards idle ones, and virtual runs each firing in a virtual
+   * thread (only available on JDKs supporting them). In all cases threadCount bounds the amount of
+   * concurrent firings.
+   */
+  public enum ThreadPoolType {
+    SIMPLE(SimpleThreadPool.class), ELASTIC(ElasticThreadPool.class),
+    VIRTUAL(VirtualThreadPool.class);
+
+    private final Class<? extends ThreadPool> threadPoolClass;
+
+    ThreadPoolType(Class<? extends ThreadPool> threadPoolClass) {
+      this.threadPoolClass = threadPoolClass;
+    }
+
+    public Class<? extends ThreadPool> getThreadPoolClass() {
+      return threadPoolClass;
+    }
+  }
+
   public Properties buildQuartzProperties() {
     Properties props = new Properties();
     //skip the check to don't bother with quartz updates
@@ -69,6 +513,87 @@ public class QuartzProperties {
     if (threadCount != null) {
       props.setProperty(SchedulerFactoryBean.PROP_THREAD_COUNT, threadCount.toString());
     }
+    if (threadPool != null) {
+      props.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS,
+                        threadPool.getThreadPoolClass().getName());
+    }
+    //only elastic thread pool supports this property, quartz fails with unknown properties
+    if (threadKeepAliveSeconds != null && threadPool == ThreadPoolType.ELASTIC) {
+      props.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".keepAliveSeconds",
+                        threadKeepAliveSeconds.toString());
+    }
+    props.putAll(batchAcquisition.buildQuartzProperties(resolveThreadCount()));
+    return props;
+  }
+
+  private int resolveThreadCount() {
+    return threadCount != null ? threadCount : SchedulerFactoryBean.DEFAULT_THREAD_COUNT;
+  }
+
+  public PoolConfiguration buildJobStorePoolConfiguration() {
+    return jobstore.getPool().buildPoolConfiguration(resolveThreadCount());
+  }
+
+  public Properties buildJobStoreQuartzProperties() {
+    Properties props = jobstore.buildQuartzProperties();
+    /* quartz recommends acquiring triggers within the lock when acquiring several triggers at
+    once, otherwise different threads could acquire same triggers */
+    if (batchAcquisition.resolveMaxCount(resolveThreadCount()) > 1) {
+      props.putIfAbsent(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".acquireTriggersWithinLock",
+                        Boolean.toString(true));
+    }
+    if (batchAcquisition.isAdaptive()) {
+      props.setProperty(OnyxSchedulerFactory.PROP_JOB_STORE_CLASS_OVERRIDE,
+                        AdaptiveBatchDataSourceJobStore.class.getName());
+    }
+    return props;
+  }
+
+  /* partitions are owned by a single node at a time, but they are clustered so quartz recovers
+  triggers acquired by a previous owner when they change owner. Partitions share a single thread
+  pool (see buildSharedThreadPool), so the configured one is replaced and its properties removed */
+  public Properties buildPartitionedJobStoreQuartzProperties() {
+    Properties props = buildQuartzProperties();
+    props.remove(StdSchedulerFactory.PROP_THREAD_POOL_PREFIX + ".keepAliveSeconds");
+    props.setProperty(StdSchedulerFactory.PROP_THREAD_POOL_CLASS, SharedThreadPool.class.getName());
+    props.putAll(buildJobStoreQuartzProperties());
+    props.setProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".isClustered",
+                      Boolean.toString(true));
+    return props;
+  }
+
+  public ThreadPool buildSharedThreadPool() {
+    int resolvedThreadCount = resolveThreadCount();
+    if (threadPool == ThreadPoolType.ELASTIC) {
+      ElasticThreadPool elasticThreadPool = new ElasticThreadPool();
+      elasticThreadPool.setThreadCount(resolvedThreadCount);
+      if (threadKeepAliveSeconds != null) {
+        elasticThreadPool.setKeepAliveSeconds(threadKeepAliveSeconds);
+      }
+      return elasticThreadPool;
+    }
+    if (threadPool == ThreadPoolType.VIRTUAL) {
+      VirtualThreadPool virtualThreadPool = new VirtualThreadPool();
+      virtualThreadPool.setThreadCount(resolvedThreadCount);
+      return virtualThreadPool;
+    }
+    return new SimpleThreadPool(resolvedThreadCount, Thread.NORM_PRIORITY);
+  }
+
+  /* partition schedulers share worker threads, but each started one has its own scheduler, misfire
+  handler and cluster manager threads */
+  public PoolConfiguration buildPartitionedJobStorePoolConfiguration() {
+    return jobstore.getPool().buildPoolConfiguration(resolveThreadCount(), partitions.getCount());
+  }
+
+  public Properties buildTimingWheelJobStoreQuartzProperties() {
+    return timingWheel.buildQuartzProperties();
+  }
+
+  public Properties buildJournalJobStoreQuartzProperties() {
+    //journaling job store is a timing wheel one, so it also supports its properties
+    Properties props = timingWheel.buildQuartzProperties();
+    props.putAll(journal.buildQuartzProperties());
     return props;
   }
 
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.spi.ThreadPool;
+
+/**
+ * Quartz thread pool delegating to a thread pool shared by several schedulers, so they are bounded
+ * by a single threadCount instead of each having its own threads. <p/> Quartz instantiates thread
+ * pools from their class name, so the shared pool is handed to instances created within
+ * runWithSharedPool (as spring does with SchedulerFactoryBean task executor). The shared pool
+ * lifecycle is not managed by its schedulers, so initialize and shutdown are left to its owner.
+ */
+public class SharedThreadPool implements ThreadPool {
+
+  private static final ThreadLocal<ThreadPool> CONFIG_TIME_POOL = new ThreadLocal<>();
+
+  private final ThreadPool sharedPool;
+
+  public SharedThreadPool() {
+    sharedPool = CONFIG_TIME_POOL.get();
+    if (sharedPool == null) {
+      throw new IllegalStateException(
+          "No shared thread pool found, schedulers must be created within runWithSharedPool");
+    }
+  }
+
+  public static void runWithSharedPool(ThreadPool sharedPool, Runnable runnable) {
+    CONFIG_TIME_POOL.set(sharedPool);
+    try {
+      runnable.run();
+    } finally {
+      CONFIG_TIME_POOL.remove();
+    }
+  }
+
+  //quartz configures threadCount on every thread pool, but the one of the shared pool applies
+  public void setThreadCount(int threadCount) {
+  }
+
+  @Override
+  public boolean runInThread(Runnable runnable) {
+    return sharedPool.runInThread(runnable);
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+    return sharedPool.blockForAvailableThreads();
+  }
+
+  @Override
+  public int getPoolSize() {
+    return sharedPool.getPoolSize();
+  }
+
+  @Override
+  public void initialize() {
+  }
+
+  @Override
+  public void shutdown(boolean waitForJobsToComplete) {
+  }
+
+  @Override
+  public void setInstanceId(String schedInstId) {
+  }
+
+  @Override
+  public void setInstanceName(String schedName) {
+  }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.Calendar;
+import org.quartz.CronExpression;
+import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.JobDetailImpl;
+import org.quartz.impl.triggers.AbstractTrigger;
+import org.quartz.impl.triggers.CronTriggerImpl;
+import org.quartz.impl.triggers.SimpleTriggerImpl;
+import org.quartz.spi.OperableTrigger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary format of JournalingJobStore snapshots. <p/> Jobs, simple triggers and cron
+ * triggers (the ones onyx creates) are written field by field, and string job data maps as
+ * plain strings, instead of using java serialization which writes class descriptors for each
+ * object and needs reflection to read them. Other triggers, non string job data maps and calendars
+ * fall back to java serialization. <p/> Snapshots are a sequence of entries, each one starting
+ * with its type, and ending with an END entry.
+ */
+class SnapshotCodec {
+
+  private static final byte END = 0;
+  private static final byte CALENDAR = 1;
+  private static final byte JOB = 2;
+  private static final byte TRIGGER = 3;
+  private static final byte PAUSED_GROUPS = 4;
+
+  private static final byte SERIALIZED = 0;
+  private static final byte SIMPLE_TRIGGER = 1;
+  private static final byte CRON_TRIGGER = 2;
+  private static final byte STRING_DATA_MAP = 1;
+
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  private static final Trigger.TriggerState[] TRIGGER_STATES = Trigger.TriggerState.values();
+
+  private final ClassLoader classLoader;
+  private final Map<String, Class<? extends Job>> jobClasses = new HashMap<>();
+
+  SnapshotCodec(ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  public static void write(DataOutputStream out, Iterable<JournalRecord> records)
+      throws IOException {
+    for (JournalRecord record : records) {
+      switch (record.getType()) {
+        case STORE_CALENDAR:
+          out.writeByte(CALENDAR);
+          writeString(out, record.getCalendarName());
+          writeBytes(out, JournalRecord.serialize(record.getCalendar()));
+          break;
+        case STORE_JOB:
+          out.writeByte(JOB);
+          writeJob(out, record.getJob());
+          break;
+        case STORE_TRIGGER:
+          out.writeByte(TRIGGER);
+          out.writeByte(record.getTriggerState().ordinal());
+          writeTrigger(out, record.getTrigger());
+          break;
+        case PAUSED_GROUPS:
+          out.writeByte(PAUSED_GROUPS);
+          writeStrings(out, record.getPausedTriggerGroups());
+          writeStrings(out, record.getPausedJobGroups());
+          break;
+        default:
+          throw new IllegalArgumentException("Unexpected snapshot record " + record.getType());
+      }
+    }
+    out.writeByte(END);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+    out.writeInt(values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static void writeJob(DataOutputStream out, JobDetail job) throws IOException {
+    writeString(out, job.getKey().getName());
+    writeString(out, job.getKey().getGroup());
+    writeString(out, job.getJobClass().getName());
+    writeString(out, job.getDescription());
+    out.writeBoolean(job.isDurable());
+    out.writeBoolean(job.requestsRecovery());
+    writeJobDataMap(out, job.getJobDataMap());
+  }
+
+  private static void writeJobDataMap(DataOutputStream out, JobDataMap jobDataMap)
+      throws IOException {
+    if (!jobDataMap.values().stream().allMatch(value -> value instanceof String)) {
+      out.writeByte(SERIALIZED);
+      writeBytes(out, JournalRecord.serialize(jobDataMap));
+      return;
+    }
+    out.writeByte(STRING_DATA_MAP);
+    out.writeInt(jobDataMap.size());
+    for (Map.Entry<String, Object> entry : jobDataMap.entrySet()) {
+      writeString(out, entry.getKey());
+      writeString(out, (String) entry.getValue());
+    }
+  }
+
+  private static void writeTrigger(DataOutputStream out, OperableTrigger trigger)
+      throws IOException {
+    if (trigger.getClass() == SimpleTriggerImpl.class) {
+      SimpleTriggerImpl simpleTrigger = (SimpleTriggerImpl) trigger;
+      out.writeByte(SIMPLE_TRIGGER);
+      writeTriggerCommonFields(out, trigger);
+      out.writeInt(simpleTrigger.getRepeatCount());
+      out.writeLong(simpleTrigger.getRepeatInterval());
+      out.writeInt(simpleTrigger.getTimesTriggered());
+    } else if (trigger.getClass() == CronTriggerImpl.class) {
+      CronTriggerImpl cronTrigger = (CronTriggerImpl) trigger;
+      out.writeByte(CRON_TRIGGER);
+      writeTriggerCommonFields(out, trigger);
+      writeString(out, cronTrigger.getCronExpression());
+      writeString(out, cronTrigger.getTimeZone().getID());
+    } else {
+      out.writeByte(SERIALIZED);
+      writeBytes(out, JournalRecord.serialize(trigger));
+    }
+  }
+
+  private static void writeTriggerCommonFields(DataOutputStream out, OperableTrigger trigger)
+      throws IOException {
+    writeString(out, trigger.getKey().getName());
+    writeString(out, trigger.getKey().getGroup());
+    writeString(out, trigger.getJobKey().getName());
+    writeString(out, trigger.getJobKey().getGroup());
+    writeString(out, trigger.getDescription());
+    writeString(out, trigger.getCalendarName());
+    out.writeInt(trigger.getPriority());
+    out.writeInt(trigger.getMisfireInstruction());
+    writeTime(out, trigger.getStartTime());
+    writeTime(out, trigger.getEndTime());
+    writeTime(out, trigger.getNextFireTime());
+    writeTime(out, trigger.getPreviousFireTime());
+    writeJobDataMap(out, trigger.getJobDataMap());
+  }
+
+  private static void writeTime(DataOutputStream out, Date time) throws IOException {
+    out.writeLong(time == null ? NULL_TIME : time.getTime());
+  }
+
+  /**
+   * Reads records from a snapshot and passes them to the consumer in the same order they were
+   * written.
+   */
+  public void read(MappedFileInput in, Consumer<JournalRecord> consumer)
+      throws IOException, ClassNotFoundException, ParseException {
+    byte entryType;
+    while ((entryType = in.readByte()) != END) {
+      switch (entryType) {
+        case CALENDAR:
+          String name = in.readString();
+          consumer.accept(JournalRecord.storeCalendar(name, (Calendar) readSerialized(in)));
+          break;
+        case JOB:
+          consumer.accept(JournalRecord.storeJob(readJob(in)));
+          break;
+        case TRIGGER:
+          Trigger.TriggerState state = TRIGGER_STATES[in.readByte()];
+          consumer.accept(JournalRecord.storeTrigger(readTrigger(in), state));
+          break;
+        case PAUSED_GROUPS:
+          Set<String> pausedTriggerGroups = readStrings(in);
+          consumer.accept(JournalRecord.pausedGroups(pausedTriggerGroups, readStrings(in)));
+          break;
+        default:
+          throw new IOException("Unknown snapshot entry type " + entryType + " at "
+                                + in.getPosition());
+      }
+    }
+  }
+
+  private Object readSerialized(MappedFileInput in) throws IOException, ClassNotFoundException {
+    return JournalRecord.deserialize(in.readBytes(in.readInt()), classLoader);
+  }
+
+  private static Set<String> readStrings(MappedFileInput in) throws IOException {
+    int size = in.readInt();
+    Set<String> values = new HashSet<>(size * 2);
+    for (int i = 0; i < size; i++) {
+      values.add(in.readString());
+    }
+    return values;
+  }
+
+  private JobDetail readJob(MappedFileInput in) throws IOException, ClassNotFoundException {
+    JobDetailImpl job = new JobDetailImpl();
+    String name = in.readString();
+    job.setKey(new JobKey(name, in.readString()));
+    job.setJobClass(getJobClass(in.readString()));
+    job.setDescription(in.readString());
+    job.setDurability(in.readBoolean());
+    job.setRequestsRecovery(in.readBoolean());
+    job.setJobDataMap(readJobDataMap(in));
+    return job;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Class<? extends Job> getJobClass(String className) throws ClassNotFoundException {
+    Class<? extends Job> jobClass = jobClasses.get(className);
+    if (jobClass == null) {
+      jobClass = (Class<? extends Job>) Class.forName(className, false, classLoader);
+      jobClasses.put(className, jobClass);
+    }
+    return jobClass;
+  }
+
+  private JobDataMap readJobDataMap(MappedFileInput in)
+      throws IOException, ClassNotFoundException {
+    if (in.readByte() == SERIALIZED) {
+      return (JobDataMap) readSerialized(in);
+    }
+    int size = in.readInt();
+    JobDataMap jobDataMap = new JobDataMap();
+    for (int i = 0; i < size; i++) {
+      String key = in.readString();
+      jobDataMap.put(key, in.readString());
+    }
+    jobDataMap.clearDirtyFlag();
+    return jobDataMap;
+  }
+
+  private OperableTrigger readTrigger(MappedFileInput in)
+      throws IOException, ClassNotFoundException, ParseException {
+    byte triggerType = in.readByte();
+    switch (triggerType) {
+      case SIMPLE_TRIGGER:
+        SimpleTriggerImpl simpleTrigger = new SimpleTriggerImpl();
+        readTriggerCommonFields(in, simpleTrigger);
+        simpleTrigger.setRepeatCount(in.readInt());
+        simpleTrigger.setRepeatInterval(in.readLong());
+        simpleTrigger.setTimesTriggered(in.readInt());
+        return simpleTrigger;
+      case CRON_TRIGGER:
+        CronTriggerImpl cronTrigger = new CronTriggerImpl();
+        readTriggerCommonFields(in, cronTrigger);
+        String expression = in.readString();
+        /* each trigger gets its own expression, since setting the time zone of a trigger changes
+        the one of its expression */
+        CronExpression cronExpression = new CronExpression(expression);
+        cronExpression.setTimeZone(TimeZone.getTimeZone(in.readString()));
+        cronTrigger.setCronExpression(cronExpression);
+        return cronTrigger;
+      case SERIALIZED:
+        return (OperableTrigger) readSerialized(in);
+      default:
+        throw new IOException("Unknown snapshot trigger type " + triggerType + " at "
+                              + in.getPosition());
+    }
+  }
+
+  private void readTriggerCommonFields(MappedFileInput in, AbstractTrigger<?> trigger)
+      throws IOException, ClassNotFoundException {
+    String name = in.readString();
+    trigger.setKey(new TriggerKey(name, in.readString()));
+    String jobName = in.readString();
+    trigger.setJobKey(new JobKey(jobName, in.readString()));
+    trigger.setDescription(in.readString());
+    trigger.setCalendarName(in.readString());
+    trigger.setPriority(in.readInt());
+    trigger.setMisfireInstruction(in.readInt());
+    //start time has to be set before end time, since setting end time validates it
+    trigger.setStartTime(readTime(in));
+    trigger.setEndTime(readTime(in));
+    trigger.setNextFireTime(readTime(in));
+    trigger.setPreviousFireTime(readTime(in));
+    trigger.setJobDataMap(readJobDataMap(in));
+  }
+
+  private static Date readTime(MappedFileInput in) throws IOException {
+    long time = in.readLong();
+    return time == NULL_TIME ? null : new Date(time);
+  }
+
+}
@@ -0,0 +1,1098 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.Calendar;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.impl.matchers.StringMatcher;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In memory JobStore which keeps waiting triggers in a HierarchicalTimingWheel instead of the
+ * TreeSet used by RAMJobStore. <p/> Storing, removing and firing triggers are O(1) operations
+ * instead of O(log n) on all pending triggers, which keeps the store lock held for short and
+ * constant times with millions of pending one shot triggers. Only triggers due until the end of
+ * the acquisition window are kept ordered. <p/> Apart from that, behavior mirrors RAMJobStore
+ * (misfires handling, triggers states, non concurrent jobs blocking, non durable jobs removal,
+ * pausing and resuming, etc). Jobs also keep their triggers to avoid looking them up among all
+ * triggers. <p/> Quartz sets tickMillis (org.quartz.jobStore.tickMillis) and misfireThreshold
+ * (org.quartz.jobStore.misfireThreshold) before initializing the store.
+ */
+public class TimingWheelJobStore implements JobStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimingWheelJobStore.class);
+
+  public static final long DEFAULT_TICK_MILLIS = 1000;
+
+  private static final AtomicLong FIRED_TRIGGER_RECORD_COUNTER =
+      new AtomicLong(System.currentTimeMillis());
+
+  /* same order as quartz Trigger.TriggerTimeComparator for triggers with same fire time: higher
+  priority first, and then by key */
+  private static final Comparator<TriggerWrapper> PRIORITY_THEN_KEY = (tw1, tw2) -> {
+    int priorityComparison = Integer.compare(tw2.trigger.getPriority(), tw1.trigger.getPriority());
+    return priorityComparison != 0 ? priorityComparison : tw1.key.compareTo(tw2.key);
+  };
+
+  private enum State {
+    WAITING, ACQUIRED, COMPLETE, PAUSED, BLOCKED, PAUSED_BLOCKED, ERROR
+  }
+
+  private static class JobWrapper {
+
+    private final JobKey key;
+    private JobDetail jobDetail;
+    private final List<TriggerWrapper> triggers = new ArrayList<>();
+
+    private JobWrapper(JobDetail jobDetail) {
+      this.key = jobDetail.getKey();
+      this.jobDetail = jobDetail;
+    }
+  }
+
+  private static class TriggerWrapper extends HierarchicalTimingWheel.Entry {
+
+    private final TriggerKey key;
+    private final JobKey jobKey;
+    private final OperableTrigger trigger;
+    private State state = State.WAITING;
+
+    private TriggerWrapper(OperableTrigger trigger) {
+      this.key = trigger.getKey();
+      this.jobKey = trigger.getJobKey();
+      this.trigger = trigger;
+    }
+  }
+
+  protected final Object lock = new Object();
+  private final Map<JobKey, JobWrapper> jobsByKey = new HashMap<>();
+  private final Map<String, Map<JobKey, JobWrapper>> jobsByGroup = new HashMap<>();
+  private final Map<TriggerKey, TriggerWrapper> triggersByKey = new HashMap<>();
+  private final Map<String, Map<TriggerKey, TriggerWrapper>> triggersByGroup = new HashMap<>();
+  private final Map<String, Calendar> calendarsByName = new HashMap<>();
+  private final Set<String> pausedTriggerGroups = new HashSet<>();
+  private final Set<String> pausedJobGroups = new HashSet<>();
+  private final Set<JobKey> blockedJobs = new HashSet<>();
+  private HierarchicalTimingWheel<TriggerWrapper> timeTriggers;
+  private List<TriggerWrapper> unindexedTriggers = new ArrayList<>();
+  private SchedulerSignaler signaler;
+  private long tickMillis = DEFAULT_TICK_MILLIS;
+  private long misfireThreshold = 5000;
+
+  public long getTickMillis() {
+    return tickMillis;
+  }
+
+  public void setTickMillis(long tickMillis) {
+    if (tickMillis < 1) {
+      throw new IllegalArgumentException("tickMillis must be larger than 0");
+    }
+    this.tickMillis = tickMillis;
+  }
+
+  public long getMisfireThreshold() {
+    return misfireThreshold;
+  }
+
+  public void setMisfireThreshold(long misfireThreshold) {
+    if (misfireThreshold < 1) {
+      throw new IllegalArgumentException("Misfire threshold must be larger than 0");
+    }
+    this.misfireThreshold = misfireThreshold;
+  }
+
+  @Override
+  public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler)
+      throws SchedulerConfigException {
+    this.signaler = signaler;
+    this.timeTriggers = new HierarchicalTimingWheel<>(tickMillis, System.currentTimeMillis(),
+                                                      PRIORITY_THEN_KEY);
+    LOG.info("TimingWheelJobStore initialized with ticks of {} ms.", tickMillis);
+  }
+
+  @Override
+  public void schedulerStarted() {
+  }
+
+  @Override
+  public void schedulerPaused() {
+  }
+
+  @Override
+  public void schedulerResumed() {
+  }
+
+  @Override
+  public void shutdown() {
+  }
+
+  @Override
+  public boolean supportsPersistence() {
+    return false;
+  }
+
+  @Override
+  public long getEstimatedTimeToReleaseAndAcquireTrigger() {
+    return 5;
+  }
+
+  @Override
+  public boolean isClustered() {
+    return false;
+  }
+
+  /*
+  callbacks invoked holding the lock each time stored data changes, which allow subclasses to
+  persist it. Given objects are the stored ones, so they must be copied if they are kept.
+   */
+
+  protected void jobStored(JobDetail job) {
+  }
+
+  protected void jobRemoved(JobKey jobKey) {
+  }
+
+  protected void triggerStored(OperableTrigger trigger, Trigger.TriggerState state) {
+  }
+
+  protected void triggerRemoved(TriggerKey triggerKey) {
+  }
+
+  protected void calendarStored(String name, Calendar calendar) {
+  }
+
+  protected void calendarRemoved(String name) {
+  }
+
+  protected void pausedGroupsChanged(Set<String> pausedTriggerGroups,
+                                     Set<String> pausedJobGroups) {
+  }
+
+  protected void schedulingDataCleared() {
+  }
+
+  /**
+   * Invokes store callbacks for all the stored data, as if it was just stored. <p/> Has to be
+   * invoked holding the lock.
+   */
+  protected void notifyStoredData() {
+    calendarsByName.forEach(this::calendarStored);
+    jobsByKey.values().forEach(jw -> jobStored(jw.jobDetail));
+    triggersByKey.values().forEach(this::triggerChanged);
+    pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+  }
+
+  private void triggerChanged(TriggerWrapper tw) {
+    triggerStored(tw.trigger, toTriggerState(tw.state));
+  }
+
+  /**
+   * Stores a trigger with given state without any validation nor callbacks, to restore
+   * previously persisted data. <p/> Blocked and acquired triggers are restored as waiting ones,
+   * since no job is running when data is restored. Waiting triggers are added to the timing wheel
+   * on first acquisition, so restoring data doesn't pay for it.
+   */
+  protected void restoreTrigger(OperableTrigger trigger, Trigger.TriggerState state) {
+    TriggerWrapper tw = new TriggerWrapper(trigger);
+    synchronized (lock) {
+      removeTrigger(tw.key, false);
+      JobWrapper jw = jobsByKey.get(tw.jobKey);
+      if (jw == null) {
+        LOG.warn("Ignoring trigger {} since its job {} does not exist.", tw.key, tw.jobKey);
+        return;
+      }
+      jw.triggers.add(tw);
+      triggersByKey.put(tw.key, tw);
+      triggersByGroup.computeIfAbsent(tw.key.getGroup(), group -> new HashMap<>()).put(tw.key, tw);
+      switch (state) {
+        case PAUSED:
+          tw.state = State.PAUSED;
+          break;
+        case COMPLETE:
+          tw.state = State.COMPLETE;
+          break;
+        case ERROR:
+          tw.state = State.ERROR;
+          break;
+        default:
+          unindexedTriggers.add(tw);
+      }
+    }
+  }
+
+  private void indexRestoredTriggers() {
+    for (TriggerWrapper tw : unindexedTriggers) {
+      //restored triggers may have been removed, replaced or changed state since restored
+      if (tw.state == State.WAITING && triggersByKey.get(tw.key) == tw
+          && !timeTriggers.contains(tw)) {
+        addToTimeTriggers(tw);
+      }
+    }
+    LOG.info("Indexed {} restored triggers.", unindexedTriggers.size());
+    unindexedTriggers = new ArrayList<>();
+  }
+
+  protected void restoreRemovedTrigger(TriggerKey triggerKey) {
+    removeTrigger(triggerKey, false);
+  }
+
+  protected void restorePausedGroups(Set<String> pausedTriggerGroups,
+                                     Set<String> pausedJobGroups) {
+    synchronized (lock) {
+      this.pausedTriggerGroups.clear();
+      this.pausedTriggerGroups.addAll(pausedTriggerGroups);
+      this.pausedJobGroups.clear();
+      this.pausedJobGroups.addAll(pausedJobGroups);
+    }
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+    synchronized (lock) {
+      storeJob(newJob, false);
+      storeTrigger(newTrigger, false);
+    }
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting)
+      throws ObjectAlreadyExistsException {
+    JobDetail jobDetail = (JobDetail) newJob.clone();
+    synchronized (lock) {
+      JobWrapper existing = jobsByKey.get(jobDetail.getKey());
+      if (existing != null) {
+        if (!replaceExisting) {
+          throw new ObjectAlreadyExistsException(newJob);
+        }
+        existing.jobDetail = jobDetail;
+        jobStored(jobDetail);
+        return;
+      }
+      JobWrapper jw = new JobWrapper(jobDetail);
+      jobsByKey.put(jw.key, jw);
+      jobsByGroup.computeIfAbsent(jw.key.getGroup(), group -> new HashMap<>()).put(jw.key, jw);
+      jobStored(jobDetail);
+    }
+  }
+
+  @Override
+  public void storeJobsAndTriggers(Map<JobDetail, Set<? extends Trigger>> triggersAndJobs,
+                                   boolean replace) throws JobPersistenceException {
+    synchronized (lock) {
+      if (!replace) {
+        for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+          if (checkExists(entry.getKey().getKey())) {
+            throw new ObjectAlreadyExistsException(entry.getKey());
+          }
+          for (Trigger trigger : entry.getValue()) {
+            if (checkExists(trigger.getKey())) {
+              throw new ObjectAlreadyExistsException(trigger);
+            }
+          }
+        }
+      }
+      for (Map.Entry<JobDetail, Set<? extends Trigger>> entry : triggersAndJobs.entrySet()) {
+        storeJob(entry.getKey(), true);
+        for (Trigger trigger : entry.getValue()) {
+          storeTrigger((OperableTrigger) trigger, true);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean removeJob(JobKey jobKey) {
+    synchronized (lock) {
+      JobWrapper jw = jobsByKey.get(jobKey);
+      if (jw == null) {
+        return false;
+      }
+      for (TriggerWrapper tw : new ArrayList<>(jw.triggers)) {
+        removeTrigger(tw.key, false);
+      }
+      jobsByKey.remove(jobKey);
+      removeFromGroup(jobsByGroup, jobKey.getGroup(), jobKey);
+      jobRemoved(jobKey);
+      return true;
+    }
+  }
+
+  private static <K> void removeFromGroup(Map<String, ? extends Map<K, ?>> groups, String group,
+                                          K key) {
+    Map<K, ?> groupMap = groups.get(group);
+    if (groupMap != null) {
+      groupMap.remove(key);
+      if (groupMap.isEmpty()) {
+        groups.remove(group);
+      }
+    }
+  }
+
+  @Override
+  public boolean removeJobs(List<JobKey> jobKeys) {
+    synchronized (lock) {
+      boolean allFound = true;
+      for (JobKey jobKey : jobKeys) {
+        allFound = removeJob(jobKey) && allFound;
+      }
+      return allFound;
+    }
+  }
+
+  @Override
+  public JobDetail retrieveJob(JobKey jobKey) {
+    synchronized (lock) {
+      JobWrapper jw = jobsByKey.get(jobKey);
+      return jw != null ? (JobDetail) jw.jobDetail.clone() : null;
+    }
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+    TriggerWrapper tw = new TriggerWrapper((OperableTrigger) newTrigger.clone());
+    synchronized (lock) {
+      if (triggersByKey.containsKey(tw.key)) {
+        if (!replaceExisting) {
+          throw new ObjectAlreadyExistsException(newTrigger);
+        }
+        removeTrigger(tw.key, false);
+      }
+      JobWrapper jw = jobsByKey.get(tw.jobKey);
+      if (jw == null) {
+        throw new JobPersistenceException(
+            "The job (" + tw.jobKey + ") referenced by the trigger does not exist.");
+      }
+      jw.triggers.add(tw);
+      triggersByKey.put(tw.key, tw);
+      triggersByGroup.computeIfAbsent(tw.key.getGroup(), group -> new HashMap<>()).put(tw.key, tw);
+
+      boolean blocked = blockedJobs.contains(tw.jobKey);
+      if (pausedTriggerGroups.contains(tw.key.getGroup())
+          || pausedJobGroups.contains(tw.jobKey.getGroup())) {
+        tw.state = blocked ? State.PAUSED_BLOCKED : State.PAUSED;
+      } else if (blocked) {
+        tw.state = State.BLOCKED;
+      } else {
+        addToTimeTriggers(tw);
+      }
+      triggerChanged(tw);
+    }
+  }
+
+  private void addToTimeTriggers(TriggerWrapper tw) {
+    Date nextFireTime = tw.trigger.getNextFireTime();
+    if (nextFireTime != null) {
+      timeTriggers.add(tw, nextFireTime.getTime());
+    }
+  }
+
+  @Override
+  public boolean removeTrigger(TriggerKey triggerKey) {
+    return removeTrigger(triggerKey, true);
+  }
+
+  private boolean removeTrigger(TriggerKey key, boolean removeOrphanedJob) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.remove(key);
+      if (tw == null) {
+        return false;
+      }
+      removeFromGroup(triggersByGroup, key.getGroup(), key);
+      timeTriggers.remove(tw);
+      triggerRemoved(key);
+      JobWrapper jw = jobsByKey.get(tw.jobKey);
+      if (jw != null) {
+        jw.triggers.remove(tw);
+        if (removeOrphanedJob && jw.triggers.isEmpty() && !jw.jobDetail.isDurable()
+            && removeJob(jw.key)) {
+          signaler.notifySchedulerListenersJobDeleted(jw.key);
+        }
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public boolean removeTriggers(List<TriggerKey> triggerKeys) {
+    synchronized (lock) {
+      boolean allFound = true;
+      for (TriggerKey triggerKey : triggerKeys) {
+        allFound = removeTrigger(triggerKey) && allFound;
+      }
+      return allFound;
+    }
+  }
+
+  @Override
+  public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(triggerKey);
+      if (tw == null) {
+        return false;
+      }
+      if (!tw.jobKey.equals(newTrigger.getJobKey())) {
+        throw new JobPersistenceException(
+            "New trigger is not related to the same job as the old trigger.");
+      }
+      removeTrigger(triggerKey, false);
+      try {
+        storeTrigger(newTrigger, false);
+      } catch (JobPersistenceException e) {
+        //put previous trigger back
+        storeTrigger(tw.trigger, false);
+        throw e;
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public OperableTrigger retrieveTrigger(TriggerKey triggerKey) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(triggerKey);
+      return tw != null ? (OperableTrigger) tw.trigger.clone() : null;
+    }
+  }
+
+  @Override
+  public boolean checkExists(JobKey jobKey) {
+    synchronized (lock) {
+      return jobsByKey.containsKey(jobKey);
+    }
+  }
+
+  @Override
+  public boolean checkExists(TriggerKey triggerKey) {
+    synchronized (lock) {
+      return triggersByKey.containsKey(triggerKey);
+    }
+  }
+
+  @Override
+  public void clearAllSchedulingData() {
+    synchronized (lock) {
+      jobsByKey.clear();
+      jobsByGroup.clear();
+      triggersByKey.clear();
+      triggersByGroup.clear();
+      calendarsByName.clear();
+      pausedTriggerGroups.clear();
+      pausedJobGroups.clear();
+      blockedJobs.clear();
+      timeTriggers.clear();
+      schedulingDataCleared();
+    }
+  }
+
+  @Override
+  public void storeCalendar(String name, Calendar calendar, boolean replaceExisting,
+                            boolean updateTriggers) throws ObjectAlreadyExistsException {
+    Calendar calendarCopy = (Calendar) calendar.clone();
+    synchronized (lock) {
+      Calendar existing = calendarsByName.get(name);
+      if (existing != null && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(
+            "Calendar with name '" + name + "' already exists.");
+      }
+      calendarsByName.put(name, calendarCopy);
+      calendarStored(name, calendarCopy);
+      if (existing != null && updateTriggers) {
+        for (TriggerWrapper tw : getTriggerWrappersForCalendar(name)) {
+          boolean removed = timeTriggers.remove(tw);
+          tw.trigger.updateWithNewCalendar(calendarCopy, misfireThreshold);
+          if (removed) {
+            addToTimeTriggers(tw);
+          }
+          triggerChanged(tw);
+        }
+      }
+    }
+  }
+
+  private List<TriggerWrapper> getTriggerWrappersForCalendar(String calendarName) {
+    return triggersByKey.values().stream()
+        .filter(tw -> calendarName.equals(tw.trigger.getCalendarName()))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public boolean removeCalendar(String calName) throws JobPersistenceException {
+    synchronized (lock) {
+      if (!getTriggerWrappersForCalendar(calName).isEmpty()) {
+        throw new JobPersistenceException(
+            "Calender cannot be removed if it referenced by a Trigger!");
+      }
+      if (calendarsByName.remove(calName) == null) {
+        return false;
+      }
+      calendarRemoved(calName);
+      return true;
+    }
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+    synchronized (lock) {
+      Calendar calendar = calendarsByName.get(calName);
+      return calendar != null ? (Calendar) calendar.clone() : null;
+    }
+  }
+
+  @Override
+  public int getNumberOfJobs() {
+    synchronized (lock) {
+      return jobsByKey.size();
+    }
+  }
+
+  @Override
+  public int getNumberOfTriggers() {
+    synchronized (lock) {
+      return triggersByKey.size();
+    }
+  }
+
+  @Override
+  public int getNumberOfCalendars() {
+    synchronized (lock) {
+      return calendarsByName.size();
+    }
+  }
+
+  @Override
+  public Set<JobKey> getJobKeys(GroupMatcher<JobKey> matcher) {
+    synchronized (lock) {
+      return getKeys(jobsByGroup, matcher);
+    }
+  }
+
+  private static <K extends org.quartz.utils.Key<K>> Set<K> getKeys(
+      Map<String, ? extends Map<K, ?>> groups, GroupMatcher<K> matcher) {
+    Set<K> keys = new HashSet<>();
+    for (String group : getMatchingGroups(groups.keySet(), matcher)) {
+      keys.addAll(groups.get(group).keySet());
+    }
+    return keys;
+  }
+
+  private static List<String> getMatchingGroups(Collection<String> groups,
+                                                GroupMatcher<?> matcher) {
+    StringMatcher.StringOperatorName operator = matcher.getCompareWithOperator();
+    String value = matcher.getCompareToValue();
+    if (operator == StringMatcher.StringOperatorName.EQUALS) {
+      return groups.contains(value) ? Collections.singletonList(value)
+                                    : Collections.<String>emptyList();
+    }
+    return groups.stream()
+        .filter(group -> operator.evaluate(group, value))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public Set<TriggerKey> getTriggerKeys(GroupMatcher<TriggerKey> matcher) {
+    synchronized (lock) {
+      return getKeys(triggersByGroup, matcher);
+    }
+  }
+
+  @Override
+  public List<String> getJobGroupNames() {
+    synchronized (lock) {
+      return new ArrayList<>(jobsByGroup.keySet());
+    }
+  }
+
+  @Override
+  public List<String> getTriggerGroupNames() {
+    synchronized (lock) {
+      return new ArrayList<>(triggersByGroup.keySet());
+    }
+  }
+
+  @Override
+  public List<String> getCalendarNames() {
+    synchronized (lock) {
+      return new ArrayList<>(calendarsByName.keySet());
+    }
+  }
+
+  @Override
+  public List<OperableTrigger> getTriggersForJob(JobKey jobKey) {
+    synchronized (lock) {
+      return getTriggerWrappersForJob(jobKey).stream()
+          .map(tw -> (OperableTrigger) tw.trigger.clone())
+          .collect(Collectors.toList());
+    }
+  }
+
+  private List<TriggerWrapper> getTriggerWrappersForJob(JobKey jobKey) {
+    JobWrapper jw = jobsByKey.get(jobKey);
+    return jw != null ? new ArrayList<>(jw.triggers) : Collections.<TriggerWrapper>emptyList();
+  }
+
+  @Override
+  public Trigger.TriggerState getTriggerState(TriggerKey triggerKey) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(triggerKey);
+      return tw != null ? toTriggerState(tw.state) : Trigger.TriggerState.NONE;
+    }
+  }
+
+  private static Trigger.TriggerState toTriggerState(State state) {
+    switch (state) {
+      case COMPLETE:
+        return Trigger.TriggerState.COMPLETE;
+      case PAUSED:
+      case PAUSED_BLOCKED:
+        return Trigger.TriggerState.PAUSED;
+      case BLOCKED:
+        return Trigger.TriggerState.BLOCKED;
+      case ERROR:
+        return Trigger.TriggerState.ERROR;
+      default:
+        return Trigger.TriggerState.NORMAL;
+    }
+  }
+
+  @Override
+  public void pauseTrigger(TriggerKey triggerKey) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(triggerKey);
+      if (tw == null || tw.state == State.COMPLETE) {
+        return;
+      }
+      tw.state = tw.state == State.BLOCKED ? State.PAUSED_BLOCKED : State.PAUSED;
+      timeTriggers.remove(tw);
+      triggerChanged(tw);
+    }
+  }
+
+  @Override
+  public Collection<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+    synchronized (lock) {
+      List<String> pausedGroups = new ArrayList<>();
+      Collection<String> groups = matcher.getCompareWithOperator()
+                                  == StringMatcher.StringOperatorName.EQUALS
+                                  ? Collections.singletonList(matcher.getCompareToValue())
+                                  : getMatchingGroups(triggersByGroup.keySet(), matcher);
+      for (String group : groups) {
+        if (pausedTriggerGroups.add(group)) {
+          pausedGroups.add(group);
+        }
+      }
+      if (!pausedGroups.isEmpty()) {
+        pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+      }
+      for (String group : pausedGroups) {
+        for (TriggerKey key : getTriggerKeys(GroupMatcher.triggerGroupEquals(group))) {
+          pauseTrigger(key);
+        }
+      }
+      return pausedGroups;
+    }
+  }
+
+  @Override
+  public void pauseJob(JobKey jobKey) {
+    synchronized (lock) {
+      for (TriggerWrapper tw : getTriggerWrappersForJob(jobKey)) {
+        pauseTrigger(tw.key);
+      }
+    }
+  }
+
+  @Override
+  public Collection<String> pauseJobs(GroupMatcher<JobKey> matcher) {
+    synchronized (lock) {
+      List<String> pausedGroups = new ArrayList<>();
+      Collection<String> groups = matcher.getCompareWithOperator()
+                                  == StringMatcher.StringOperatorName.EQUALS
+                                  ? Collections.singletonList(matcher.getCompareToValue())
+                                  : getMatchingGroups(jobsByGroup.keySet(), matcher);
+      for (String group : groups) {
+        if (pausedJobGroups.add(group)) {
+          pausedGroups.add(group);
+        }
+      }
+      if (!pausedGroups.isEmpty()) {
+        pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+      }
+      for (String group : pausedGroups) {
+        for (JobKey jobKey : getJobKeys(GroupMatcher.jobGroupEquals(group))) {
+          pauseJob(jobKey);
+        }
+      }
+      return pausedGroups;
+    }
+  }
+
+  @Override
+  public void resumeTrigger(TriggerKey triggerKey) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(triggerKey);
+      //resuming a non paused trigger makes no sense
+      if (tw == null || tw.state != State.PAUSED && tw.state != State.PAUSED_BLOCKED) {
+        return;
+      }
+      tw.state = blockedJobs.contains(tw.jobKey) ? State.BLOCKED : State.WAITING;
+      applyMisfire(tw);
+      if (tw.state == State.WAITING) {
+        addToTimeTriggers(tw);
+      }
+      triggerChanged(tw);
+    }
+  }
+
+  @Override
+  public Collection<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+    synchronized (lock) {
+      Set<String> groups = new HashSet<>();
+      for (TriggerKey triggerKey : getTriggerKeys(matcher)) {
+        groups.add(triggerKey.getGroup());
+        TriggerWrapper tw = triggersByKey.get(triggerKey);
+        if (tw != null && pausedJobGroups.contains(tw.jobKey.getGroup())) {
+          continue;
+        }
+        resumeTrigger(triggerKey);
+      }
+      if (pausedTriggerGroups.removeAll(groups)) {
+        pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+      }
+      return new ArrayList<>(groups);
+    }
+  }
+
+  @Override
+  public Set<String> getPausedTriggerGroups() {
+    synchronized (lock) {
+      return new HashSet<>(pausedTriggerGroups);
+    }
+  }
+
+  @Override
+  public void resumeJob(JobKey jobKey) {
+    synchronized (lock) {
+      for (TriggerWrapper tw : getTriggerWrappersForJob(jobKey)) {
+        resumeTrigger(tw.key);
+      }
+    }
+  }
+
+  @Override
+  public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) {
+    synchronized (lock) {
+      Set<String> resumedGroups = pausedJobGroups.stream()
+          .filter(group -> matcher.getCompareWithOperator()
+              .evaluate(group, matcher.getCompareToValue()))
+          .collect(Collectors.toSet());
+      if (pausedJobGroups.removeAll(resumedGroups)) {
+        pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+      }
+      for (JobKey jobKey : getJobKeys(matcher)) {
+        resumeJob(jobKey);
+      }
+      return resumedGroups;
+    }
+  }
+
+  @Override
+  public void pauseAll() {
+    synchronized (lock) {
+      for (String group : getTriggerGroupNames()) {
+        pauseTriggers(GroupMatcher.triggerGroupEquals(group));
+      }
+    }
+  }
+
+  @Override
+  public void resumeAll() {
+    synchronized (lock) {
+      if (!pausedJobGroups.isEmpty()) {
+        pausedJobGroups.clear();
+        pausedGroupsChanged(pausedTriggerGroups, pausedJobGroups);
+      }
+      resumeTriggers(GroupMatcher.anyTriggerGroup());
+    }
+  }
+
+  /**
+   * Updates the trigger if it has misfired, as RAMJobStore does.
+   *
+   * @return true if the next fire time of the trigger changed.
+   */
+  private boolean applyMisfire(TriggerWrapper tw) {
+    long misfireTime = System.currentTimeMillis() - misfireThreshold;
+    Date nextFireTime = tw.trigger.getNextFireTime();
+    if (nextFireTime == null || nextFireTime.getTime() > misfireTime
+        || tw.trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+      return false;
+    }
+    Calendar calendar = null;
+    if (tw.trigger.getCalendarName() != null) {
+      calendar = retrieveCalendar(tw.trigger.getCalendarName());
+    }
+    signaler.notifyTriggerListenersMisfired((OperableTrigger) tw.trigger.clone());
+    tw.trigger.updateAfterMisfire(calendar);
+    if (tw.trigger.getNextFireTime() == null) {
+      tw.state = State.COMPLETE;
+      triggerChanged(tw);
+      signaler.notifySchedulerListenersFinalized(tw.trigger);
+      timeTriggers.remove(tw);
+      return true;
+    }
+    triggerChanged(tw);
+    return !nextFireTime.equals(tw.trigger.getNextFireTime());
+  }
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount,
+                                                   long timeWindow) {
+    synchronized (lock) {
+      if (!unindexedTriggers.isEmpty()) {
+        indexRestoredTriggers();
+      }
+      List<OperableTrigger> result = new ArrayList<>();
+      Set<JobKey> acquiredNonConcurrentJobKeys = new HashSet<>();
+      List<TriggerWrapper> excludedTriggers = new ArrayList<>();
+      long batchEnd = noLaterThan;
+      TriggerWrapper tw;
+      while ((tw = timeTriggers.first(batchEnd)) != null) {
+        timeTriggers.remove(tw);
+        if (applyMisfire(tw)) {
+          if (tw.trigger.getNextFireTime() != null) {
+            addToTimeTriggers(tw);
+          }
+          continue;
+        }
+        JobDetail job = jobsByKey.get(tw.jobKey).jobDetail;
+        if (job.isConcurrentExectionDisallowed()
+            && !acquiredNonConcurrentJobKeys.add(tw.jobKey)) {
+          //the job has already a trigger in this batch, so this one has to wait for next batches
+          excludedTriggers.add(tw);
+          continue;
+        }
+        //as in RAMJobStore, the window for the rest of the batch starts from the first trigger
+        if (result.isEmpty()) {
+          batchEnd = Math.max(tw.trigger.getNextFireTime().getTime(), System.currentTimeMillis())
+                     + timeWindow;
+        }
+        tw.state = State.ACQUIRED;
+        tw.trigger.setFireInstanceId(getFiredTriggerRecordId());
+        result.add((OperableTrigger) tw.trigger.clone());
+        if (result.size() == maxCount) {
+          break;
+        }
+      }
+      excludedTriggers.forEach(this::addToTimeTriggers);
+      return result;
+    }
+  }
+
+  private static String getFiredTriggerRecordId() {
+    return String.valueOf(FIRED_TRIGGER_RECORD_COUNTER.incrementAndGet());
+  }
+
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) {
+    synchronized (lock) {
+      TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+      if (tw != null && tw.state == State.ACQUIRED) {
+        tw.state = State.WAITING;
+        addToTimeTriggers(tw);
+      }
+    }
+  }
+
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+    synchronized (lock) {
+      List<TriggerFiredResult> results = new ArrayList<>();
+      for (OperableTrigger trigger : firedTriggers) {
+        TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+        //the trigger could have been deleted, completed, paused, blocked, etc since acquired
+        if (tw == null || tw.state != State.ACQUIRED) {
+          continue;
+        }
+        Calendar calendar = null;
+        if (tw.trigger.getCalendarName() != null) {
+          calendar = retrieveCalendar(tw.trigger.getCalendarName());
+          if (calendar == null) {
+            continue;
+          }
+        }
+        Date previousFireTime = trigger.getPreviousFireTime();
+        //in case trigger was replaced between acquiring and firing
+        timeTriggers.remove(tw);
+        tw.trigger.triggered(calendar);
+        trigger.triggered(calendar);
+        tw.state = State.WAITING;
+        triggerChanged(tw);
+
+        TriggerFiredBundle bundle = new TriggerFiredBundle(
+            retrieveJob(tw.jobKey), trigger, calendar, false, new Date(),
+            trigger.getPreviousFireTime(), previousFireTime, trigger.getNextFireTime());
+        JobDetail job = bundle.getJobDetail();
+        if (job.isConcurrentExectionDisallowed()) {
+          for (TriggerWrapper jobTrigger : getTriggerWrappersForJob(job.getKey())) {
+            if (jobTrigger.state == State.WAITING) {
+              jobTrigger.state = State.BLOCKED;
+            } else if (jobTrigger.state == State.PAUSED) {
+              jobTrigger.state = State.PAUSED_BLOCKED;
+            }
+            timeTriggers.remove(jobTrigger);
+          }
+          blockedJobs.add(job.getKey());
+        } else {
+          addToTimeTriggers(tw);
+        }
+        results.add(new TriggerFiredResult(bundle));
+      }
+      return results;
+    }
+  }
+
+  @Override
+  public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+                                   Trigger.CompletedExecutionInstruction triggerInstCode) {
+    synchronized (lock) {
+      JobWrapper jw = jobsByKey.get(jobDetail.getKey());
+      TriggerWrapper tw = triggersByKey.get(trigger.getKey());
+      if (jw != null) {
+        JobDetail storedJob = jw.jobDetail;
+        if (storedJob.isPersistJobDataAfterExecution()) {
+          JobDataMap newData = jobDetail.getJobDataMap();
+          if (newData != null) {
+            newData = (JobDataMap) newData.clone();
+            newData.clearDirtyFlag();
+          }
+          storedJob = storedJob.getJobBuilder().setJobData(newData).build();
+          jw.jobDetail = storedJob;
+          jobStored(storedJob);
+        }
+        if (storedJob.isConcurrentExectionDisallowed()) {
+          blockedJobs.remove(storedJob.getKey());
+          for (TriggerWrapper jobTrigger : jw.triggers) {
+            if (jobTrigger.state == State.BLOCKED) {
+              jobTrigger.state = State.WAITING;
+              addToTimeTriggers(jobTrigger);
+            } else if (jobTrigger.state == State.PAUSED_BLOCKED) {
+              jobTrigger.state = State.PAUSED;
+            }
+          }
+          signaler.signalSchedulingChange(0L);
+        }
+      } else {
+        //even if the job was deleted there may be cleanup to do
+        blockedJobs.remove(jobDetail.getKey());
+      }
+
+      //the trigger could have been deleted during execution
+      if (tw == null) {
+        return;
+      }
+      switch (triggerInstCode) {
+        case DELETE_TRIGGER:
+          if (trigger.getNextFireTime() == null) {
+            //the trigger could have been rescheduled during the execution
+            if (tw.trigger.getNextFireTime() == null) {
+              removeTrigger(trigger.getKey());
+            }
+          } else {
+            removeTrigger(trigger.getKey());
+            signaler.signalSchedulingChange(0L);
+          }
+          break;
+        case SET_TRIGGER_COMPLETE:
+          tw.state = State.COMPLETE;
+          timeTriggers.remove(tw);
+          triggerChanged(tw);
+          signaler.signalSchedulingChange(0L);
+          break;
+        case SET_TRIGGER_ERROR:
+          LOG.info("Trigger {} set to ERROR state.", trigger.getKey());
+          tw.state = State.ERROR;
+          triggerChanged(tw);
+          signaler.signalSchedulingChange(0L);
+          break;
+        case SET_ALL_JOB_TRIGGERS_ERROR:
+          LOG.info("All triggers of Job {} set to ERROR state.", trigger.getJobKey());
+          setAllTriggersOfJobToState(trigger.getJobKey(), State.ERROR);
+          signaler.signalSchedulingChange(0L);
+          break;
+        case SET_ALL_JOB_TRIGGERS_COMPLETE:
+          setAllTriggersOfJobToState(trigger.getJobKey(), State.COMPLETE);
+          signaler.signalSchedulingChange(0L);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private void setAllTriggersOfJobToState(JobKey jobKey, State state) {
+    for (TriggerWrapper tw : getTriggerWrappersForJob(jobKey)) {
+      tw.state = state;
+      timeTriggers.remove(tw);
+      triggerChanged(tw);
+    }
+  }
+
+  @Override
+  public void setInstanceId(String schedInstId) {
+  }
+
+  @Override
+  public void setInstanceName(String schedName) {
+  }
+
+  @Override
+  public void setThreadPoolSize(int poolSize) {
+  }
+
+}
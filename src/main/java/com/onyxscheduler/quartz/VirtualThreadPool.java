@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.quartz.SchedulerConfigException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thread pool which runs each firing in a new virtual thread, so threads blocked on I/O (as http
+ * jobs do) are cheap. threadCount in this case just bounds the amount of concurrent firings. <p/>
+ * Requires a JDK supporting virtual threads (21+). Since the project is built for java 8 the
+ * executor is obtained through reflection.
+ */
+public class VirtualThreadPool extends ExecutorThreadPool {
+
+  @Override
+  protected ExecutorService buildExecutor(int threadCount) throws SchedulerConfigException {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new SchedulerConfigException(
+          "Virtual threads are not supported by current JVM (" + System.getProperty(
+              "java.version") + "), use a JDK 21+ or a different thread pool", e);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new SchedulerConfigException("Could not create virtual thread executor", e);
+    }
+  }
+
+}
@@ -16,26 +16,44 @@
 
 package com.onyxscheduler.web;
 
+import com.google.common.collect.ImmutableMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.onyxscheduler.domain.Job;
 import com.onyxscheduler.domain.JobKey;
+import com.onyxscheduler.domain.Operation;
+import com.onyxscheduler.domain.OperationManager;
+import com.onyxscheduler.domain.ScheduleResult;
 import com.onyxscheduler.domain.Scheduler;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.Set;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
@@ -47,11 +65,33 @@ import javax.servlet.http.HttpServletResponse;
 @RequestMapping("/onyx")
 public class JobController {
 
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+  public static final int MAX_PAGE_LIMIT = 1000;
+  public static final int DEFAULT_ASYNC_DELETE_THRESHOLD = 1000;
+  private static final int STREAMING_PAGE_SIZE = 1000;
+
   private final Scheduler scheduler;
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter jobKeyWriter;
+  private final JobImporter jobImporter;
+  private final OperationManager operationManager;
+  private int asyncDeleteThreshold = DEFAULT_ASYNC_DELETE_THRESHOLD;
 
   @Autowired
-  public JobController(Scheduler scheduler) {
+  public JobController(Scheduler scheduler, MappingJackson2HttpMessageConverter jacksonConverter,
+                       JobImporter jobImporter, OperationManager operationManager) {
     this.scheduler = scheduler;
+    this.operationManager = operationManager;
+    this.objectMapper = jacksonConverter.getObjectMapper();
+    //flushing is done once per page instead of once per key
+    this.jobKeyWriter = objectMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.jobImporter = jobImporter;
+  }
+
+  @Value("${onyx.scheduler.asyncDeleteThreshold:" + DEFAULT_ASYNC_DELETE_THRESHOLD + "}")
+  public void setAsyncDeleteThreshold(int asyncDeleteThreshold) {
+    this.asyncDeleteThreshold = asyncDeleteThreshold;
   }
 
   @RequestMapping(value = "/groups/{group}/jobs", method = RequestMethod.POST)
@@ -78,19 +118,119 @@ public class JobController {
     }
   }
 
+  @RequestMapping(value = "/groups/{group}/jobs:batch", method = RequestMethod.POST,
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public List<ScheduleResult> addJobs(@PathVariable String group, @RequestBody List<Job> jobs) {
+    return scheduler.scheduleJobs(group, jobs);
+  }
+
+  @RequestMapping(value = "/groups/{group}/jobs:batch", method = RequestMethod.POST,
+      consumes = NDJSON_VALUE)
+  public List<ScheduleResult> addNdjsonJobs(@PathVariable String group, HttpServletRequest request)
+      throws IOException {
+    try (MappingIterator<Job> jobs = objectMapper.reader(Job.class)
+        .readValues(request.getInputStream())) {
+      return scheduler.scheduleJobs(group, jobs.readAll());
+    }
+  }
+
+  @RequestMapping(value = "/groups/{group}/jobs:import", method = RequestMethod.POST)
+  public void importJobs(@PathVariable String group, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON_VALUE);
+    jobImporter.importJobs(group, request.getInputStream(), response.getOutputStream());
+  }
+
   @ExceptionHandler(Scheduler.DuplicateJobKeyException.class)
   void handleBadRequests(HttpServletResponse response) throws IOException {
     response.sendError(HttpStatus.BAD_REQUEST.value());
   }
 
   @RequestMapping(value = "/jobs", method = RequestMethod.GET)
-  public Set<JobKey> getJobKeys() {
-    return scheduler.getJobKeys();
+  public void getJobKeys(@RequestParam Optional<String> cursor, HttpServletResponse response)
+      throws IOException, InvalidCursorException {
+    streamJobKeys(Optional.empty(), decodeCursor(cursor), response);
+  }
+
+  @RequestMapping(value = "/jobs", method = RequestMethod.GET, params = "limit")
+  public JobKeysPage getJobKeysPage(@RequestParam int limit, @RequestParam Optional<String> cursor)
+      throws InvalidCursorException, InvalidLimitException {
+    return buildJobKeysPage(Optional.empty(), limit, decodeCursor(cursor));
   }
 
   @RequestMapping(value = "/groups/{group}/jobs", method = RequestMethod.GET)
-  public Set<JobKey> getJobKeysByGroup(@PathVariable String group) {
-    return scheduler.getJobKeysByGroup(group);
+  public void getJobKeysByGroup(@PathVariable String group, @RequestParam Optional<String> cursor,
+                                HttpServletResponse response)
+      throws IOException, InvalidCursorException {
+    streamJobKeys(Optional.of(group), decodeCursor(cursor), response);
+  }
+
+  @RequestMapping(value = "/groups/{group}/jobs", method = RequestMethod.GET, params = "limit")
+  public JobKeysPage getJobKeysPageByGroup(@PathVariable String group, @RequestParam int limit,
+                                           @RequestParam Optional<String> cursor)
+      throws InvalidCursorException, InvalidLimitException {
+    return buildJobKeysPage(Optional.of(group), limit, decodeCursor(cursor));
+  }
+
+  private Optional<JobKey> decodeCursor(Optional<String> cursor) throws InvalidCursorException {
+    if (!cursor.isPresent()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(JobKeyCursor.decode(cursor.get()));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(cursor.get(), e);
+    }
+  }
+
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  static class InvalidCursorException extends Exception {
+
+    public InvalidCursorException(String cursor, IllegalArgumentException e) {
+      super("invalid cursor '" + cursor + "', use one returned in a previous page.", e);
+    }
+  }
+
+  /* keys are written and flushed page by page, as they are got from scheduler, to avoid holding
+  all of them in memory */
+  private void streamJobKeys(Optional<String> group, Optional<JobKey> after,
+                             HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    try (JsonGenerator generator = objectMapper.getFactory()
+        .createGenerator(response.getOutputStream())) {
+      generator.writeStartArray();
+      Iterator<List<JobKey>> pages =
+          scheduler.iterateJobKeyPages(group, after, STREAMING_PAGE_SIZE);
+      while (pages.hasNext()) {
+        for (JobKey key : pages.next()) {
+          jobKeyWriter.writeValue(generator, key);
+        }
+        generator.flush();
+      }
+      generator.writeEndArray();
+    }
+  }
+
+  private JobKeysPage buildJobKeysPage(Optional<String> group, int limit, Optional<JobKey> after)
+      throws InvalidLimitException {
+    if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+      throw new InvalidLimitException(limit);
+    }
+    //getting an additional key to know if there is a next page
+    List<JobKey> keys = scheduler.getJobKeysPage(group, after, limit + 1);
+    if (keys.size() <= limit) {
+      return new JobKeysPage(keys, null);
+    }
+    List<JobKey> pageKeys = keys.subList(0, limit);
+    return new JobKeysPage(pageKeys, JobKeyCursor.encode(pageKeys.get(limit - 1)));
+  }
+
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  static class InvalidLimitException extends Exception {
+
+    public InvalidLimitException(int limit) {
+      super("limit should be between 1 and " + MAX_PAGE_LIMIT + " but was " + limit + ".");
+    }
   }
 
   @RequestMapping(value = "/groups/{group}/jobs/{name}", method = RequestMethod.GET)
@@ -109,4 +249,35 @@ public class JobController {
     return ResponseEntity.noContent().build();
   }
 
+  /**
+   * Deletes all jobs of a group. <p/> Groups with up to asyncDeleteThreshold jobs are deleted right
+   * away returning the number of deleted jobs, while bigger ones are deleted by a background
+   * operation, returning 202 with the location of the operation to check its progress.
+   */
+  @RequestMapping(value = "/groups/{group}/jobs", method = RequestMethod.DELETE)
+  public ResponseEntity<?> deleteJobsByGroup(@PathVariable String group) {
+    List<JobKey> keys =
+        scheduler.getCurrentJobKeysPage(Optional.of(group), Optional.empty(),
+                                        asyncDeleteThreshold + 1);
+    if (keys.size() <= asyncDeleteThreshold) {
+      return ResponseEntity.ok(buildDeletedBody(scheduler.deleteJobs(keys)));
+    }
+    Operation operation = operationManager.submit(
+        "delete jobs of group '" + group + "'",
+        op -> scheduler.deleteJobsByGroup(group, op::addProcessed));
+    URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+        .path("/onyx/operations/{id}").buildAndExpand(operation.getId())
+        .toUri();
+    return ResponseEntity.accepted().location(location).body(operation);
+  }
+
+  private static Map<String, Long> buildDeletedBody(long deleted) {
+    return ImmutableMap.of("deleted", deleted);
+  }
+
+  @RequestMapping(value = "/jobs:delete", method = RequestMethod.POST)
+  public Map<String, Long> deleteJobs(@RequestBody List<JobKey> jobKeys) {
+    return buildDeletedBody(scheduler.deleteJobs(jobKeys));
+  }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.onyxscheduler.domain.Job;
+import com.onyxscheduler.domain.ScheduleResult;
+import com.onyxscheduler.domain.Scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Imports arbitrarily large sets of jobs keeping memory bounded. <p/> Jobs are read one at a time
+ * with jackson streaming parser (either from one JSON job per line or from a JSON array of jobs)
+ * and scheduled in chunks of importChunkSize jobs. Results of each chunk are written (as one JSON
+ * result per line) and flushed as soon as the chunk is scheduled, so neither the request nor the
+ * response are ever fully held in memory.
+ */
+@Component
+public class JobImporter {
+
+  public static final int DEFAULT_IMPORT_CHUNK_SIZE = 500;
+
+  private final Scheduler scheduler;
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter resultWriter;
+  private int importChunkSize = DEFAULT_IMPORT_CHUNK_SIZE;
+
+  @Autowired
+  public JobImporter(Scheduler scheduler, MappingJackson2HttpMessageConverter jacksonConverter) {
+    this(scheduler, jacksonConverter.getObjectMapper());
+  }
+
+  JobImporter(Scheduler scheduler, ObjectMapper objectMapper) {
+    this.scheduler = scheduler;
+    this.objectMapper = objectMapper;
+    this.resultWriter = objectMapper.writer();
+  }
+
+  @Value("${onyx.scheduler.importChunkSize:" + DEFAULT_IMPORT_CHUNK_SIZE + "}")
+  public void setImportChunkSize(int importChunkSize) {
+    this.importChunkSize = importChunkSize;
+  }
+
+  public void importJobs(String group, InputStream input, OutputStream output) throws IOException {
+    List<ImportItem> chunk = new ArrayList<>(importChunkSize);
+    try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        token = parser.nextToken();
+      }
+      while (token != null && token != JsonToken.END_ARRAY) {
+        /* reading each job as a tree first keeps the parser in a consistent position even when the
+        job can't be bound, which allows reporting it and going on with the next one */
+        JsonNode node = objectMapper.readTree(parser);
+        chunk.add(readItem(group, node));
+        if (chunk.size() == importChunkSize) {
+          importChunk(group, chunk, output);
+          chunk.clear();
+        }
+        token = parser.nextToken();
+      }
+      importChunk(group, chunk, output);
+    } catch (JsonProcessingException e) {
+      //malformed JSON, so there is no way to find where next job starts
+      importChunk(group, chunk, output);
+      writeLine(ImmutableMap.of("error", e.getOriginalMessage()), output);
+      output.flush();
+    }
+  }
+
+  private ImportItem readItem(String group, JsonNode node) {
+    try {
+      return new ImportItem(objectMapper.treeToValue(node, Job.class));
+    } catch (JsonProcessingException e) {
+      return new ImportItem(ScheduleResult.invalid(node.path("group").asText(group),
+                                                   node.path("name").asText(null),
+                                                   e.getOriginalMessage()));
+    }
+  }
+
+  private static class ImportItem {
+
+    private final Job job;
+    private final ScheduleResult result;
+
+    private ImportItem(Job job) {
+      this.job = job;
+      this.result = null;
+    }
+
+    private ImportItem(ScheduleResult result) {
+      this.job = null;
+      this.result = result;
+    }
+  }
+
+  private void importChunk(String group, List<ImportItem> chunk, OutputStream output)
+      throws IOException {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    List<Job> jobs = chunk.stream()
+        .filter(item -> item.job != null)
+        .map(item -> item.job)
+        .collect(Collectors.toList());
+    Iterator<ScheduleResult> results = scheduler.scheduleJobs(group, jobs).iterator();
+    for (ImportItem item : chunk) {
+      writeLine(item.job != null ? results.next() : item.result, output);
+    }
+    output.flush();
+  }
+
+  private void writeLine(Object value, OutputStream output) throws IOException {
+    output.write(resultWriter.writeValueAsBytes(value));
+    output.write('\n');
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.google.common.base.Charsets;
+
+import com.onyxscheduler.domain.JobKey;
+
+import java.util.Base64;
+
+/**
+ * Opaque cursors for job keys listing pages. <p/> Cursors just encode the last job key of a page,
+ * which is what the scheduler needs to get the next one, but clients should not rely on its
+ * content.
+ */
+final class JobKeyCursor {
+
+  private static final char GROUP_LENGTH_SEPARATOR = ':';
+
+  private JobKeyCursor() {
+  }
+
+  static String encode(JobKey key) {
+    String raw = key.getGroup().length() + String.valueOf(GROUP_LENGTH_SEPARATOR) + key.getGroup()
+                 + key.getName();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(Charsets.UTF_8));
+  }
+
+  static JobKey decode(String cursor) {
+    String raw = new String(Base64.getUrlDecoder().decode(cursor), Charsets.UTF_8);
+    int separatorIndex = raw.indexOf(GROUP_LENGTH_SEPARATOR);
+    if (separatorIndex < 0) {
+      throw new IllegalArgumentException("missing group length");
+    }
+    int groupStart = separatorIndex + 1;
+    int groupEnd = groupStart + Integer.parseInt(raw.substring(0, separatorIndex));
+    if (groupEnd < groupStart || groupEnd > raw.length()) {
+      throw new IllegalArgumentException("wrong group length");
+    }
+    return new JobKey(raw.substring(groupStart, groupEnd), raw.substring(groupEnd));
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.onyxscheduler.domain.JobKey;
+
+import java.util.List;
+
+/**
+ * Page of job keys returned when listing jobs with a limit. <p/> cursor is only present when there
+ * are more job keys, and has to be sent in the next request to get them.
+ */
+public class JobKeysPage {
+
+  private final List<JobKey> keys;
+  private final String cursor;
+
+  public JobKeysPage(List<JobKey> keys, String cursor) {
+    this.keys = keys;
+    this.cursor = cursor;
+  }
+
+  public List<JobKey> getKeys() {
+    return keys;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.onyxscheduler.domain.Operation;
+import com.onyxscheduler.domain.OperationManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+/**
+ * Allows checking progress and outcome of background operations started through the API (like
+ * deleting jobs of big groups).
+ */
+@RestController
+@RequestMapping("/onyx")
+public class OperationController {
+
+  private final OperationManager operationManager;
+
+  @Autowired
+  public OperationController(OperationManager operationManager) {
+    this.operationManager = operationManager;
+  }
+
+  @RequestMapping(value = "/operations/{id}", method = RequestMethod.GET)
+  public ResponseEntity<Operation> getOperation(@PathVariable UUID id) {
+    return operationManager.getOperation(id)
+        .map(ResponseEntity::ok)
+        .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+  }
+
+}
@@ -32,6 +32,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.MalformedURLException;
@@ -46,6 +47,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
 import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.onyxscheduler.util.PollingVerifier.pollingVerify;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @Configuration
@@ -123,4 +125,23 @@ public class HttpJobExecutionIT {
     verify(postRequestedFor(urlEqualTo(TEST_PATH)).withHeader(key, equalTo(value)));
   }
 
+  @Test
+  public void shouldSendPostToServerWhenRunWithAsyncRestTemplate() {
+    job.setAsyncRestTemplate(new AsyncRestTemplate());
+    job.run();
+    pollingVerify(() -> verify(postRequestedFor(urlEqualTo(TEST_PATH))));
+  }
+
+  @Test
+  public void shouldSendSpecifiedBodyAndHeadersToServerWhenRunWithAsyncRestTemplate() {
+    String testingBody = "Testing body", key = "k1", value = "v1";
+    job.setAsyncRestTemplate(new AsyncRestTemplate());
+    job.setBody(testingBody);
+    job.setHeaders(ImmutableMap.of(key, value));
+    job.run();
+    pollingVerify(() -> verify(postRequestedFor(urlEqualTo(TEST_PATH))
+                                   .withRequestBody(equalTo(testingBody))
+                                   .withHeader(key, equalTo(value))));
+  }
+
 }
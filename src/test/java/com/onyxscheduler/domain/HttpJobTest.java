@@ -18,16 +18,54 @@ package com.onyxscheduler.domain;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import com.onyxscheduler.http.CircuitBreakers;
+import com.onyxscheduler.http.FiringThrottle;
+import com.onyxscheduler.http.HostBulkheads;
+import com.onyxscheduler.http.RequestCoalescer;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class HttpJobTest extends JobTest {
 
   private static final URL URL = buildUrl();
+  private static final long DEFER_MILLIS = 1000;
+  private static final long WINDOW_MILLIS = 60000;
 
   private static URL buildUrl() {
     try {
@@ -68,4 +106,321 @@ public class HttpJobTest extends JobTest {
     verifyGettingSameJobWhenBuildingJobBackFromGeneratedJobDetail(job);
   }
 
+  @Test
+  public void shouldGetSameJobWhenBuildingJobBackFromGeneratedJobDetailWithRetryPolicy() {
+    HttpJob job = new HttpJob();
+    job.setUrl(URL);
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setMaxAttempts(5);
+    retryPolicy.setRetryableStatusCodes(ImmutableSet.of(503));
+    job.setRetryPolicy(retryPolicy);
+    verifyGettingSameJobWhenBuildingJobBackFromGeneratedJobDetail(job);
+  }
+
+  @Test
+  public void shouldGetSameJobWhenBuildingJobBackFromLegacyJobDetail() {
+    HttpJob job = new HttpJob();
+    job.setUrl(URL);
+    job.setMethod(HttpMethod.PUT);
+    job.setBody("test");
+    job.setHeaders(ImmutableMap.of("h1", "v1"));
+    verifyGettingSameJobWhenBuildingJobBackFromLegacyJobDetail(job);
+  }
+
+  @Test
+  public void shouldStoreDataInSingleDataMapEntryWhenBuildingJobDetail() {
+    HttpJob job = new HttpJob();
+    job.setUrl(URL);
+    job.setBody("test");
+    job.setHeaders(ImmutableMap.of("h1", "v1"));
+    job.setName("name");
+    job.setGroup("group");
+
+    JobDataMap dataMap = job.buildQuartzJobDetail().getJobDataMap();
+
+    assertThat(dataMap.keySet(), containsInAnyOrder(Job.ID_DATAMAP_KEY, Job.DATA_DATAMAP_KEY));
+  }
+
+  @Test
+  public void shouldDeferExecutionWhenExecuteWithSaturatedHost() throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    HttpJob job = buildJob(restTemplate);
+    job.setHostBulkheads(buildHostBulkheads(0));
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+
+    job.execute(buildExecutionContext(job, quartzScheduler));
+
+    ArgumentCaptor<org.quartz.Trigger> trigger = ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).scheduleJob(trigger.capture());
+    assertThat(trigger.getValue().getKey().getGroup(), is(Job.DEFERRED_TRIGGER_GROUP));
+    verify(restTemplate, never())
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+  }
+
+  private HttpJob buildJob(RestTemplate restTemplate) {
+    HttpJob job = new HttpJob();
+    job.setUrl(URL);
+    job.setName("name");
+    job.setGroup("group");
+    job.setRestTemplate(restTemplate);
+    return job;
+  }
+
+  private static HostBulkheads buildHostBulkheads(int maxConcurrentPerHost) {
+    return new HostBulkheads(maxConcurrentPerHost, Collections.emptyMap(), 0, DEFER_MILLIS);
+  }
+
+  private JobExecutionContext buildExecutionContext(HttpJob job,
+                                                    org.quartz.Scheduler quartzScheduler) {
+    JobExecutionContext context = mock(JobExecutionContext.class);
+    JobDetail jobDetail = job.buildQuartzJobDetail();
+    when(context.getScheduler()).thenReturn(quartzScheduler);
+    when(context.getJobDetail()).thenReturn(jobDetail);
+    when(context.getTrigger()).thenReturn(TriggerBuilder.newTrigger().build());
+    return context;
+  }
+
+  @Test
+  public void shouldReleaseHostPermitWhenRequestCompletes() throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    HttpJob job = buildJob(restTemplate);
+    job.setHostBulkheads(buildHostBulkheads(1));
+    JobExecutionContext context = buildExecutionContext(job, mock(org.quartz.Scheduler.class));
+
+    job.execute(context);
+    job.execute(context);
+
+    verify(restTemplate, times(2))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+  }
+
+  @Test
+  public void shouldScheduleRetryWithNextAttemptWhenExecuteFailsWithRetryableStatusCode()
+      throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+    HttpJob job = buildJob(restTemplate);
+    job.setRetryPolicy(new RetryPolicy());
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+
+    job.execute(buildExecutionContext(job, quartzScheduler));
+
+    ArgumentCaptor<org.quartz.Trigger> trigger = ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).scheduleJob(trigger.capture());
+    assertThat(trigger.getValue().getJobDataMap().getString(HttpJob.ATTEMPT_DATAMAP_KEY),
+               is("2"));
+  }
+
+  @Test
+  public void shouldMovePendingRetryTriggerToRetryWhenAsyncRequestFails() throws Exception {
+    SettableListenableFuture<ResponseEntity<String>> response = new SettableListenableFuture<>();
+    HttpJob job = buildAsyncJobWithRetryPolicy(response);
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    when(quartzScheduler.rescheduleJob(any(TriggerKey.class), any(org.quartz.Trigger.class)))
+        .thenReturn(new Date());
+    job.execute(buildExecutionContext(job, quartzScheduler));
+    ArgumentCaptor<org.quartz.Trigger> pendingRetryTrigger =
+        ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).scheduleJob(pendingRetryTrigger.capture());
+    TriggerKey pendingRetryTriggerKey = pendingRetryTrigger.getValue().getKey();
+
+    response.setException(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+    ArgumentCaptor<org.quartz.Trigger> trigger = ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).rescheduleJob(eq(pendingRetryTriggerKey), trigger.capture());
+    assertThat(trigger.getValue().getJobDataMap().getString(HttpJob.ATTEMPT_DATAMAP_KEY),
+               is("2"));
+  }
+
+  private HttpJob buildAsyncJobWithRetryPolicy(ListenableFuture<ResponseEntity<String>> response) {
+    HttpJob job = buildJob(mock(RestTemplate.class));
+    job.setAsyncRestTemplate(buildAsyncRestTemplate(response));
+    job.setRetryPolicy(new RetryPolicy());
+    return job;
+  }
+
+  @Test
+  public void shouldUnschedulePendingRetryTriggerWhenAsyncRequestSucceeds() throws Exception {
+    SettableListenableFuture<ResponseEntity<String>> response = new SettableListenableFuture<>();
+    HttpJob job = buildAsyncJobWithRetryPolicy(response);
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    job.execute(buildExecutionContext(job, quartzScheduler));
+    ArgumentCaptor<org.quartz.Trigger> pendingRetryTrigger =
+        ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).scheduleJob(pendingRetryTrigger.capture());
+    TriggerKey pendingRetryTriggerKey = pendingRetryTrigger.getValue().getKey();
+
+    response.set(new ResponseEntity<>(HttpStatus.OK));
+
+    verify(quartzScheduler).unscheduleJob(pendingRetryTriggerKey);
+  }
+
+  @Test
+  public void shouldNotRecreateJobWhenDeletedBeforeAsyncRequestFails() throws Exception {
+    SettableListenableFuture<ResponseEntity<String>> response = new SettableListenableFuture<>();
+    HttpJob job = buildAsyncJobWithRetryPolicy(response);
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    job.execute(buildExecutionContext(job, quartzScheduler));
+    //deleting the job (as done through the API) deletes its pending retry trigger too
+    when(quartzScheduler.rescheduleJob(any(TriggerKey.class), any(org.quartz.Trigger.class)))
+        .thenReturn(null);
+
+    response.setException(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+    verify(quartzScheduler, times(1)).scheduleJob(any(org.quartz.Trigger.class));
+    verify(quartzScheduler, never()).scheduleJob(any(JobDetail.class),
+                                                 any(org.quartz.Trigger.class));
+    verify(quartzScheduler, never()).addJob(any(JobDetail.class), anyBoolean());
+  }
+
+  private AsyncRestTemplate buildAsyncRestTemplate(
+      ListenableFuture<ResponseEntity<String>> response) {
+    AsyncRestTemplate asyncRestTemplate = mock(AsyncRestTemplate.class);
+    when(asyncRestTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                                    eq(String.class)))
+        .thenReturn(response);
+    return asyncRestTemplate;
+  }
+
+  @Test(expected = HttpClientErrorException.class)
+  public void shouldPropagateFailureWhenExecuteFailsWithNonRetryableStatusCode()
+      throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+    HttpJob job = buildJob(restTemplate);
+    job.setRetryPolicy(new RetryPolicy());
+
+    job.execute(buildExecutionContext(job, mock(org.quartz.Scheduler.class)));
+  }
+
+  @Test
+  public void shouldSkipExecutionWhenCircuitOpenWithSkipPolicy() throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+    HttpJob job = buildJob(restTemplate);
+    job.setCircuitBreakers(new CircuitBreakers(1, 60000, CircuitBreakers.OpenPolicy.SKIP, 0));
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    JobExecutionContext context = buildExecutionContext(job, quartzScheduler);
+    try {
+      job.execute(context);
+    } catch (HttpServerErrorException e) {
+      //expected, since there is no retry policy
+    }
+
+    job.execute(context);
+
+    verify(restTemplate, times(1))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+    verify(quartzScheduler, never()).scheduleJob(any(org.quartz.Trigger.class));
+  }
+
+  @Test
+  public void shouldDeferExecutionToReservedSlotWhenGroupRateExceeded() throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    HttpJob job = buildJob(restTemplate);
+    job.setFiringThrottle(new FiringThrottle(0, 0, ImmutableMap.of(job.getGroup(), 1.0), 0));
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    JobExecutionContext context = buildExecutionContext(job, quartzScheduler);
+    job.execute(context);
+
+    job.execute(context);
+
+    ArgumentCaptor<org.quartz.Trigger> trigger = ArgumentCaptor.forClass(org.quartz.Trigger.class);
+    verify(quartzScheduler).scheduleJob(trigger.capture());
+    assertThat(trigger.getValue().getJobDataMap()
+                   .containsKey(HttpJob.SLOT_RESERVED_DATAMAP_KEY), is(true));
+    verify(restTemplate, times(1))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+  }
+
+  @Test
+  public void shouldNotReserveAnotherSlotWhenFiredBySlotReservedTrigger() throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    HttpJob job = buildJob(restTemplate);
+    job.setFiringThrottle(new FiringThrottle(0, 0, ImmutableMap.of(job.getGroup(), 1.0), 0));
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    JobExecutionContext context = buildExecutionContext(job, quartzScheduler);
+    job.execute(context);
+    when(context.getTrigger()).thenReturn(TriggerBuilder.newTrigger()
+                                              .usingJobData(HttpJob.SLOT_RESERVED_DATAMAP_KEY,
+                                                            Boolean.TRUE.toString())
+                                              .build());
+
+    job.execute(context);
+
+    verify(restTemplate, times(2))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+  }
+
+  @Test
+  public void shouldSendSingleRequestWhenExecuteIdenticalRequestsWithCoalescing()
+      throws Exception {
+    RestTemplate restTemplate = mock(RestTemplate.class);
+    when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class),
+                               eq(String.class)))
+        .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+    HttpJob job = buildJob(restTemplate);
+    job.setRequestCoalescer(new RequestCoalescer(WINDOW_MILLIS));
+    JobExecutionContext context = buildExecutionContext(job, mock(org.quartz.Scheduler.class));
+
+    job.execute(context);
+    job.execute(context);
+
+    verify(restTemplate, times(1))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+  }
+
+  @Test
+  public void shouldNotDeferCoalescedRequestWhenHostSaturatedByItsLeader() throws Exception {
+    HttpJob job = buildJob(mock(RestTemplate.class));
+    job.setHostBulkheads(buildHostBulkheads(1));
+    AsyncRestTemplate asyncRestTemplate =
+        buildAsyncRestTemplate(new SettableListenableFuture<>());
+    job.setAsyncRestTemplate(asyncRestTemplate);
+    job.setRequestCoalescer(new RequestCoalescer(WINDOW_MILLIS));
+    org.quartz.Scheduler quartzScheduler = mock(org.quartz.Scheduler.class);
+    JobExecutionContext context = buildExecutionContext(job, quartzScheduler);
+
+    job.execute(context);
+    job.execute(context);
+
+    verify(asyncRestTemplate, times(1))
+        .exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+    verify(quartzScheduler, never()).scheduleJob(any(org.quartz.Trigger.class));
+  }
+
+  @Test
+  public void shouldReportSingleFailureToCircuitBreakerWhenCoalescedRequestFails()
+      throws Exception {
+    SettableListenableFuture<ResponseEntity<String>> response = new SettableListenableFuture<>();
+    HttpJob job = buildJob(mock(RestTemplate.class));
+    job.setAsyncRestTemplate(buildAsyncRestTemplate(response));
+    job.setRequestCoalescer(new RequestCoalescer(WINDOW_MILLIS));
+    CircuitBreakers circuitBreakers =
+        new CircuitBreakers(5, 60000, CircuitBreakers.OpenPolicy.SKIP, 0);
+    job.setCircuitBreakers(circuitBreakers);
+    JobExecutionContext context = buildExecutionContext(job, mock(org.quartz.Scheduler.class));
+    job.execute(context);
+    job.execute(context);
+
+    response.setException(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+    assertThat(circuitBreakers.getCircuitBreaker(URL).getConsecutiveFailures(), is(1));
+  }
+
 }
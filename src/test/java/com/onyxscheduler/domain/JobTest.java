@@ -16,6 +16,10 @@
 
 package com.onyxscheduler.domain;
 
+import org.quartz.JobBuilder;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+
 import java.util.Set;
 
 import static com.onyxscheduler.util.TriggerTestUtils.buildTriggers;
@@ -44,4 +48,23 @@ public abstract class JobTest {
     assertThat(restoredJob, is(originalJob));
   }
 
+  //jobs stored before their type had a data codec have an entry per field in the data map
+  protected void verifyGettingSameJobWhenBuildingJobBackFromLegacyJobDetail(Job originalJob) {
+    originalJob.setName(JOB_NAME);
+    originalJob.setGroup(JOB_GROUP);
+    Set<Trigger> triggers = buildTriggers();
+    originalJob.setTriggers(triggers);
+    JobDataMap dataMap = new JobDataMap(originalJob.buildDataMap());
+    dataMap.put(Job.ID_DATAMAP_KEY, originalJob.getId().toString());
+    JobDetail legacyJobDetail = JobBuilder.newJob(originalJob.getClass())
+        .withIdentity(JOB_NAME, JOB_GROUP)
+        .usingJobData(dataMap)
+        .build();
+
+    Job restoredJob =
+        Job.fromQuartzJobDetailAndTriggers(legacyJobDetail, originalJob.buildQuartzTriggers());
+
+    assertThat(restoredJob, is(originalJob));
+  }
+
 }
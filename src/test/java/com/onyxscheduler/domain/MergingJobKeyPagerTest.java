@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MergingJobKeyPagerTest {
+
+  private static final String GROUP = "group";
+
+  @Test
+  public void shouldGetFirstKeysOfAllPagersInOrderWhenFindJobKeys() {
+    JobKeyPager pager1 = mockPager(new JobKey(GROUP, "a"), new JobKey(GROUP, "c"));
+    JobKeyPager pager2 = mockPager(new JobKey(GROUP, "b"), new JobKey(GROUP, "d"));
+
+    MergingJobKeyPager pager = new MergingJobKeyPager(ImmutableList.of(pager1, pager2));
+
+    assertThat(pager.findJobKeys(Optional.of(GROUP), Optional.empty(), 2),
+               is(ImmutableList.of(new JobKey(GROUP, "a"), new JobKey(GROUP, "b"))));
+  }
+
+  private JobKeyPager mockPager(JobKey... page) {
+    JobKeyPager pager = mock(JobKeyPager.class);
+    when(pager.findJobKeys(Optional.of(GROUP), Optional.empty(), 2))
+        .thenReturn(ImmutableList.copyOf(page));
+    return pager;
+  }
+
+  @Test
+  public void shouldGetAllKeysInOrderWhenIterateJobKeyPages() {
+    JobKeyPager pager1 =
+        buildPager(new JobKey(GROUP, "a"), new JobKey(GROUP, "c"), new JobKey(GROUP, "e"));
+    JobKeyPager pager2 = buildPager(new JobKey(GROUP, "b"), new JobKey(GROUP, "d"));
+
+    MergingJobKeyPager pager = new MergingJobKeyPager(ImmutableList.of(pager1, pager2));
+
+    assertThat(ImmutableList.copyOf(pager.iterateJobKeyPages(Optional.of(GROUP), Optional.empty(),
+                                                             3)),
+               is(ImmutableList.of(
+                   ImmutableList.of(new JobKey(GROUP, "a"), new JobKey(GROUP, "b"),
+                                    new JobKey(GROUP, "c")),
+                   ImmutableList.of(new JobKey(GROUP, "d"), new JobKey(GROUP, "e")))));
+  }
+
+  private JobKeyPager buildPager(JobKey... keys) {
+    return new ListJobKeyPager(Arrays.asList(keys));
+  }
+
+  //pager of sorted keys of a single group relying on default pages iteration
+  private static class ListJobKeyPager implements JobKeyPager {
+
+    private final List<JobKey> keys;
+
+    private ListJobKeyPager(List<JobKey> keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public List<JobKey> findJobKeys(Optional<String> group, Optional<JobKey> after, int limit) {
+      return keys.stream()
+          .filter(key -> !after.isPresent() || key.getName().compareTo(after.get().getName()) > 0)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public Set<JobKey> findExistingJobKeys(Collection<JobKey> jobKeys) {
+      return jobKeys.stream().filter(keys::contains).collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  public void shouldGetExistingKeysOfAllPagersWhenFindExistingJobKeys() {
+    MergingJobKeyPager pager = new MergingJobKeyPager(ImmutableList.of(
+        buildPager(new JobKey(GROUP, "a")), buildPager(new JobKey(GROUP, "b"))));
+
+    assertThat(pager.findExistingJobKeys(ImmutableList.of(
+                   new JobKey(GROUP, "a"), new JobKey(GROUP, "b"), new JobKey(GROUP, "c"))),
+               is(ImmutableSet.of(new JobKey(GROUP, "a"), new JobKey(GROUP, "b"))));
+  }
+
+}
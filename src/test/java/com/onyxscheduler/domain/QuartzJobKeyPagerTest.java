@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.quartz.SchedulerException;
+import org.quartz.impl.matchers.GroupMatcher;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QuartzJobKeyPagerTest {
+
+  private static final String GROUP1 = "group1";
+  private static final String GROUP2 = "group2";
+
+  @Mock
+  private org.quartz.Scheduler quartzScheduler;
+
+  @InjectMocks
+  private QuartzJobKeyPager pager;
+
+  @Before
+  public void setup() throws SchedulerException {
+    when(quartzScheduler.getJobGroupNames()).thenReturn(ImmutableList.of(GROUP2, GROUP1));
+    when(quartzScheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP1))).thenReturn(
+        ImmutableSet.of(new org.quartz.JobKey("b", GROUP1), new org.quartz.JobKey("a", GROUP1)));
+    when(quartzScheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP2))).thenReturn(
+        ImmutableSet.of(new org.quartz.JobKey("a", GROUP2)));
+  }
+
+  @Test
+  public void shouldGetFirstKeysInOrderWhenFindJobKeysWithoutAfterKey() {
+    assertThat(pager.findJobKeys(Optional.empty(), Optional.empty(), 2),
+               is(ImmutableList.of(new JobKey(GROUP1, "a"), new JobKey(GROUP1, "b"))));
+  }
+
+  @Test
+  public void shouldGetKeysAcrossGroupsWhenFindJobKeysWithAfterKey() {
+    assertThat(pager.findJobKeys(Optional.empty(), Optional.of(new JobKey(GROUP1, "a")), 2),
+               is(ImmutableList.of(new JobKey(GROUP1, "b"), new JobKey(GROUP2, "a"))));
+  }
+
+  @Test
+  public void shouldGetOnlyGroupKeysWhenFindJobKeysWithGroup() {
+    assertThat(pager.findJobKeys(Optional.of(GROUP2), Optional.empty(), 2),
+               is(ImmutableList.of(new JobKey(GROUP2, "a"))));
+  }
+
+  @Test
+  public void shouldListKeysOnceWhenIterateJobKeyPages() throws SchedulerException {
+    assertThat(ImmutableList.copyOf(pager.iterateJobKeyPages(Optional.empty(), Optional.empty(),
+                                                             2)),
+               is(ImmutableList.of(
+                   ImmutableList.of(new JobKey(GROUP1, "a"), new JobKey(GROUP1, "b")),
+                   ImmutableList.of(new JobKey(GROUP2, "a")))));
+    verify(quartzScheduler).getJobKeys(GroupMatcher.jobGroupEquals(GROUP1));
+  }
+
+}
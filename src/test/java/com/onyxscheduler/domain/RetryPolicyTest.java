@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.domain;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class RetryPolicyTest {
+
+  @Test
+  public void shouldGrowBackoffExponentiallyUpToMaxWhenNoJitter() {
+    RetryPolicy retryPolicy = buildPolicyWithoutJitter();
+    assertThat(retryPolicy.computeBackoffMillis(1), is(1000L));
+    assertThat(retryPolicy.computeBackoffMillis(3), is(4000L));
+    assertThat(retryPolicy.computeBackoffMillis(10), is(10000L));
+  }
+
+  private RetryPolicy buildPolicyWithoutJitter() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    retryPolicy.setJitter(false);
+    retryPolicy.setBackoffMillis(1000);
+    retryPolicy.setMaxBackoffMillis(10000);
+    return retryPolicy;
+  }
+
+  @Test
+  public void shouldGetBackoffUpToExponentialBackoffWhenJitter() {
+    RetryPolicy retryPolicy = buildPolicyWithoutJitter();
+    retryPolicy.setJitter(true);
+    for (int i = 0; i < 100; i++) {
+      assertThat(retryPolicy.computeBackoffMillis(3), lessThanOrEqualTo(4000L));
+    }
+  }
+
+  @Test
+  public void shouldRetryWhenIoFailure() {
+    assertThat(new RetryPolicy().shouldRetry(1, new ResourceAccessException("test",
+                                                                            new IOException())),
+               is(true));
+  }
+
+  @Test
+  public void shouldNotRetryWhenMaxAttemptsReached() {
+    RetryPolicy retryPolicy = new RetryPolicy();
+    assertThat(retryPolicy.shouldRetry(retryPolicy.getMaxAttempts(),
+                                       new HttpServerErrorException(HttpStatus.BAD_GATEWAY)),
+               is(false));
+  }
+
+}
@@ -17,33 +17,43 @@
 package com.onyxscheduler.domain;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 
 import com.onyxscheduler.util.TriggerTestUtils;
 
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.quartz.JobDetail;
 import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.SchedulerException;
+import org.quartz.SchedulerMetaData;
 import org.quartz.Trigger;
 import org.quartz.impl.matchers.GroupMatcher;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,12 +68,18 @@ public class SchedulerTest {
   @Mock
   private org.quartz.Scheduler quartzScheduler;
 
-  @InjectMocks
   private com.onyxscheduler.domain.Scheduler scheduler;
 
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  /* built explicitly instead of with InjectMocks, since it has constructors for both a single
+  quartz scheduler and a router */
+  @Before
+  public void setup() {
+    scheduler = new com.onyxscheduler.domain.Scheduler(quartzScheduler);
+  }
+
   @Test
   public void shouldScheduleJobInQuartzWhenScheduleJob()
       throws com.onyxscheduler.domain.Scheduler.DuplicateJobKeyException, SchedulerException {
@@ -81,19 +97,23 @@ public class SchedulerTest {
     private Set<Trigger> quartzTriggers;
 
     static FakeJob build() {
+      return build(SchedulerTest.JOB_NAME);
+    }
+
+    static FakeJob build(String name) {
       FakeJob job = new FakeJob();
       job.setGroup(SchedulerTest.JOB_GROUP);
-      job.setName(SchedulerTest.JOB_NAME);
+      job.setName(name);
       job.setTriggers(TriggerTestUtils.buildTriggers());
       return job;
     }
 
     @Override
-    public Set<Trigger> buildQuartzTriggers() {
+    public Set<Trigger> buildQuartzTriggers(long spreadOffsetMillis) {
       //changed this method to always return the same triggers and allow easier verification of
       // expected triggers (otherwise new triggers are created that have different id)
       if (quartzTriggers == null) {
-        quartzTriggers = super.buildQuartzTriggers();
+        quartzTriggers = super.buildQuartzTriggers(spreadOffsetMillis);
       }
       return quartzTriggers;
     }
@@ -165,6 +185,74 @@ public class SchedulerTest {
     scheduler.scheduleJob(FakeJob.build());
   }
 
+  @Test
+  public void shouldScheduleAllJobsInSingleQuartzCallWhenScheduleJobs() throws SchedulerException {
+    FakeJob job1 = FakeJob.build(JOB1_NAME);
+    FakeJob job2 = FakeJob.build(JOB2_NAME);
+
+    List<ScheduleResult> results = scheduler.scheduleJobs(JOB_GROUP, ImmutableList.of(job1, job2));
+
+    assertThat(getStatuses(results), is(ImmutableList.of(ScheduleResult.Status.SCHEDULED,
+                                                         ScheduleResult.Status.SCHEDULED)));
+    verify(quartzScheduler).scheduleJobs(
+        ImmutableMap.<JobDetail, Set<? extends Trigger>>of(
+            job1.buildQuartzJobDetail(), job1.buildQuartzTriggers(),
+            job2.buildQuartzJobDetail(), job2.buildQuartzTriggers()), false);
+  }
+
+  private List<ScheduleResult.Status> getStatuses(List<ScheduleResult> results) {
+    return results.stream().map(ScheduleResult::getStatus).collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldReportDuplicateWhenScheduleJobsWithRepeatedJobKeyInBatch()
+      throws SchedulerException {
+    List<ScheduleResult> results =
+        scheduler.scheduleJobs(JOB_GROUP, ImmutableList.of(FakeJob.build(), FakeJob.build()));
+
+    assertThat(getStatuses(results), is(ImmutableList.of(ScheduleResult.Status.SCHEDULED,
+                                                         ScheduleResult.Status.DUPLICATE)));
+  }
+
+  @Test
+  public void shouldReportDuplicateAndScheduleRestWhenScheduleJobsWithExistingJob()
+      throws SchedulerException {
+    FakeJob existingJob = FakeJob.build(JOB1_NAME);
+    FakeJob newJob = FakeJob.build(JOB2_NAME);
+    doThrow(new ObjectAlreadyExistsException("test")).doNothing()
+        .when(quartzScheduler).scheduleJobs(any(), eq(false));
+    when(quartzScheduler.checkExists(existingJob.buildQuartzJobDetail().getKey())).thenReturn(true);
+
+    List<ScheduleResult> results =
+        scheduler.scheduleJobs(JOB_GROUP, ImmutableList.of(existingJob, newJob));
+
+    assertThat(getStatuses(results), is(ImmutableList.of(ScheduleResult.Status.DUPLICATE,
+                                                         ScheduleResult.Status.SCHEDULED)));
+    verify(quartzScheduler).scheduleJobs(
+        ImmutableMap.<JobDetail, Set<? extends Trigger>>of(
+            newJob.buildQuartzJobDetail(), newJob.buildQuartzTriggers()), false);
+  }
+
+  @Test
+  public void shouldReportInvalidWithoutSchedulingWhenScheduleJobsWithNoTriggersJob()
+      throws SchedulerException {
+    FakeJob job = FakeJob.build();
+    job.setTriggers(Collections.emptySet());
+
+    List<ScheduleResult> results = scheduler.scheduleJobs(JOB_GROUP, ImmutableList.of(job));
+
+    assertThat(getStatuses(results), is(ImmutableList.of(ScheduleResult.Status.INVALID)));
+    verify(quartzScheduler, never()).scheduleJobs(any(), eq(false));
+  }
+
+  @Test
+  public void shouldReportInvalidWhenScheduleJobsWithJobFromOtherGroup() {
+    List<ScheduleResult> results =
+        scheduler.scheduleJobs("otherGroup", ImmutableList.of(FakeJob.build()));
+
+    assertThat(getStatuses(results), is(ImmutableList.of(ScheduleResult.Status.INVALID)));
+  }
+
   @Test
   public void shouldGetJobKeysFromQuartzSchedulerWhenGetJobKeys() throws SchedulerException {
     String job1Group = "group1";
@@ -222,6 +310,50 @@ public class SchedulerTest {
     scheduler.getJobKeysByGroup(JOB_GROUP);
   }
 
+  @Test
+  public void shouldScheduleJobInRoutedQuartzSchedulerWhenScheduleJobWithSeveralSchedulers()
+      throws com.onyxscheduler.domain.Scheduler.DuplicateJobKeyException, SchedulerException {
+    org.quartz.Scheduler otherQuartzScheduler = mock(org.quartz.Scheduler.class);
+    Job job = FakeJob.build();
+    scheduler = new com.onyxscheduler.domain.Scheduler(
+        buildRouter(otherQuartzScheduler, job.buildQuartzJobDetail().getKey()));
+
+    scheduler.scheduleJob(job);
+
+    verify(quartzScheduler)
+        .scheduleJob(job.buildQuartzJobDetail(), job.buildQuartzTriggers(), false);
+    verify(otherQuartzScheduler, never()).scheduleJob(any(), any(), eq(false));
+  }
+
+  /* routes given key to the test quartz scheduler and the rest to the other one, which is also
+  the first one to verify routing doesn't depend on schedulers order */
+  private QuartzSchedulerRouter buildRouter(org.quartz.Scheduler otherQuartzScheduler,
+                                            org.quartz.JobKey routedKey) {
+    QuartzSchedulerRouter router = mock(QuartzSchedulerRouter.class);
+    when(router.getSchedulers())
+        .thenReturn(ImmutableList.of(otherQuartzScheduler, quartzScheduler));
+    when(router.getScheduler(any())).thenAnswer(
+        invocation -> routedKey.equals(invocation.getArguments()[0]) ? quartzScheduler
+                                                                     : otherQuartzScheduler);
+    return router;
+  }
+
+  @Test
+  public void shouldGetJobKeysFromAllQuartzSchedulersWhenGetJobKeysWithSeveralSchedulers()
+      throws SchedulerException {
+    org.quartz.Scheduler otherQuartzScheduler = mock(org.quartz.Scheduler.class);
+    scheduler = new com.onyxscheduler.domain.Scheduler(
+        buildRouter(otherQuartzScheduler, new org.quartz.JobKey(JOB1_NAME, JOB_GROUP)));
+    when(quartzScheduler.getJobKeys(GroupMatcher.anyJobGroup()))
+        .thenReturn(ImmutableSet.of(new org.quartz.JobKey(JOB1_NAME, JOB_GROUP)));
+    when(otherQuartzScheduler.getJobKeys(GroupMatcher.anyJobGroup()))
+        .thenReturn(ImmutableSet.of(new org.quartz.JobKey(JOB2_NAME, JOB_GROUP)));
+
+    assertThat(scheduler.getJobKeys(), is(ImmutableSet.of(
+        new com.onyxscheduler.domain.JobKey(JOB_GROUP, JOB1_NAME),
+        new com.onyxscheduler.domain.JobKey(JOB_GROUP, JOB2_NAME))));
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   public void shouldGetJobFromQuartzSchedulerWhenGetJob() throws SchedulerException {
@@ -234,6 +366,61 @@ public class SchedulerTest {
     assertThat(scheduler.getJob(getJobKey()), is(Optional.of(job)));
   }
 
+  @Test
+  public void shouldGetJobFromJobReaderWhenGetJobWithAvailableJobReader()
+      throws SchedulerException {
+    FakeJob job = FakeJob.build();
+    JobReader jobReader = mock(JobReader.class);
+    when(jobReader.isAvailable()).thenReturn(true);
+    when(jobReader.findJob(getJobKey())).thenReturn(Optional.of(job));
+    scheduler.setJobReader(jobReader);
+
+    assertThat(scheduler.getJob(getJobKey()), is(Optional.of(job)));
+    verify(quartzScheduler, never()).getJobDetail(getQuartzJobKey());
+  }
+
+  @Test
+  public void shouldGetJobFromJobReaderWhenGetJobTwiceWithAvailableJobReader() {
+    FakeJob job = FakeJob.build();
+    JobReader jobReader = mock(JobReader.class);
+    when(jobReader.isAvailable()).thenReturn(true);
+    when(jobReader.findJob(getJobKey())).thenReturn(Optional.of(job));
+    scheduler.setJobReader(jobReader);
+
+    scheduler.getJob(getJobKey());
+    scheduler.getJob(getJobKey());
+
+    verify(jobReader, times(2)).findJob(getJobKey());
+  }
+
+  @Test
+  public void shouldGetJobKeysPageFromJobReaderWhenGetJobKeysPageWithAvailableJobReader() {
+    List<JobKey> page = ImmutableList.of(getJobKey());
+    JobKeyPager readerPager = mock(JobKeyPager.class);
+    when(readerPager.findJobKeys(Optional.empty(), Optional.empty(), 1)).thenReturn(page);
+    JobReader jobReader = mock(JobReader.class);
+    when(jobReader.isAvailable()).thenReturn(true);
+    when(jobReader.getJobKeyPager()).thenReturn(readerPager);
+    scheduler.setJobReader(jobReader);
+
+    assertThat(scheduler.getJobKeysPage(Optional.empty(), Optional.empty(), 1), is(page));
+  }
+
+  @Test
+  public void shouldGetJobFromQuartzSchedulerWhenGetJobWithUnavailableJobReader()
+      throws SchedulerException {
+    org.quartz.JobKey quartzJobKey = getQuartzJobKey();
+    FakeJob job = FakeJob.build();
+    setupQuartzSchedulerJobDetail(quartzJobKey, job);
+    JobReader jobReader = mock(JobReader.class);
+    scheduler.setJobReader(jobReader);
+
+    scheduler.getJob(getJobKey());
+
+    verify(quartzScheduler).getJobDetail(quartzJobKey);
+    verify(jobReader, never()).findJob(getJobKey());
+  }
+
   private org.quartz.JobKey getQuartzJobKey() {
     return new org.quartz.JobKey(JOB_NAME, JOB_GROUP);
   }
@@ -243,6 +430,65 @@ public class SchedulerTest {
     when(quartzScheduler.getJobDetail(quartzJobKey)).thenReturn(job.buildQuartzJobDetail());
   }
 
+  @Test
+  public void shouldGetJobFromCacheWhenGetJobTwice() throws SchedulerException {
+    org.quartz.JobKey quartzJobKey = getQuartzJobKey();
+    FakeJob job = FakeJob.build();
+    setupQuartzSchedulerJobDetail(quartzJobKey, job);
+
+    scheduler.getJob(getJobKey());
+    scheduler.getJob(getJobKey());
+
+    verify(quartzScheduler, times(1)).getJobDetail(quartzJobKey);
+  }
+
+  @Test
+  public void shouldGetJobFromQuartzSchedulerWhenGetJobAfterDeleteJob() throws SchedulerException {
+    org.quartz.JobKey quartzJobKey = getQuartzJobKey();
+    FakeJob job = FakeJob.build();
+    setupQuartzSchedulerJobDetail(quartzJobKey, job);
+
+    scheduler.getJob(getJobKey());
+    scheduler.deleteJob(getJobKey());
+    scheduler.getJob(getJobKey());
+
+    verify(quartzScheduler, times(2)).getJobDetail(quartzJobKey);
+  }
+
+  @Test
+  public void shouldGetJobFromQuartzSchedulerWhenGetJobAfterDeleteJobWhileLoading()
+      throws SchedulerException {
+    org.quartz.JobKey quartzJobKey = getQuartzJobKey();
+    FakeJob job = FakeJob.build();
+    setupQuartzSchedulerJobDetail(quartzJobKey, job);
+    doAnswer(invocation -> {
+      scheduler.deleteJob(getJobKey());
+      return Collections.emptyList();
+    }).when(quartzScheduler).getTriggersOfJob(quartzJobKey);
+
+    scheduler.getJob(getJobKey());
+    scheduler.getJob(getJobKey());
+
+    verify(quartzScheduler, times(2)).getJobDetail(quartzJobKey);
+  }
+
+  @Test
+  public void shouldGetJobFromQuartzSchedulerWhenGetJobTwiceWithClusteredJobStore()
+      throws SchedulerException {
+    SchedulerMetaData metaData = mock(SchedulerMetaData.class);
+    when(metaData.isJobStoreClustered()).thenReturn(true);
+    when(quartzScheduler.getMetaData()).thenReturn(metaData);
+    scheduler.initJobCache();
+    org.quartz.JobKey quartzJobKey = getQuartzJobKey();
+    FakeJob job = FakeJob.build();
+    setupQuartzSchedulerJobDetail(quartzJobKey, job);
+
+    scheduler.getJob(getJobKey());
+    scheduler.getJob(getJobKey());
+
+    verify(quartzScheduler, times(2)).getJobDetail(quartzJobKey);
+  }
+
   @Test
   public void shouldGetEmptyOptionalWhenGetJobWithUnknownJobKey() {
     assertThat(scheduler.getJob(getJobKey()), is(Optional.empty()));
@@ -299,6 +545,35 @@ public class SchedulerTest {
     assertThat(scheduler.deleteJob(getJobKey()), is(false));
   }
 
+  @Test
+  public void shouldDeleteOnlyExistingJobsInSingleQuartzCallWhenDeleteJobs()
+      throws SchedulerException {
+    org.quartz.JobKey existingKey = new org.quartz.JobKey(JOB1_NAME, JOB_GROUP);
+    when(quartzScheduler.checkExists(existingKey)).thenReturn(true);
+
+    int deleted = scheduler.deleteJobs(ImmutableList.of(new JobKey(JOB_GROUP, JOB1_NAME),
+                                                        new JobKey(JOB_GROUP, JOB2_NAME)));
+
+    assertThat(deleted, is(1));
+    verify(quartzScheduler).deleteJobs(ImmutableList.of(existingKey));
+  }
+
+  @Test
+  public void shouldDeleteAllPagesWhenDeleteJobsByGroup() throws SchedulerException {
+    JobKeyPager pager = mock(JobKeyPager.class);
+    scheduler.setJobKeyPager(pager);
+    scheduler.setBatchChunkSize(1);
+    JobKey key1 = new JobKey(JOB_GROUP, JOB1_NAME);
+    JobKey key2 = new JobKey(JOB_GROUP, JOB2_NAME);
+    when(pager.iterateJobKeyPages(Optional.of(JOB_GROUP), Optional.empty(), 1))
+        .thenReturn(Iterators.forArray(ImmutableList.of(key1), ImmutableList.of(key2)));
+
+    assertThat(scheduler.deleteJobsByGroup(JOB_GROUP, count -> {
+    }), is(2L));
+    verify(quartzScheduler).deleteJobs(ImmutableList.of(key1.buildQuartzJobKey()));
+    verify(quartzScheduler).deleteJobs(ImmutableList.of(key2.buildQuartzJobKey()));
+  }
+
   @Test
   public void shouldPropagateExceptionWhenDeleteJobWithFailingQuartzSchedulerDelete()
       throws SchedulerException {
@@ -21,12 +21,15 @@ import com.onyxscheduler.util.TriggerTestUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.quartz.CronTrigger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
 public class TriggerTest {
 
+  private static final long SPREAD_OFFSET_MILLIS = 1500;
+
   @Test
   public void shouldGetTriggerWithCronWhenFromCronExpression() {
     assertThat(Trigger.fromCronExpression(TriggerTestUtils.CRON).getCron(), Matchers.is(
@@ -81,4 +84,52 @@ public class TriggerTest {
     assertThat(restoredTrigger, is(originalTrigger));
   }
 
+  @Test
+  public void shouldDelayFixedTimeBySpreadOffsetWhenBuildingQuartzTrigger() {
+    Trigger trigger = TriggerTestUtils.buildTriggerWithFixedTime();
+
+    org.quartz.Trigger quartzTrigger = trigger.buildQuartzTrigger(SPREAD_OFFSET_MILLIS);
+
+    assertThat(quartzTrigger.getStartTime().toInstant(),
+               is(TriggerTestUtils.FIXED_TIME.plusMillis(SPREAD_OFFSET_MILLIS)));
+  }
+
+  @Test
+  public void shouldDelayCronSecondsBySpreadOffsetWhenBuildingQuartzTrigger() {
+    Trigger trigger = Trigger.fromCronExpression("0 * * * * ?");
+
+    CronTrigger quartzTrigger = (CronTrigger) trigger.buildQuartzTrigger(SPREAD_OFFSET_MILLIS);
+
+    assertThat(quartzTrigger.getCronExpression(), is("1 * * * * ?"));
+  }
+
+  @Test
+  public void shouldNotDelayCronWhenNotFiringAtSecondZero() {
+    Trigger trigger = Trigger.fromCronExpression("30 * * * * ?");
+
+    CronTrigger quartzTrigger = (CronTrigger) trigger.buildQuartzTrigger(SPREAD_OFFSET_MILLIS);
+
+    assertThat(quartzTrigger.getCronExpression(), is("30 * * * * ?"));
+  }
+
+  @Test
+  public void shouldGetSameFixedTimeTriggerWhenBuildingTriggerBackFromSpreadQuartzTrigger() {
+    Trigger originalTrigger = TriggerTestUtils.buildTriggerWithFixedTime();
+
+    Trigger restoredTrigger =
+        Trigger.fromQuartzTrigger(originalTrigger.buildQuartzTrigger(SPREAD_OFFSET_MILLIS));
+
+    assertThat(restoredTrigger, is(originalTrigger));
+  }
+
+  @Test
+  public void shouldGetSameCronTriggerWhenBuildingTriggerBackFromSpreadQuartzTrigger() {
+    Trigger originalTrigger = Trigger.fromCronExpression("0 * * * * ?");
+
+    Trigger restoredTrigger =
+        Trigger.fromQuartzTrigger(originalTrigger.buildQuartzTrigger(SPREAD_OFFSET_MILLIS));
+
+    assertThat(restoredTrigger, is(originalTrigger));
+  }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CircuitBreakersTest {
+
+  private static final int FAILURE_THRESHOLD = 2;
+
+  private CircuitBreakers.CircuitBreaker circuitBreaker;
+
+  @Before
+  public void setup() throws MalformedURLException {
+    circuitBreaker = new CircuitBreakers(FAILURE_THRESHOLD, 0, CircuitBreakers.OpenPolicy.SKIP, 0)
+        .getCircuitBreaker(new URL("http://test.com/path"));
+  }
+
+  @Test
+  public void shouldOpenCircuitWhenFailureThresholdReached() {
+    failRequests(FAILURE_THRESHOLD);
+    assertThat(circuitBreaker.getState(), is(CircuitBreakers.State.OPEN));
+  }
+
+  private void failRequests(int count) {
+    for (int i = 0; i < count; i++) {
+      circuitBreaker.tryAcquire();
+      circuitBreaker.onFailure();
+    }
+  }
+
+  @Test
+  public void shouldKeepCircuitClosedWhenFailuresInterleavedWithSuccesses() {
+    failRequests(FAILURE_THRESHOLD - 1);
+    circuitBreaker.tryAcquire();
+    circuitBreaker.onSuccess();
+    failRequests(FAILURE_THRESHOLD - 1);
+    assertThat(circuitBreaker.getState(), is(CircuitBreakers.State.CLOSED));
+  }
+
+  @Test
+  public void shouldLetSingleProbeThroughWhenOpenPeriodElapsed() {
+    failRequests(FAILURE_THRESHOLD);
+    assertThat(circuitBreaker.tryAcquire(), is(true));
+    assertThat(circuitBreaker.tryAcquire(), is(false));
+  }
+
+  @Test
+  public void shouldCloseCircuitWhenProbeSucceeds() {
+    failRequests(FAILURE_THRESHOLD);
+    circuitBreaker.tryAcquire();
+    circuitBreaker.onSuccess();
+    assertThat(circuitBreaker.getState(), is(CircuitBreakers.State.CLOSED));
+  }
+
+  @Test
+  public void shouldShareCircuitWhenSameEndpoint() throws MalformedURLException {
+    CircuitBreakers circuitBreakers =
+        new CircuitBreakers(FAILURE_THRESHOLD, 0, CircuitBreakers.OpenPolicy.SKIP, 0);
+    assertThat(circuitBreakers.getCircuitBreaker(new URL("http://test.com/a")),
+               is(circuitBreakers.getCircuitBreaker(new URL("http://test.com:80/b"))));
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class FiringThrottleTest {
+
+  private static final long SPREAD_MILLIS = 60000;
+  private static final String GROUP = "group";
+
+  @Test
+  public void shouldGetSameOffsetWhenSameJobKey() {
+    FiringThrottle throttle = buildSpreadingThrottle();
+    assertThat(throttle.getSpreadOffsetMillis(new JobKey("name", GROUP)),
+               is(throttle.getSpreadOffsetMillis(new JobKey("name", GROUP))));
+  }
+
+  private FiringThrottle buildSpreadingThrottle() {
+    return new FiringThrottle(SPREAD_MILLIS, 0, Collections.emptyMap(), 0);
+  }
+
+  @Test
+  public void shouldGetOffsetWithinSpreadWindowWhenSpreading() {
+    FiringThrottle throttle = buildSpreadingThrottle();
+    for (int i = 0; i < 100; i++) {
+      assertThat(throttle.getSpreadOffsetMillis(new JobKey("name" + i, GROUP)),
+                 lessThan(SPREAD_MILLIS));
+    }
+  }
+
+  @Test
+  public void shouldNotOffsetWhenNotSpreading() {
+    FiringThrottle throttle = new FiringThrottle(0, 0, Collections.emptyMap(), 0);
+    assertThat(throttle.getSpreadOffsetMillis(new JobKey("name", GROUP)), is(0L));
+  }
+
+  @Test
+  public void shouldDeferToNextSlotWhenGroupRateExceeded() {
+    FiringThrottle throttle =
+        new FiringThrottle(0, 0, ImmutableMap.of(GROUP, 1.0), 0);
+    throttle.reserve(GROUP);
+    assertThat(throttle.reserve(GROUP), allOf(greaterThan(0L), lessThanOrEqualTo(1000L)));
+  }
+
+  @Test
+  public void shouldQueueFiringsWhenGroupRateExceeded() {
+    FiringThrottle throttle =
+        new FiringThrottle(0, 0, ImmutableMap.of(GROUP, 1.0), 0);
+    throttle.reserve(GROUP);
+    throttle.reserve(GROUP);
+    assertThat(throttle.reserve(GROUP), greaterThan(1000L));
+  }
+
+  @Test
+  public void shouldNotDeferWhenGroupWithoutRate() {
+    FiringThrottle throttle =
+        new FiringThrottle(0, 0, ImmutableMap.of(GROUP, 1.0), 0);
+    throttle.reserve("other");
+    assertThat(throttle.reserve("other"), is(0L));
+  }
+
+  @Test
+  public void shouldDeferWhenGlobalRateExceeded() {
+    FiringThrottle throttle = new FiringThrottle(0, 1.0, Collections.emptyMap(), 0);
+    throttle.reserve(GROUP);
+    assertThat(throttle.reserve("other"), greaterThan(0L));
+  }
+
+  @Test
+  public void shouldTakeGlobalSlotAtDeferredTimeWhenGroupRateExceeded() {
+    FiringThrottle throttle = new FiringThrottle(0, 1.0, ImmutableMap.of(GROUP, 0.5), 0);
+    throttle.reserve(GROUP);
+    long groupDeferMillis = throttle.reserve(GROUP);
+
+    long otherDeferMillis = throttle.reserve("other");
+    long nextOtherDeferMillis = throttle.reserve("other");
+
+    //firings of other groups get global slots free from the deferred firing
+    assertThat(Math.abs(otherDeferMillis - groupDeferMillis), greaterThan(500L));
+    assertThat(Math.abs(nextOtherDeferMillis - groupDeferMillis), greaterThan(500L));
+  }
+
+  @Test
+  public void shouldWaitForSlotWhenWithinMaxWait() {
+    FiringThrottle throttle =
+        new FiringThrottle(0, 0, ImmutableMap.of(GROUP, 100.0), 1000);
+    throttle.reserve(GROUP);
+    assertThat(throttle.reserve(GROUP), is(0L));
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HttpConnectionPoolMetricsTest {
+
+  @Test
+  public void shouldPublishPoolStatsWhenPoolRegistered() {
+    HttpConnectionPoolMetrics metrics = new HttpConnectionPoolMetrics();
+    metrics.register("sync", buildPool(new PoolStats(1, 2, 3, 4)));
+    metrics.register("async", buildPool(new PoolStats(5, 6, 7, 8)));
+
+    assertThat(buildMetricValues(metrics), is(ImmutableMap.<String, Object>builder()
+        .put("httpclient.sync.leased", 1)
+        .put("httpclient.sync.pending", 2)
+        .put("httpclient.sync.available", 3)
+        .put("httpclient.sync.max", 4)
+        .put("httpclient.async.leased", 5)
+        .put("httpclient.async.pending", 6)
+        .put("httpclient.async.available", 7)
+        .put("httpclient.async.max", 8)
+        .build()));
+  }
+
+  private ConnPoolControl<HttpRoute> buildPool(PoolStats stats) {
+    @SuppressWarnings("unchecked")
+    ConnPoolControl<HttpRoute> pool = mock(ConnPoolControl.class);
+    when(pool.getTotalStats()).thenReturn(stats);
+    return pool;
+  }
+
+  private Map<String, Object> buildMetricValues(HttpConnectionPoolMetrics metrics) {
+    return metrics.metrics().stream()
+        .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+  }
+
+  @Test
+  public void shouldPublishNoMetricsWhenNoPoolRegistered() {
+    assertThat(new HttpConnectionPoolMetrics().metrics().isEmpty(), is(true));
+  }
+
+}
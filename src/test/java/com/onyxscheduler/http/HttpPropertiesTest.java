@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class HttpPropertiesTest {
+
+  private static final int MAX_TOTAL = 20;
+  private static final int MAX_PER_ROUTE = 5;
+  private static final int CONNECT_TIMEOUT = 1000;
+  private static final int READ_TIMEOUT = 2000;
+
+  private HttpProperties httpProperties;
+
+  @Before
+  public void setup() {
+    httpProperties = new HttpProperties();
+    httpProperties.setMaxTotal(MAX_TOTAL);
+    httpProperties.setMaxPerRoute(MAX_PER_ROUTE);
+    httpProperties.setConnectTimeout(CONNECT_TIMEOUT);
+    httpProperties.setReadTimeout(READ_TIMEOUT);
+  }
+
+  @Test
+  public void shouldLimitConnectionsWhenBuildingConnectionManager() {
+    PoolingHttpClientConnectionManager connectionManager =
+        httpProperties.buildConnectionManager();
+    try {
+      assertThat(connectionManager.getMaxTotal(), is(MAX_TOTAL));
+      assertThat(connectionManager.getDefaultMaxPerRoute(), is(MAX_PER_ROUTE));
+    } finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldLimitConnectionsWhenBuildingAsyncConnectionManager() throws IOException {
+    PoolingNHttpClientConnectionManager connectionManager =
+        httpProperties.buildAsyncConnectionManager();
+    try {
+      assertThat(connectionManager.getMaxTotal(), is(MAX_TOTAL));
+      assertThat(connectionManager.getDefaultMaxPerRoute(), is(MAX_PER_ROUTE));
+    } finally {
+      connectionManager.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldApplyTimeoutsToClientWhenBuildingRequestFactory() {
+    PoolingHttpClientConnectionManager connectionManager =
+        httpProperties.buildConnectionManager();
+    try {
+      RequestConfig config = ((Configurable) httpProperties
+          .buildRequestFactory(connectionManager).getHttpClient()).getConfig();
+      assertThat(config.getConnectTimeout(), is(CONNECT_TIMEOUT));
+      assertThat(config.getSocketTimeout(), is(READ_TIMEOUT));
+      assertThat(config.getConnectionRequestTimeout(), is(CONNECT_TIMEOUT));
+    } finally {
+      connectionManager.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.http;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class IdleConnectionEvictorTest {
+
+  private static final long IDLE_SECONDS = 1;
+  private static final long TIMEOUT_IN_MILLIS = 5000;
+
+  private IdleConnectionEvictor evictor;
+
+  @Before
+  public void setup() {
+    evictor = new IdleConnectionEvictor(IDLE_SECONDS);
+  }
+
+  @After
+  public void teardown() {
+    evictor.destroy();
+  }
+
+  @Test
+  public void shouldCloseExpiredAndIdleConnectionsWhenConnectionManagerRegistered() {
+    HttpClientConnectionManager connectionManager = mock(HttpClientConnectionManager.class);
+
+    evictor.register(connectionManager);
+
+    verify(connectionManager, timeout(TIMEOUT_IN_MILLIS)).closeExpiredConnections();
+    verify(connectionManager, timeout(TIMEOUT_IN_MILLIS))
+        .closeIdleConnections(IDLE_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldCloseExpiredAndIdleConnectionsWhenAsyncConnectionManagerRegistered() {
+    NHttpClientConnectionManager connectionManager = mock(NHttpClientConnectionManager.class);
+
+    evictor.register(connectionManager);
+
+    verify(connectionManager, timeout(TIMEOUT_IN_MILLIS)).closeExpiredConnections();
+    verify(connectionManager, timeout(TIMEOUT_IN_MILLIS))
+        .closeIdleConnections(IDLE_SECONDS, TimeUnit.SECONDS);
+  }
+
+}
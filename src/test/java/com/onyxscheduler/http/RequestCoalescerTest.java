@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class RequestCoalescerTest {
+
+  private static final long WINDOW_MILLIS = 60000;
+
+  private RequestCoalescer coalescer;
+
+  @Before
+  public void setup() {
+    coalescer = new RequestCoalescer(WINDOW_MILLIS);
+  }
+
+  @Test
+  public void shouldLeadRequestWhenNoIdenticalRequestWithinWindow() {
+    assertThat(coalescer.register("key").isLeader(), is(true));
+  }
+
+  @Test
+  public void shouldFollowRequestWhenIdenticalRequestWithinWindow() {
+    coalescer.register("key");
+    assertThat(coalescer.register("key").isLeader(), is(false));
+  }
+
+  @Test
+  public void shouldLeadEachRequestWhenDifferentKeys() {
+    coalescer.register("key1");
+    assertThat(coalescer.register("key2").isLeader(), is(true));
+  }
+
+  @Test
+  public void shouldLeadEachRequestWhenWindowElapsed() {
+    RequestCoalescer coalescer = new RequestCoalescer(0);
+    coalescer.register("key");
+    assertThat(coalescer.register("key").isLeader(), is(true));
+  }
+
+  @Test
+  public void shouldShareResultWhenLeaderCompletes() throws Exception {
+    RequestCoalescer.CoalescedRequest<String> leader = coalescer.register("key");
+    RequestCoalescer.CoalescedRequest<String> follower = coalescer.register("key");
+
+    leader.complete("result");
+
+    assertThat(follower.getResult().get(), is("result"));
+  }
+
+  @Test
+  public void shouldShareFailureWhenLeaderFails() throws Exception {
+    RequestCoalescer.CoalescedRequest<String> leader = coalescer.register("key");
+    RequestCoalescer.CoalescedRequest<String> follower = coalescer.register("key");
+
+    leader.fail(new IllegalStateException());
+
+    assertThat(getFailure(follower), instanceOf(IllegalStateException.class));
+  }
+
+  private Throwable getFailure(RequestCoalescer.CoalescedRequest<String> request)
+      throws InterruptedException {
+    try {
+      request.getResult().get();
+      throw new AssertionError("Expected a failed result");
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  @Test
+  public void shouldFailFollowersWhenLeaderAbandons() throws Exception {
+    RequestCoalescer.CoalescedRequest<String> leader = coalescer.register("key");
+    RequestCoalescer.CoalescedRequest<String> follower = coalescer.register("key");
+
+    leader.abandon();
+
+    assertThat(getFailure(follower), instanceOf(RequestCoalescer.AbandonedRequestException.class));
+  }
+
+  @Test
+  public void shouldLeadNextRequestWhenLeaderAbandons() {
+    coalescer.register("key").abandon();
+    assertThat(coalescer.register("key").isLeader(), is(true));
+  }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.junit.Test;
+import org.quartz.TriggerBuilder;
+import org.quartz.spi.OperableTrigger;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveBatchSizerTest {
+
+  private static final int MAX_COUNT = 8;
+  private static final long NOW = 1000000;
+
+  private final AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer();
+
+  @Test
+  public void shouldStartWithSingleTriggerBatches() {
+    assertThat(batchSizer.limit(MAX_COUNT), is(1));
+  }
+
+  @Test
+  public void shouldDoubleBatchSizeWhenAcquiringFullBatchOfDueTriggers() {
+    growBatch();
+    growBatch();
+    assertThat(batchSizer.limit(MAX_COUNT), is(4));
+  }
+
+  private void growBatch() {
+    int limit = batchSizer.limit(MAX_COUNT);
+    batchSizer.acquired(buildTriggers(limit, NOW - 1), limit, NOW);
+  }
+
+  private List<OperableTrigger> buildTriggers(int count, long fireTime) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> {
+          OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger().build();
+          trigger.setNextFireTime(new Date(fireTime));
+          return trigger;
+        })
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldNotExceedMaxCountWhenBacklogPersists() {
+    for (int i = 0; i < 10; i++) {
+      growBatch();
+    }
+    assertThat(batchSizer.limit(MAX_COUNT), is(MAX_COUNT));
+  }
+
+  @Test
+  public void shouldLimitToCurrentMaxCountWhenLessThreadsAreAvailable() {
+    for (int i = 0; i < 10; i++) {
+      growBatch();
+    }
+    assertThat(batchSizer.limit(2), is(2));
+  }
+
+  @Test
+  public void shouldShrinkBatchSizeWhenNoDueTriggersAreAcquired() {
+    growBatch();
+    growBatch();
+    int limit = batchSizer.limit(MAX_COUNT);
+    batchSizer.acquired(buildTriggers(1, NOW + 1000), limit, NOW);
+    assertThat(batchSizer.limit(MAX_COUNT), is(3));
+  }
+
+  @Test
+  public void shouldNotShrinkBelowOneWhenNoTriggersAreAcquired() {
+    batchSizer.acquired(Collections.<OperableTrigger>emptyList(), 1, NOW);
+    assertThat(batchSizer.limit(MAX_COUNT), is(1));
+  }
+
+}
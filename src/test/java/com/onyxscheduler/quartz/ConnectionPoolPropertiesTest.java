@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.onyxscheduler.quartz.QuartzProperties.ConnectionPoolProperties;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ConnectionPoolPropertiesTest {
+
+  private static final int THREAD_COUNT = 10;
+
+  @Test
+  public void shouldSizePoolFromThreadCountWhenNoMaxActive() {
+    ConnectionPoolProperties pool = new ConnectionPoolProperties();
+    assertThat(pool.buildPoolConfiguration(THREAD_COUNT).getMaxActive(),
+               is(THREAD_COUNT + ConnectionPoolProperties.QUARTZ_RESERVED_CONNECTIONS
+                  + ConnectionPoolProperties.DEFAULT_EXTRA_CONNECTIONS));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailWhenMaxActiveLowerThanThreadCount() {
+    ConnectionPoolProperties pool = new ConnectionPoolProperties();
+    pool.setMaxActive(THREAD_COUNT);
+    pool.buildPoolConfiguration(THREAD_COUNT);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailWhenMinIdleGreaterThanMaxActive() {
+    ConnectionPoolProperties pool = new ConnectionPoolProperties();
+    pool.setMaxActive(THREAD_COUNT * 2);
+    pool.setMinIdle(THREAD_COUNT * 3);
+    pool.buildPoolConfiguration(THREAD_COUNT);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldFailWhenMaxActiveLowerThanThreadCountAndReservedPerScheduler() {
+    ConnectionPoolProperties pool = new ConnectionPoolProperties();
+    pool.setMaxActive(THREAD_COUNT + ConnectionPoolProperties.QUARTZ_RESERVED_CONNECTIONS);
+    pool.buildPoolConfiguration(THREAD_COUNT, 2);
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.onyxscheduler.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.SchedulerConfigException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ElasticThreadPoolTest {
+
+  private static final int THREAD_COUNT = 2;
+  private static final long TIMEOUT_IN_MILLIS = 5000;
+
+  private ElasticThreadPool threadPool;
+  private CountDownLatch release;
+
+  @Before
+  public void setup() throws SchedulerConfigException {
+    threadPool = new ElasticThreadPool();
+    threadPool.setThreadCount(THREAD_COUNT);
+    threadPool.initialize();
+    release = new CountDownLatch(1);
+  }
+
+  @After
+  public void teardown() {
+    release.countDown();
+    threadPool.shutdown(true);
+  }
+
+  @Test
+  public void shouldReportAllThreadsAvailableWhenNoJobIsRunning() {
+    assertThat(threadPool.blockForAvailableThreads(), is(THREAD_COUNT));
+  }
+
+  @Test(timeout = TIMEOUT_IN_MILLIS)
+  public void shouldReportLessAvailableThreadsWhenJobIsRunning() throws InterruptedException {
+    runBlockingJob();
+    assertThat(threadPool.blockForAvailableThreads(), is(THREAD_COUNT - 1));
+  }
+
+  private void runBlockingJob() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    threadPool.runInThread(() -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    started.await();
+  }
+
+  @Test(timeout = TIMEOUT_IN_MILLIS)
+  public void shouldReportAvailableThreadsAgainWhenJobsComplete() throws InterruptedException {
+    CountDownLatch completed = new CountDownLatch(1);
+    threadPool.runInThread(completed::countDown);
+    completed.await();
+    //availability is released right after the job so it may take a bit to be reflected
+    while (threadPool.blockForAvailableThreads() != THREAD_COUNT) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  @Test(timeout = TIMEOUT_IN_MILLIS)
+  public void shouldNotRunJobNorTakeThreadWhenInterruptedWhileAllThreadsBusy()
+      throws InterruptedException {
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      runBlockingJob();
+    }
+    Thread.currentThread().interrupt();
+
+    assertThat(threadPool.runInThread(() -> { }), is(false));
+    assertThat(Thread.interrupted(), is(true));
+    release.countDown();
+    while (threadPool.blockForAvailableThreads() != THREAD_COUNT) {
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+
+  @Test
+  public void shouldNotRunJobWhenShutdown() {
+    threadPool.shutdown(false);
+    assertThat(threadPool.runInThread(() -> { }), is(false));
+  }
+
+}
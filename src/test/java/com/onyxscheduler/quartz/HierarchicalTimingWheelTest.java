@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HierarchicalTimingWheelTest {
+
+  private static final long TICK_MILLIS = 10;
+  private static final long START_TIME = 1000000;
+
+  private final HierarchicalTimingWheel<TestEntry> wheel = new HierarchicalTimingWheel<>(
+      TICK_MILLIS, START_TIME, Comparator.comparing(e -> e.name));
+
+  private static class TestEntry extends HierarchicalTimingWheel.Entry {
+
+    private final String name;
+
+    private TestEntry(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  public void shouldReturnNullWhenNoEntryIsDue() {
+    wheel.add(new TestEntry("entry"), START_TIME + TICK_MILLIS * 5);
+    assertThat(wheel.first(START_TIME + TICK_MILLIS * 4), is(nullValue()));
+  }
+
+  @Test
+  public void shouldReturnEntriesOrderedByTimeWhenInDifferentLevels() {
+    long levelTwoTime = START_TIME + TICK_MILLIS * HierarchicalTimingWheel.SLOTS * 3;
+    long levelThreeTime = levelTwoTime * HierarchicalTimingWheel.SLOTS;
+    wheel.add(new TestEntry("overflow"), Long.MAX_VALUE / 2);
+    wheel.add(new TestEntry("levelThree"), levelThreeTime);
+    wheel.add(new TestEntry("levelTwo"), levelTwoTime);
+    wheel.add(new TestEntry("levelOne"), START_TIME + TICK_MILLIS * 3);
+    wheel.add(new TestEntry("past"), START_TIME - TICK_MILLIS);
+    assertThat(drain(), contains("past", "levelOne", "levelTwo", "levelThree", "overflow"));
+  }
+
+  private List<String> drain() {
+    List<String> names = new ArrayList<>();
+    TestEntry entry;
+    while ((entry = wheel.first(Long.MAX_VALUE)) != null) {
+      wheel.remove(entry);
+      names.add(entry.name);
+    }
+    return names;
+  }
+
+  @Test
+  public void shouldOrderByTieBreakerWhenSameTime() {
+    long time = START_TIME + TICK_MILLIS * 100;
+    wheel.add(new TestEntry("b"), time);
+    wheel.add(new TestEntry("a"), time);
+    assertThat(drain(), contains("a", "b"));
+  }
+
+  @Test
+  public void shouldOrderByExactTimeWhenInSameTick() {
+    long time = START_TIME + TICK_MILLIS * 100;
+    wheel.add(new TestEntry("a"), time + TICK_MILLIS - 1);
+    wheel.add(new TestEntry("b"), time);
+    assertThat(drain(), contains("b", "a"));
+  }
+
+  @Test
+  public void shouldNotReturnEntryWhenRemoved() {
+    TestEntry entry = new TestEntry("removed");
+    wheel.add(entry, START_TIME + TICK_MILLIS * HierarchicalTimingWheel.SLOTS * 2);
+    wheel.remove(entry);
+    assertThat(wheel.first(Long.MAX_VALUE), is(nullValue()));
+    assertThat(wheel.isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldUseLastTimeWhenEntryIsAddedTwice() {
+    TestEntry entry = new TestEntry("moved");
+    wheel.add(entry, START_TIME + TICK_MILLIS * 5);
+    wheel.add(entry, START_TIME + TICK_MILLIS * HierarchicalTimingWheel.SLOTS * 5);
+    assertThat(wheel.first(START_TIME + TICK_MILLIS * 5), is(nullValue()));
+    assertThat(wheel.size(), is(1));
+  }
+
+  @Test
+  public void shouldReturnEntryAddedBeforeAdvancedTimeWhenWheelAlreadyAdvanced() {
+    wheel.first(START_TIME + TICK_MILLIS * 1000);
+    wheel.add(new TestEntry("late"), START_TIME + TICK_MILLIS * 10);
+    assertThat(drain(), contains("late"));
+  }
+
+}
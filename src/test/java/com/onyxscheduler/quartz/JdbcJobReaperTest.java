@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SchedulerMetaData;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JdbcJobReaperTest {
+
+  private static final String SCHEDULER_NAME = "scheduler";
+  private static final int BATCH_SIZE = 2;
+  private static final long BACKLOG = 5;
+  private static final List<JobKey> JOB_KEYS =
+      ImmutableList.of(new JobKey("job1", "group"), new JobKey("job2", "group"));
+
+  private JdbcTemplate jdbcTemplate;
+  private Scheduler scheduler;
+
+  @Before
+  public void setup() throws SchedulerException {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    scheduler = mock(Scheduler.class);
+    SchedulerMetaData metaData = mock(SchedulerMetaData.class);
+    when(scheduler.getSchedulerName()).thenReturn(SCHEDULER_NAME);
+    when(scheduler.getMetaData()).thenReturn(metaData);
+    when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyVararg()))
+        .thenReturn(BACKLOG);
+  }
+
+  @Test
+  public void shouldDeleteCompletedJobsWhenReap() throws SchedulerException {
+    setupCompletedJobs(JOB_KEYS.subList(0, 1));
+    buildReaper(false).reap();
+    verify(scheduler).deleteJobs(JOB_KEYS.subList(0, 1));
+  }
+
+  @Test
+  public void shouldNotDeleteJobsWhenNoCompletedJobs() throws SchedulerException {
+    setupCompletedJobs(ImmutableList.of());
+    buildReaper(false).reap();
+    verify(scheduler, never()).deleteJobs(any());
+  }
+
+  @Test
+  public void shouldArchiveJobsBeforeDeletingThemWhenArchiveEnabled() throws SchedulerException {
+    setupCompletedJobs(JOB_KEYS);
+    buildReaper(true).reap();
+    InOrder inOrder = inOrder(jdbcTemplate, scheduler);
+    inOrder.verify(jdbcTemplate).update(
+        startsWith("INSERT INTO " + JdbcJobReaper.TABLE_JOB_ARCHIVE), (Object[]) anyVararg());
+    inOrder.verify(scheduler).deleteJobs(JOB_KEYS);
+  }
+
+  @Test
+  public void shouldReportNoBacklogWhenBatchNotFull() throws SchedulerException {
+    setupCompletedJobs(JOB_KEYS.subList(0, 1));
+    JdbcJobReaper reaper = buildReaper(false);
+    reaper.reap();
+    assertThat(findMetric(reaper, "onyx.reaper.backlog"), is(0L));
+  }
+
+  @Test
+  public void shouldReportCountedBacklogWhenBatchFull() throws SchedulerException {
+    setupCompletedJobs(JOB_KEYS);
+    JdbcJobReaper reaper = buildReaper(false);
+    reaper.reap();
+    assertThat(findMetric(reaper, "onyx.reaper.backlog"), is(BACKLOG));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void setupCompletedJobs(List<JobKey> jobKeys) {
+    when(jdbcTemplate.query(anyString(), any(Object[].class), any(RowMapper.class)))
+        .thenReturn(jobKeys);
+  }
+
+  private JdbcJobReaper buildReaper(boolean archive) {
+    return new JdbcJobReaper(jdbcTemplate, ImmutableList.of(scheduler), BATCH_SIZE, 1000, archive,
+                             600000);
+  }
+
+  private Object findMetric(JdbcJobReaper reaper, String name) {
+    return reaper.metrics().stream()
+        .filter(metric -> metric.getName().equals(name))
+        .map(Metric::getValue)
+        .findFirst()
+        .get();
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class JournalTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+  private Journal journal;
+
+  @Before
+  public void setup() throws IOException {
+    directory = folder.getRoot().toPath().resolve("journal");
+    journal = new Journal(directory);
+    journal.open();
+  }
+
+  @After
+  public void teardown() throws IOException {
+    journal.close();
+  }
+
+  @Test
+  public void shouldReplayAppendedRecordsWhenReopened() throws Exception {
+    append("first", "second");
+    journal.close();
+    assertThat(replay(), contains("first", "second"));
+  }
+
+  private void append(String... records) throws IOException {
+    for (String record : records) {
+      journal.append(record.getBytes(StandardCharsets.UTF_8));
+    }
+    journal.sync();
+  }
+
+  private List<String> replay() throws Exception {
+    List<String> records = new ArrayList<>();
+    new Journal(directory).replay(
+        in -> {
+          while (in.hasRemaining()) {
+            records.add(in.readString());
+          }
+        },
+        record -> records.add(new String(record, StandardCharsets.UTF_8)));
+    return records;
+  }
+
+  @Test
+  public void shouldReplaySnapshotAndFollowingRecordsWhenSnapshotTaken() throws Exception {
+    append("discarded");
+    long generation = journal.rotate();
+    append("afterSnapshot");
+    journal.writeSnapshot(generation, snapshotWriter("snapshot"));
+    journal.close();
+    assertThat(replay(), contains("snapshot", "afterSnapshot"));
+  }
+
+  private static Journal.SnapshotWriter snapshotWriter(String... records) {
+    return out -> {
+      for (String record : records) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    };
+  }
+
+  @Test
+  public void shouldDeleteOldSegmentsWhenSnapshotTaken() throws Exception {
+    append("discarded");
+    journal.writeSnapshot(journal.rotate(), snapshotWriter("snapshot"));
+    assertThat(countSegments(), is(1L));
+  }
+
+  private long countSegments() throws IOException {
+    return Files.list(directory)
+        .filter(path -> path.getFileName().toString().endsWith(".log"))
+        .count();
+  }
+
+  @Test
+  public void shouldIgnorePartiallyWrittenRecordWhenReplaying() throws Exception {
+    append("complete");
+    journal.close();
+    Path segment = Files.list(directory)
+        .filter(path -> path.getFileName().toString().endsWith(".log"))
+        .findFirst()
+        .get();
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+    journal = new Journal(directory);
+    journal.open();
+    append("appendedAfterRestart");
+    journal.close();
+    assertThat(replay(), contains("appendedAfterRestart"));
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class JournalingJobStoreTest {
+
+  private static final String JOB_NAME = "job";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private JournalingJobStore jobStore;
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+    }
+
+  }
+
+  @Before
+  public void setup() throws SchedulerConfigException {
+    jobStore = startJobStore();
+  }
+
+  private JournalingJobStore startJobStore() throws SchedulerConfigException {
+    JournalingJobStore store = new JournalingJobStore();
+    store.setDirectory(folder.getRoot().getAbsolutePath());
+    store.initialize(null, mock(SchedulerSignaler.class));
+    return store;
+  }
+
+  @After
+  public void teardown() {
+    jobStore.shutdown();
+  }
+
+  @Test
+  public void shouldRestoreJobWhenRestarted() throws Exception {
+    storeJob();
+    restart();
+    assertThat(jobStore.checkExists(new JobKey(JOB_NAME)), is(true));
+    assertThat(jobStore.checkExists(new TriggerKey(JOB_NAME)), is(true));
+  }
+
+  private void storeJob() throws JobPersistenceException {
+    JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity(JOB_NAME).build();
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity(JOB_NAME)
+        .forJob(job)
+        .startAt(new Date(System.currentTimeMillis() + 60000))
+        .build();
+    trigger.computeFirstFireTime(null);
+    jobStore.storeJobAndTrigger(job, trigger);
+  }
+
+  private void restart() throws SchedulerConfigException {
+    jobStore.shutdown();
+    jobStore = startJobStore();
+  }
+
+  @Test
+  public void shouldNotRestoreJobWhenRemovedBeforeRestart() throws Exception {
+    storeJob();
+    jobStore.removeJob(new JobKey(JOB_NAME));
+    restart();
+    assertThat(jobStore.checkExists(new JobKey(JOB_NAME)), is(false));
+  }
+
+  @Test
+  public void shouldRestorePausedTriggerWhenRestarted() throws Exception {
+    storeJob();
+    jobStore.pauseJob(new JobKey(JOB_NAME));
+    restart();
+    assertThat(jobStore.getTriggerState(new TriggerKey(JOB_NAME)),
+               is(Trigger.TriggerState.PAUSED));
+  }
+
+  @Test
+  public void shouldAcquireRestoredTriggerWhenRestarted() throws Exception {
+    storeJob();
+    restart();
+    List<OperableTrigger> acquired = jobStore.acquireNextTriggers(
+        System.currentTimeMillis() + 120000, 1, 0);
+    assertThat(acquired.get(0).getKey(), is(new TriggerKey(JOB_NAME)));
+  }
+
+  @Test
+  public void shouldRestoreJobWhenRestartedAfterSnapshot() throws Exception {
+    jobStore.shutdown();
+    jobStore = new JournalingJobStore();
+    jobStore.setDirectory(folder.getRoot().getAbsolutePath());
+    jobStore.setSnapshotThresholdBytes(1);
+    jobStore.initialize(null, mock(SchedulerSignaler.class));
+    storeJob();
+    restart();
+    assertThat(jobStore.checkExists(new JobKey(JOB_NAME)), is(true));
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PartitionLeaseManagerTest {
+
+  private static final List<String> NODES = ImmutableList.of("node1", "node2", "node3");
+
+  @Test
+  public void shouldAssignAllPartitionsWhenSingleNode() {
+    assertThat(PartitionLeaseManager.computeFairShare(16, ImmutableList.of("node1"), "node1"),
+               is(16));
+  }
+
+  @Test
+  public void shouldAssignRemainderToFirstNodesWhenPartitionsNotDivisibleByNodes() {
+    assertThat(IntStream.range(0, NODES.size())
+                   .map(i -> PartitionLeaseManager.computeFairShare(16, NODES, NODES.get(i)))
+                   .boxed()
+                   .collect(Collectors.toList()),
+               is(Arrays.asList(6, 5, 5)));
+  }
+
+  @Test
+  public void shouldCountNodeAsLiveWhenNotFoundInLiveNodes() {
+    assertThat(PartitionLeaseManager.computeFairShare(16, NODES, "node4"), is(4));
+  }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.Test;
+import org.quartz.JobKey;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PartitionedQuartzSchedulersTest {
+
+  private static final int PARTITION_COUNT = 8;
+
+  @Test
+  public void shouldGetSamePartitionWhenSameJobKey() {
+    assertThat(PartitionedQuartzSchedulers.partitionOf(new JobKey("name", "group"),
+                                                       PARTITION_COUNT),
+               is(PartitionedQuartzSchedulers.partitionOf(new JobKey("name", "group"),
+                                                          PARTITION_COUNT)));
+  }
+
+  @Test
+  public void shouldUseAllPartitionsWhenJobKeysOnlyDifferInSuffix() {
+    Set<Integer> partitions = IntStream.range(0, 1000)
+        .mapToObj(i -> PartitionedQuartzSchedulers.partitionOf(new JobKey("job" + i, "group"),
+                                                               PARTITION_COUNT))
+        .collect(Collectors.toSet());
+    assertThat(partitions.size(), is(PARTITION_COUNT));
+  }
+
+}
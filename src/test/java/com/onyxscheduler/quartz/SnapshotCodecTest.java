@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.triggers.CronTriggerImpl;
+import org.quartz.spi.OperableTrigger;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class SnapshotCodecTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+    }
+
+  }
+
+  @Test
+  public void shouldReadSameJobWhenWritten() throws Exception {
+    JobDetail job = JobBuilder.newJob(NoOpJob.class)
+        .withIdentity("name", "group")
+        .withDescription("description")
+        .usingJobData("url", "http://localhost")
+        .storeDurably()
+        .build();
+    JobDetail readJob = writeAndRead(JournalRecord.storeJob(job)).getJob();
+    assertThat(readJob.getKey(), is(job.getKey()));
+    assertThat(readJob.getJobClass().getName(), is(NoOpJob.class.getName()));
+    assertThat(readJob.getDescription(), is(job.getDescription()));
+    assertThat(readJob.isDurable(), is(true));
+    assertThat(readJob.getJobDataMap(), is(job.getJobDataMap()));
+  }
+
+  private JournalRecord writeAndRead(JournalRecord record) throws Exception {
+    List<JournalRecord> records = writeAndRead(Collections.singletonList(record));
+    assertThat(records.size(), is(1));
+    return records.get(0);
+  }
+
+  private List<JournalRecord> writeAndRead(List<JournalRecord> records) throws Exception {
+    Path snapshot = folder.newFile().toPath();
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(snapshot))) {
+      SnapshotCodec.write(out, records);
+    }
+    List<JournalRecord> readRecords = new ArrayList<>();
+    try (MappedFileInput in = new MappedFileInput(snapshot)) {
+      new SnapshotCodec(getClass().getClassLoader()).read(in, readRecords::add);
+    }
+    return readRecords;
+  }
+
+  @Test
+  public void shouldReadSameSimpleTriggerWhenWritten() throws Exception {
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity("name", "group")
+        .forJob("job", "group")
+        .withPriority(7)
+        .startAt(new Date(1000))
+        .usingJobData("key", "value")
+        .build();
+    trigger.computeFirstFireTime(null);
+    JournalRecord record = writeAndRead(
+        JournalRecord.storeTrigger(trigger, Trigger.TriggerState.PAUSED));
+    SimpleTrigger readTrigger = (SimpleTrigger) record.getTrigger();
+    assertThat(record.getTriggerState(), is(Trigger.TriggerState.PAUSED));
+    assertThat(readTrigger.getKey(), is(trigger.getKey()));
+    assertThat(readTrigger.getJobKey(), is(trigger.getJobKey()));
+    assertThat(readTrigger.getPriority(), is(7));
+    assertThat(readTrigger.getNextFireTime(), is(trigger.getNextFireTime()));
+    assertThat(readTrigger.getJobDataMap(), is(trigger.getJobDataMap()));
+  }
+
+  @Test
+  public void shouldReadSameCronTriggerWhenWritten() throws Exception {
+    TimeZone timeZone = TimeZone.getTimeZone("America/Montevideo");
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity("name", "group")
+        .forJob("job", "group")
+        .withSchedule(CronScheduleBuilder.cronSchedule("0 0/15 8-18 ? * MON-FRI")
+                          .inTimeZone(timeZone))
+        .build();
+    trigger.computeFirstFireTime(null);
+    CronTrigger readTrigger = (CronTrigger) writeAndRead(
+        JournalRecord.storeTrigger(trigger, Trigger.TriggerState.NORMAL)).getTrigger();
+    assertThat(readTrigger.getCronExpression(), is("0 0/15 8-18 ? * MON-FRI"));
+    assertThat(readTrigger.getTimeZone(), is(timeZone));
+    assertThat(readTrigger.getNextFireTime(), is(trigger.getNextFireTime()));
+  }
+
+  @Test
+  public void shouldKeepTimeZoneOfCronTriggerWhenChangedInAnotherWithSameExpression()
+      throws Exception {
+    TimeZone timeZone = TimeZone.getTimeZone("America/Montevideo");
+    List<JournalRecord> records = writeAndRead(Arrays.asList(
+        JournalRecord.storeTrigger(buildCronTrigger("name1", timeZone),
+                                   Trigger.TriggerState.NORMAL),
+        JournalRecord.storeTrigger(buildCronTrigger("name2", timeZone),
+                                   Trigger.TriggerState.NORMAL)));
+
+    ((CronTriggerImpl) records.get(0).getTrigger()).setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    assertThat(((CronTrigger) records.get(1).getTrigger()).getTimeZone(), is(timeZone));
+  }
+
+  private OperableTrigger buildCronTrigger(String name, TimeZone timeZone) {
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity(name, "group")
+        .forJob("job", "group")
+        .withSchedule(CronScheduleBuilder.cronSchedule("0 0/15 8-18 ? * MON-FRI")
+                          .inTimeZone(timeZone))
+        .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+}
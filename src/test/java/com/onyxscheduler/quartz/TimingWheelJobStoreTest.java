@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.quartz;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobPersistenceException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TimingWheelJobStoreTest {
+
+  private static final long TIME_WINDOW = 0;
+
+  private TimingWheelJobStore jobStore;
+  private SchedulerSignaler signaler;
+  private long now;
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+    }
+
+  }
+
+  @Before
+  public void setup() {
+    signaler = mock(SchedulerSignaler.class);
+    jobStore = new TimingWheelJobStore();
+    jobStore.initialize(null, signaler);
+    now = System.currentTimeMillis();
+  }
+
+  @Test
+  public void shouldAcquireDueTriggersOrderedByFireTime() throws JobPersistenceException {
+    storeJob("late", now + 2000);
+    storeJob("early", now + 1000);
+    storeJob("future", now + 60000);
+    assertThat(acquireTriggerNames(now + 5000, 10), contains("early", "late"));
+  }
+
+  private JobDetail storeJob(String name, long fireTime) throws JobPersistenceException {
+    JobDetail job = JobBuilder.newJob(NoOpJob.class).withIdentity(name).build();
+    OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+        .withIdentity(name)
+        .forJob(job)
+        .startAt(new Date(fireTime))
+        .build();
+    trigger.computeFirstFireTime(null);
+    jobStore.storeJobAndTrigger(job, trigger);
+    return job;
+  }
+
+  private List<String> acquireTriggerNames(long noLaterThan, int maxCount) {
+    return jobStore.acquireNextTriggers(noLaterThan, maxCount, TIME_WINDOW).stream()
+        .map(trigger -> trigger.getKey().getName())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldNotAcquireTriggerWhenItsGroupIsPaused() throws JobPersistenceException {
+    storeJob("paused", now + 1000);
+    jobStore.pauseTriggers(GroupMatcher.anyTriggerGroup());
+    assertThat(acquireTriggerNames(now + 5000, 10).isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldAcquireTriggerWhenResumed() throws JobPersistenceException {
+    storeJob("resumed", now + 1000);
+    jobStore.pauseAll();
+    jobStore.resumeAll();
+    assertThat(acquireTriggerNames(now + 5000, 10), contains("resumed"));
+  }
+
+  @Test
+  public void shouldRemoveJobWhenItsOnlyTriggerCompletes() throws JobPersistenceException {
+    JobDetail job = storeJob("completed", now);
+    List<OperableTrigger> acquired = jobStore.acquireNextTriggers(now, 1, TIME_WINDOW);
+    jobStore.triggersFired(acquired);
+    jobStore.triggeredJobComplete(acquired.get(0), job,
+                                  Trigger.CompletedExecutionInstruction.DELETE_TRIGGER);
+    assertThat(jobStore.checkExists(job.getKey()), is(false));
+    verify(signaler).notifySchedulerListenersJobDeleted(job.getKey());
+  }
+
+}
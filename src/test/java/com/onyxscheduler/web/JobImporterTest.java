@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onyxscheduler.domain.Job;
+import com.onyxscheduler.domain.ScheduleResult;
+import com.onyxscheduler.domain.Scheduler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobImporterTest {
+
+  private static final String JOB_GROUP = "group";
+  private static final String JOB_TEMPLATE =
+      "{\"type\":\"http\",\"name\":\"%s\",\"url\":\"http://localhost\","
+      + "\"triggers\":[{\"cron\":\"0/2 * * * * ?\"}]}";
+
+  @Mock
+  private Scheduler scheduler;
+
+  private JobImporter importer;
+
+  @Before
+  public void setup() {
+    importer = new JobImporter(scheduler, new ObjectMapper());
+    importer.setImportChunkSize(2);
+    when(scheduler.scheduleJobs(eq(JOB_GROUP), anyListOf(Job.class))).thenAnswer(
+        invocation -> ((List<?>) invocation.getArguments()[1]).stream()
+            .map(job -> ScheduleResult.scheduled((Job) job))
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void shouldScheduleInChunksWhenImportJobsWithNdjson() throws IOException {
+    String input = buildJob("job1") + "\n" + buildJob("job2") + "\n" + buildJob("job3") + "\n";
+
+    List<String> lines = importJobs(input);
+
+    assertThat(lines.size(), is(3));
+    verify(scheduler, times(2)).scheduleJobs(eq(JOB_GROUP), anyListOf(Job.class));
+  }
+
+  private String buildJob(String name) {
+    return String.format(JOB_TEMPLATE, name);
+  }
+
+  private List<String> importJobs(String input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    importer.importJobs(JOB_GROUP, new ByteArrayInputStream(input.getBytes(Charsets.UTF_8)),
+                        output);
+    return Splitter.on('\n').omitEmptyStrings().splitToList(output.toString("UTF-8"));
+  }
+
+  @Test
+  public void shouldScheduleAllJobsWhenImportJobsWithJsonArray() throws IOException {
+    String input = "[" + buildJob("job1") + "," + buildJob("job2") + "]";
+
+    List<String> lines = importJobs(input);
+
+    assertThat(lines, contains(containsString("\"name\":\"job1\""),
+                               containsString("\"name\":\"job2\"")));
+  }
+
+  @Test
+  public void shouldReportInvalidAndGoOnWhenImportJobsWithUnknownJobType() throws IOException {
+    String input = "{\"type\":\"unknown\",\"name\":\"job1\"}\n" + buildJob("job2");
+
+    List<String> lines = importJobs(input);
+
+    assertThat(lines, contains(containsString("\"status\":\"INVALID\""),
+                               containsString("\"status\":\"SCHEDULED\"")));
+  }
+
+  @Test
+  public void shouldReportErrorAfterPreviousResultsWhenImportJobsWithMalformedJson()
+      throws IOException {
+    String input = buildJob("job1") + "\n{\"type\":";
+
+    List<String> lines = importJobs(input);
+
+    assertThat(lines, contains(containsString("\"status\":\"SCHEDULED\""),
+                               containsString("\"error\"")));
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.onyxscheduler.web;
+
+import com.onyxscheduler.domain.JobKey;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class JobKeyCursorTest {
+
+  @Test
+  public void shouldGetSameKeyWhenDecodeEncodedKey() {
+    JobKey key = new JobKey("group:with:separators", "name");
+
+    assertThat(JobKeyCursor.decode(JobKeyCursor.encode(key)), is(key));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentWhenDecodeWithTamperedCursor() {
+    JobKeyCursor.decode("notACursor");
+  }
+
+}